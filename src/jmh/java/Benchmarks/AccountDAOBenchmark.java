@@ -0,0 +1,77 @@
+package Benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import DAO.AccountDAO;
+import DAO.JdbcAccountDAO;
+import DAO.R2dbcAccountDAO;
+import Model.Account;
+
+/**
+ * AccountDAO lookups on both engines. The message table size is a parameter too, since every account lookup shares
+ * the database with it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkDatabase.DB_URL_ARG)
+public class AccountDAOBenchmark {
+
+    @Param({"1000", "100000"})
+    public int tableSize;
+
+    @Param({"jdbc", "r2dbc"})
+    public String engine;
+
+    private AccountDAO accountDAO;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkDatabase.seed(tableSize);
+        accountDAO = engine.equals("r2dbc") ? new R2dbcAccountDAO() : new JdbcAccountDAO();
+        accountDAO.loadAccountIds();
+    }
+
+    @Benchmark
+    public Account getAccountByUsernameAndPassword() {
+        return accountDAO.getAccountByUsernameAndPassword(randomUsername(), BenchmarkDatabase.PASSWORD);
+    }
+
+    @Benchmark
+    public Account getAccountByUsername() {
+        return accountDAO.getAccountByUsername(randomUsername());
+    }
+
+    @Benchmark
+    public Account getAccountById() {
+        return accountDAO.getAccountById(ThreadLocalRandom.current().nextInt(BenchmarkDatabase.ACCOUNTS) + 1);
+    }
+
+    /**
+     * Served from the in-memory index, for comparison with the database lookups.
+     */
+    @Benchmark
+    public boolean accountExists() {
+        return accountDAO.accountExists(ThreadLocalRandom.current().nextInt(BenchmarkDatabase.ACCOUNTS * 2) + 1);
+    }
+
+    private static String randomUsername() {
+        return "user" + ThreadLocalRandom.current().nextInt(BenchmarkDatabase.ACCOUNTS);
+    }
+}
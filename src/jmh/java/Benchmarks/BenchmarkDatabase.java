@@ -0,0 +1,63 @@
+package Benchmarks;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import DAO.JdbcMessageDAO;
+import Model.Message;
+import Util.ConnectionUtil;
+import Util.UnitOfWork;
+
+/**
+ * Seeds the benchmark database. Every benchmark forks with {@link #DB_URL_ARG}, so it works on its own H2 file under
+ * target/ and never touches the database the application and the tests use.
+ */
+public class BenchmarkDatabase {
+
+    /**
+     * JVM argument for @Fork(jvmArgsAppend = ...), read by ConnectionUtil when it is first loaded.
+     */
+    public static final String DB_URL_ARG = "-Ddb.url=jdbc:h2:./target/jmh/db;";
+
+    public static final int ACCOUNTS = 100;
+    public static final String PASSWORD = "password";
+    private static final int CHUNK_SIZE = 1000;
+
+    /**
+     * Recreates the schema and fills it with ACCOUNTS accounts ("user0", "user1", ...) and messageCount messages
+     * spread evenly across them. Account ids are 1..ACCOUNTS and message ids 1..messageCount.
+     */
+    public static void seed(int messageCount) {
+        ConnectionUtil.resetTestDatabase();
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            connection.createStatement().execute("DELETE FROM message");
+            connection.createStatement().execute("DELETE FROM account");
+            connection.createStatement().execute("ALTER TABLE message ALTER COLUMN message_id RESTART WITH 1");
+            connection.createStatement().execute("ALTER TABLE account ALTER COLUMN account_id RESTART WITH 1");
+            PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO account (username, password) VALUES (?, ?)");
+            for (int i = 0; i < ACCOUNTS; i++) {
+                ps.setString(1, "user" + i);
+                ps.setString(2, PASSWORD);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not seed accounts", e);
+        }
+
+        JdbcMessageDAO messageDAO = new JdbcMessageDAO();
+        for (int start = 0; start < messageCount; start += CHUNK_SIZE) {
+            List<Message> chunk = new ArrayList<>(CHUNK_SIZE);
+            for (int i = start; i < Math.min(messageCount, start + CHUNK_SIZE); i++) {
+                chunk.add(new Message(i % ACCOUNTS + 1, "benchmark message " + i, 1669947792L + i));
+            }
+            if (UnitOfWork.execute(() -> messageDAO.createMessages(chunk)) == null) {
+                throw new IllegalStateException("Could not seed messages");
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package Benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Model.Account;
+import Model.Message;
+import Service.MessageJsonCache;
+
+/**
+ * Jackson serialization and deserialization of Model.Message and Model.Account, with the same ObjectMapper settings
+ * Javalin uses by default. listSize is the number of messages in a list response, like GET /messages on a table of
+ * that size. spliceMessageList builds the same bytes from the MessageJsonCache the list handlers use.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    private static final TypeReference<List<Message>> MESSAGE_LIST = new TypeReference<List<Message>>(){};
+
+    @Param({"1", "1000", "100000"})
+    public int listSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Message message = new Message(1, 1, "benchmark message", 1669947792L);
+    private final Account account = new Account(1, "testuser1", "password");
+    private String messageJson;
+    private String accountJson;
+    private List<Message> messages;
+    private byte[] messagesJson;
+    private final MessageJsonCache jsonCache = new MessageJsonCache(Long.MAX_VALUE);
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        messageJson = objectMapper.writeValueAsString(message);
+        accountJson = objectMapper.writeValueAsString(account);
+        messages = new ArrayList<>(listSize);
+        for (int i = 1; i <= listSize; i++) {
+            messages.add(new Message(i, i % 100 + 1, "benchmark message " + i, 1669947792L + i));
+        }
+        messagesJson = objectMapper.writeValueAsBytes(messages);
+        jsonCache.toJsonArray(messages);
+    }
+
+    @Benchmark
+    public String serializeMessage() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(message);
+    }
+
+    @Benchmark
+    public Message deserializeMessage() throws JsonProcessingException {
+        return objectMapper.readValue(messageJson, Message.class);
+    }
+
+    @Benchmark
+    public String serializeAccount() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(account);
+    }
+
+    @Benchmark
+    public Account deserializeAccount() throws JsonProcessingException {
+        return objectMapper.readValue(accountJson, Account.class);
+    }
+
+    @Benchmark
+    public byte[] serializeMessageList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(messages);
+    }
+
+    /**
+     * What the list handlers do instead of serializeMessageList: splice the cached JSON of each message.
+     */
+    @Benchmark
+    public byte[] spliceMessageList() {
+        return jsonCache.toJsonArray(messages);
+    }
+
+    @Benchmark
+    public List<Message> deserializeMessageList() throws Exception {
+        return objectMapper.readValue(messagesJson, MESSAGE_LIST);
+    }
+}
@@ -0,0 +1,66 @@
+package Benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Controller.MediaFormat;
+import Model.Message;
+import Util.HttpCompression;
+
+/**
+ * Encoding and decoding a List<Message> response, like GET /messages on a table of listSize messages, in each format
+ * the endpoints negotiate. The payload size of each format, plain and gzipped, is printed when the trial starts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MediaFormatBenchmark {
+
+    @Param({"JSON", "CBOR", "SMILE"})
+    public MediaFormat format;
+
+    @Param({"1000"})
+    public int listSize;
+
+    private List<Message> messages;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        messages = new ArrayList<>(listSize);
+        for (int i = 1; i <= listSize; i++) {
+            messages.add(new Message(i, i % 100 + 1, "benchmark message " + i, 1669947792L + i));
+        }
+        encoded = format.getMapper().writeValueAsBytes(messages);
+        System.out.printf("%n%s payload for %d messages: %d bytes, %d bytes gzipped%n", format, listSize,
+                encoded.length, HttpCompression.gzip(encoded, 6).length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return format.getMapper().writeValueAsBytes(messages);
+    }
+
+    @Benchmark
+    public Message[] decode() throws IOException {
+        return format.getMapper().readValue(encoded, Message[].class);
+    }
+}
@@ -0,0 +1,198 @@
+package Benchmarks;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import DAO.JdbcMessageDAO;
+import DAO.MemoryMessageDAO;
+import DAO.MemoryStore;
+import DAO.MessageDAO;
+import DAO.R2dbcMessageDAO;
+import Model.Message;
+import Util.ConnectionUtil;
+
+/**
+ * MessageDAO operations on every engine at several table sizes. Writes keep the table size constant: every delete
+ * puts the row back, and inserts are paired with a delete.
+ *
+ * The *TwoStatements benchmarks are the read-then-write versions deleteMessage and updateMessageText used before they
+ * switched to H2's OLD TABLE / FINAL TABLE, for comparison with the single-statement versions. They always use JDBC.
+ *
+ * The memory engine is seeded from the same table and gives the ceiling for the other two. It cannot put a deleted
+ * message back with its id, so after the first pass its deleteMessage mostly misses, and that result is left out of
+ * comparisons.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkDatabase.DB_URL_ARG)
+public class MessageDAOBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int tableSize;
+
+    @Param({"jdbc", "r2dbc", "memory"})
+    public String engine;
+
+    private MessageDAO messageDAO;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkDatabase.seed(tableSize);
+        switch (engine) {
+            case "r2dbc":
+                messageDAO = new R2dbcMessageDAO();
+                break;
+            case "memory":
+                MemoryStore store = new MemoryStore();
+                store.ensureLoaded();
+                messageDAO = new MemoryMessageDAO(store);
+                break;
+            default:
+                messageDAO = new JdbcMessageDAO();
+        }
+    }
+
+    @Benchmark
+    public Message getMessageById() {
+        return messageDAO.getMessageById(randomMessageId());
+    }
+
+    @Benchmark
+    public Object getMessagesByIds() {
+        List<Integer> ids = new ArrayList<>(20);
+        for (int i = 0; i < 20; i++) {
+            ids.add(randomMessageId());
+        }
+        return messageDAO.getMessagesByIds(ids);
+    }
+
+    @Benchmark
+    public List<Message> getMessagesByAccountId() {
+        return messageDAO.getMessagesByAccountId(randomAccountId());
+    }
+
+    @Benchmark
+    public List<Message> getMessagesPage() {
+        return messageDAO.getMessagesPage(randomMessageId(), 50, true);
+    }
+
+    @Benchmark
+    public List<Message> getMessagesByAccountIdPage() {
+        return messageDAO.getMessagesByAccountIdPage(randomAccountId(), Integer.MAX_VALUE, 50, false);
+    }
+
+    @Benchmark
+    public List<Message> getAllMessages() {
+        return messageDAO.getAllMessages();
+    }
+
+    @Benchmark
+    public void createAndDeleteMessage(Blackhole blackhole) {
+        Message created = messageDAO.createMessage(new Message(randomAccountId(), "benchmark insert", 1669947792L));
+        blackhole.consume(messageDAO.deleteMessage(created.getMessage_id()));
+    }
+
+    @Benchmark
+    public Message updateMessageText() {
+        return messageDAO.updateMessageText(randomMessageId(), "updated text");
+    }
+
+    @Benchmark
+    public Message updateMessageTextTwoStatements() throws SQLException {
+        int messageId = randomMessageId();
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            PreparedStatement update = connection.prepareStatement(
+                    "UPDATE message SET message_text = ? WHERE message_id = ?");
+            update.setString(1, "updated text");
+            update.setInt(2, messageId);
+            if (update.executeUpdate() == 0) {
+                return null;
+            }
+            return selectMessage(connection, messageId);
+        }
+    }
+
+    /**
+     * Deletes a message with the DAO and puts it back.
+     */
+    @Benchmark
+    public void deleteMessage() throws SQLException {
+        Message deleted = messageDAO.deleteMessage(randomMessageId());
+        if (!engine.equals("memory")) {
+            restore(deleted); // The memory engine never deleted the row from the table
+        }
+    }
+
+    @Benchmark
+    public void deleteMessageTwoStatements() throws SQLException {
+        int messageId = randomMessageId();
+        Message deleted;
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            deleted = selectMessage(connection, messageId);
+            PreparedStatement delete = connection.prepareStatement("DELETE FROM message WHERE message_id = ?");
+            delete.setInt(1, messageId);
+            delete.executeUpdate();
+        }
+        restore(deleted);
+    }
+
+    private int randomMessageId() {
+        return ThreadLocalRandom.current().nextInt(tableSize) + 1;
+    }
+
+    private static int randomAccountId() {
+        return ThreadLocalRandom.current().nextInt(BenchmarkDatabase.ACCOUNTS) + 1;
+    }
+
+    private static Message selectMessage(Connection connection, int messageId) throws SQLException {
+        PreparedStatement select = connection.prepareStatement("SELECT * FROM message WHERE message_id = ?");
+        select.setInt(1, messageId);
+        ResultSet rs = select.executeQuery();
+        if (!rs.next()) {
+            return null;
+        }
+        return new Message(rs.getInt("message_id"), rs.getInt("posted_by"), rs.getString("message_text"),
+                rs.getLong("time_posted_epoch"));
+    }
+
+    /**
+     * Re-inserts a deleted message with its original id, the same way for every delete benchmark.
+     */
+    private static void restore(Message message) throws SQLException {
+        if (message == null) {
+            return;
+        }
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            PreparedStatement insert = connection.prepareStatement("INSERT INTO message "
+                    + "(message_id, posted_by, message_text, time_posted_epoch) VALUES (?, ?, ?, ?)");
+            insert.setInt(1, message.getMessage_id());
+            insert.setInt(2, message.getPosted_by());
+            insert.setString(3, message.getMessage_text());
+            insert.setLong(4, message.getTime_posted_epoch());
+            insert.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package Benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import DAO.JdbcAccountDAO;
+import DAO.JdbcMessageDAO;
+import Model.Message;
+import Service.AccountService;
+import Service.MessageService;
+
+/**
+ * MessageService.createMessage and updateMessage, on each of their validation paths: the ones rejected before any
+ * database access, the unknown author rejected by the in-memory account index, and the valid writes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkDatabase.DB_URL_ARG)
+public class MessageServiceBenchmark {
+
+    private static final String TOO_LONG = "x".repeat(256);
+
+    @Param({"1000", "100000"})
+    public int tableSize;
+
+    private MessageService messageService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkDatabase.seed(tableSize);
+        AccountService accountService = new AccountService(new JdbcAccountDAO());
+        accountService.loadAccountIndex();
+        messageService = new MessageService(new JdbcMessageDAO(), accountService);
+    }
+
+    @Benchmark
+    public Message createMessageBlankText() {
+        return messageService.createMessage(new Message(1, "   ", 1669947792L));
+    }
+
+    @Benchmark
+    public Message createMessageTooLong() {
+        return messageService.createMessage(new Message(1, TOO_LONG, 1669947792L));
+    }
+
+    @Benchmark
+    public Message createMessageUnknownAuthor() {
+        return messageService.createMessage(new Message(BenchmarkDatabase.ACCOUNTS + 1, "hello", 1669947792L));
+    }
+
+    /**
+     * A valid create, followed by a delete so the table keeps its size.
+     */
+    @Benchmark
+    public void createMessageValid(Blackhole blackhole) {
+        Message created = messageService.createMessage(new Message(randomAccountId(), "hello", 1669947792L));
+        blackhole.consume(messageService.deleteMessage(created.getMessage_id()));
+    }
+
+    @Benchmark
+    public Message updateMessageBlankText() {
+        return messageService.updateMessage(randomMessageId(), "   ");
+    }
+
+    @Benchmark
+    public Message updateMessageTooLong() {
+        return messageService.updateMessage(randomMessageId(), TOO_LONG);
+    }
+
+    @Benchmark
+    public Message updateMessageValid() {
+        return messageService.updateMessage(randomMessageId(), "updated text");
+    }
+
+    private int randomMessageId() {
+        return ThreadLocalRandom.current().nextInt(tableSize) + 1;
+    }
+
+    private static int randomAccountId() {
+        return ThreadLocalRandom.current().nextInt(BenchmarkDatabase.ACCOUNTS) + 1;
+    }
+}
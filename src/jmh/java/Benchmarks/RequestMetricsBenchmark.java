@@ -0,0 +1,60 @@
+package Benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Util.PrometheusWriter;
+import Util.RequestMetrics;
+
+/**
+ * Cost of recording one request in RequestMetrics, which the after handler pays on every request and which should
+ * stay well under a microsecond, single-threaded and with several request threads recording into the same
+ * histograms. Also measures rendering /metrics.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestMetricsBenchmark {
+
+    private static final String[] ROUTES = {
+            "/register", "/login", "/messages", "/messages/{message_id}", "/accounts/{account_id}/messages"};
+
+    private final RequestMetrics requestMetrics = new RequestMetrics();
+
+    @Benchmark
+    public void record() {
+        recordRandom();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended() {
+        recordRandom();
+    }
+
+    @Benchmark
+    public String writeMetrics() {
+        PrometheusWriter writer = new PrometheusWriter();
+        requestMetrics.writeTo(writer);
+        return writer.toString();
+    }
+
+    private void recordRandom() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        requestMetrics.record("GET", ROUTES[random.nextInt(ROUTES.length)], 200, random.nextLong(50_000, 5_000_000));
+    }
+}
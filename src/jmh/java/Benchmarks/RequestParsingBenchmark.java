@@ -0,0 +1,103 @@
+package Benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Controller.MediaFormat;
+import Controller.RequestBodyParser;
+import Model.Account;
+import Model.Message;
+
+/**
+ * Parsing the request bodies of POST /messages, POST /login and PATCH /messages/{message_id}: the streaming
+ * RequestBodyParser against binding with Jackson and validating with trim().isEmpty(), which the handlers did
+ * before. The *Invalid benchmarks send a blank text, which the streaming parser rejects without building a String.
+ * Run with -prof gc to compare allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestParsingBenchmark {
+
+    private static final byte[] MESSAGE = ("{\"posted_by\":1, \"message_text\": \"hello message from the benchmark\", "
+            + "\"time_posted_epoch\": 1669947792}").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BLANK_MESSAGE = ("{\"posted_by\":1, \"message_text\": \"                    \", "
+            + "\"time_posted_epoch\": 1669947792}").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ACCOUNT = "{\"username\": \"testuser1\", \"password\": \"password\"}"
+            .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] UPDATE = "{\"message_text\": \"updated message\"}".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * The body of PATCH /messages/{message_id}, bound the way the handler used to.
+     */
+    public static class MessageUpdateBody {
+        public String message_text;
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Benchmark
+    public Message bindMessage() throws IOException {
+        Message message = objectMapper.readValue(new ByteArrayInputStream(MESSAGE), Message.class);
+        return isValid(message.getMessage_text()) ? message : null;
+    }
+
+    @Benchmark
+    public Message parseMessage() {
+        return RequestBodyParser.parseMessage(new ByteArrayInputStream(MESSAGE), MediaFormat.JSON);
+    }
+
+    @Benchmark
+    public Message bindMessageInvalid() throws IOException {
+        Message message = objectMapper.readValue(new ByteArrayInputStream(BLANK_MESSAGE), Message.class);
+        return isValid(message.getMessage_text()) ? message : null;
+    }
+
+    @Benchmark
+    public Message parseMessageInvalid() {
+        return RequestBodyParser.parseMessage(new ByteArrayInputStream(BLANK_MESSAGE), MediaFormat.JSON);
+    }
+
+    @Benchmark
+    public Account bindAccount() throws IOException {
+        Account account = objectMapper.readValue(new ByteArrayInputStream(ACCOUNT), Account.class);
+        return account.getUsername() != null && !account.getUsername().trim().isEmpty() ? account : null;
+    }
+
+    @Benchmark
+    public Account parseAccount() {
+        return RequestBodyParser.parseAccount(new ByteArrayInputStream(ACCOUNT), MediaFormat.JSON);
+    }
+
+    @Benchmark
+    public String bindMessageText() throws IOException {
+        String text = objectMapper.readValue(new ByteArrayInputStream(UPDATE), MessageUpdateBody.class).message_text;
+        return isValid(text) ? text : null;
+    }
+
+    @Benchmark
+    public String parseMessageText() {
+        return RequestBodyParser.parseMessageText(new ByteArrayInputStream(UPDATE), MediaFormat.JSON);
+    }
+
+    private static boolean isValid(String text) {
+        return text != null && !text.trim().isEmpty() && text.length() <= 255;
+    }
+}
@@ -0,0 +1,293 @@
+package LoadTest;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.jetty.util.VirtualThreads;
+
+import Controller.SocialMediaController;
+import Util.ConnectionUtil;
+import Util.LatencyHistogram;
+import io.javalin.Javalin;
+
+/**
+ * The LoadGenerator class starts the application in-process on an ephemeral port, seeds it through its own endpoints
+ * and drives a weighted mix of all eight endpoints, then prints throughput, error rate and latency percentiles for
+ * every route. Run it with the load profile:
+ *
+ *   mvn -Pload -DskipTests verify -Dload.args="--mode=open --rate=2000 --duration=60"
+ *
+ * Options (all --name=value):
+ *   --mode            closed (default): --users clients, each sending its next request when the previous one
+ *                     returns (after --pacing-ms, if set). open: requests start at a fixed --rate regardless of how
+ *                     fast the server answers.
+ *   --users           concurrent clients in closed mode (100).
+ *   --pacing-ms       in closed mode, the interval at which each client tries to start a request (0 = back to back).
+ *   --rate            requests per second in open mode (1000).
+ *   --max-in-flight   open mode cap on outstanding requests (10000); later requests wait and the wait is counted.
+ *   --accounts        accounts to seed (100).
+ *   --messages        messages to seed (10000).
+ *   --warmup          seconds of load before measuring (5).
+ *   --duration        seconds measured (30).
+ *   --mix             route weights, e.g. get_message=50,login=50; unlisted routes get no traffic.
+ *   --server-threads  platform (default), virtual, or both to run the whole scenario once per mode. Both runs
+ *                     share one JVM, so give --warmup enough time for the first run to start warm too.
+ *
+ * Response times are measured from the moment the schedule said a request should start, not from when it was
+ * actually sent, so a stalled server cannot hide its stalls by holding back the generator (coordinated omission).
+ * That needs a schedule: open mode always has one, closed mode only with --pacing-ms. Back-to-back closed mode
+ * reports plain service times.
+ *
+ * Other server settings (server.asyncHandlers, dao.engine, db.pool.maxSize, writeBehind.enabled, ...) are passed as
+ * system properties through -Dload.jvmArgs. Unless db.url is set, the run uses its own H2 file under target/load.
+ */
+public class LoadGenerator {
+
+    private static final String DEFAULT_DB_URL = "jdbc:h2:./target/load/db;";
+    private static final long DRAIN_TIMEOUT_SECONDS = 30;
+
+    private final Map<String, String> options;
+    private final Map<Workload.Route, Integer> mix;
+
+    public LoadGenerator(Map<String, String> options) {
+        this.options = options;
+        this.mix = parseMix(options.get("mix"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Must happen before ConnectionUtil is loaded, so the run never touches the application's database
+        if (System.getProperty("db.url") == null) {
+            System.setProperty("db.url", DEFAULT_DB_URL);
+        }
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        LoadGenerator generator = new LoadGenerator(options);
+        String serverThreads = options.getOrDefault("server-threads", "platform");
+        List<String> threadModes = serverThreads.equals("both")
+                ? List.of("platform", "virtual") : List.of(serverThreads);
+        for (String threadMode : threadModes) {
+            generator.run(threadMode);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Runs the whole scenario against a freshly started server.
+     * @param threadMode platform or virtual, for the Jetty request threads.
+     */
+    public void run(String threadMode) throws Exception {
+        if (!threadMode.equals("platform") && !threadMode.equals("virtual")) {
+            throw new IllegalArgumentException("server-threads must be platform, virtual or both");
+        }
+        System.setProperty("server.virtualThreads", String.valueOf(threadMode.equals("virtual")));
+        ConnectionUtil.resetTestDatabase();
+        Javalin app = new SocialMediaController().startAPI().start(0);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        Workload workload = new Workload(client, app.port(), mix);
+        String description;
+        long durationNanos = TimeUnit.SECONDS.toNanos(intOption("duration", 30));
+        try {
+            workload.seed(intOption("accounts", 100), intOption("messages", 10_000));
+
+            long warmupNanos = TimeUnit.SECONDS.toNanos(intOption("warmup", 5));
+            long startNanos = System.nanoTime();
+            long measureStartNanos = startNanos + warmupNanos;
+            long endNanos = measureStartNanos + durationNanos;
+            workload.setMeasurementWindow(measureStartNanos, endNanos);
+
+            String mode = options.getOrDefault("mode", "closed");
+            if (mode.equals("open")) {
+                int rate = intOption("rate", 1000);
+                description = "open loop, " + rate + " req/s";
+                runOpenLoop(workload, rate, intOption("max-in-flight", 10_000), startNanos, endNanos);
+            } else if (mode.equals("closed")) {
+                int users = intOption("users", 100);
+                int pacingMillis = intOption("pacing-ms", 0);
+                description = "closed loop, " + users + " users"
+                        + (pacingMillis > 0 ? ", pacing " + pacingMillis + " ms" : ", back to back (uncorrected)");
+                runClosedLoop(workload, users, TimeUnit.MILLISECONDS.toNanos(pacingMillis), startNanos, endNanos);
+            } else {
+                throw new IllegalArgumentException("mode must be open or closed");
+            }
+        } finally {
+            app.stop();
+        }
+        if (threadMode.equals("virtual") && !VirtualThreads.areSupported()) {
+            threadMode += " (unsupported by this JVM, ran on platform)";
+        }
+        printReport(threadMode + " threads, " + description, workload.getStats(), durationNanos);
+    }
+
+    /**
+     * Starts requests at a fixed rate from a single scheduling thread. When --max-in-flight requests are outstanding
+     * the scheduler waits; the requests it holds back keep their intended start time, so the wait is counted.
+     */
+    private void runOpenLoop(Workload workload, int rate, int maxInFlight, long startNanos, long endNanos)
+            throws InterruptedException {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        double intervalNanos = 1_000_000_000.0 / rate;
+        for (long i = 0; ; i++) {
+            long intendedNanos = startNanos + (long) (i * intervalNanos);
+            if (intendedNanos >= endNanos) {
+                break;
+            }
+            long delay = intendedNanos - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            inFlight.acquire();
+            workload.issue(intendedNanos).whenComplete((ignored, failure) -> inFlight.release());
+        }
+        if (!inFlight.tryAcquire(maxInFlight, DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            System.err.println("Some requests were still outstanding after " + DRAIN_TIMEOUT_SECONDS + " s");
+        }
+    }
+
+    /**
+     * Runs the given number of clients, each chaining its next request on the completion of the previous one, so no
+     * thread is held per client. With pacing, each client's schedule advances by a fixed interval and a slow response
+     * makes the following requests late; without it, the next request is due as soon as the last one returns.
+     */
+    private void runClosedLoop(Workload workload, int users, long pacingNanos, long startNanos, long endNanos)
+            throws InterruptedException {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-pacer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CountDownLatch finished = new CountDownLatch(users);
+        try {
+            for (int i = 0; i < users; i++) {
+                // Spread the first requests over one pacing interval so the clients do not start in lock step
+                long firstNanos = pacingNanos > 0 ? startNanos + pacingNanos * i / users : startNanos;
+                new ClosedLoopUser(workload, scheduler, pacingNanos, endNanos, finished).next(firstNanos);
+            }
+            long remainingNanos = endNanos - System.nanoTime() + TimeUnit.SECONDS.toNanos(DRAIN_TIMEOUT_SECONDS);
+            if (!finished.await(remainingNanos, TimeUnit.NANOSECONDS)) {
+                System.err.println("Some clients were still waiting for a response after the run ended");
+            }
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * One closed-loop client.
+     */
+    private static class ClosedLoopUser {
+        private final Workload workload;
+        private final ScheduledExecutorService scheduler;
+        private final long pacingNanos;
+        private final long endNanos;
+        private final CountDownLatch finished;
+
+        ClosedLoopUser(Workload workload, ScheduledExecutorService scheduler, long pacingNanos, long endNanos,
+                CountDownLatch finished) {
+            this.workload = workload;
+            this.scheduler = scheduler;
+            this.pacingNanos = pacingNanos;
+            this.endNanos = endNanos;
+            this.finished = finished;
+        }
+
+        void next(long intendedNanos) {
+            if (intendedNanos >= endNanos) {
+                finished.countDown();
+                return;
+            }
+            long delay = intendedNanos - System.nanoTime();
+            if (delay > 0) {
+                scheduler.schedule(() -> send(intendedNanos), delay, TimeUnit.NANOSECONDS);
+            } else {
+                send(intendedNanos);
+            }
+        }
+
+        private void send(long intendedNanos) {
+            // Back to back, the request is due when it is sent; the schedule is only meaningful with pacing
+            long scheduledNanos = pacingNanos > 0 ? intendedNanos : System.nanoTime();
+            workload.issue(scheduledNanos).whenComplete((ignored, failure) ->
+                    next(pacingNanos > 0 ? intendedNanos + pacingNanos : System.nanoTime()));
+        }
+    }
+
+    private static void printReport(String description, List<RouteStats> stats, long durationNanos) {
+        double seconds = durationNanos / 1e9;
+        System.out.println();
+        System.out.println("=== " + description + ", " + (long) seconds + " s measured ===");
+        System.out.println(String.format(Locale.ROOT, "%-38s %9s %9s %7s %9s %9s %9s %9s %11s",
+                "Route", "Requests", "Req/s", "Errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "svc p99 ms"));
+        long totalCount = 0;
+        long totalErrors = 0;
+        for (RouteStats route : stats) {
+            System.out.println(formatRow(route.getRoute(), route.getCount(), route.getErrors(), seconds,
+                    route.getResponseTimes(), route.getServiceTimes()));
+            totalCount += route.getCount();
+            totalErrors += route.getErrors();
+        }
+        System.out.println(String.format(Locale.ROOT, "%-38s %9d %9.1f %6.2f%%", "Total", totalCount,
+                totalCount / seconds, totalCount == 0 ? 0.0 : 100.0 * totalErrors / totalCount));
+        System.out.println("Latencies are response times from the scheduled start; svc p99 is from the actual send.");
+    }
+
+    private static String formatRow(String route, long count, long errors, double seconds,
+            LatencyHistogram responseTimes, LatencyHistogram serviceTimes) {
+        return String.format(Locale.ROOT, "%-38s %9d %9.1f %6.2f%% %9.2f %9.2f %9.2f %9.2f %11.2f",
+                route, count, count / seconds, count == 0 ? 0.0 : 100.0 * errors / count,
+                millis(responseTimes.getValueAtPercentile(50)),
+                millis(responseTimes.getValueAtPercentile(99)),
+                millis(responseTimes.getValueAtPercentile(99.9)),
+                millis(responseTimes.getMax()),
+                millis(serviceTimes.getValueAtPercentile(99)));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private int intOption(String name, int defaultValue) {
+        String value = options.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    /**
+     * Parses "route=weight,..." using the Route names in any case, or returns the default mix when no mix is given.
+     */
+    private static Map<Workload.Route, Integer> parseMix(String mix) {
+        Map<Workload.Route, Integer> weights = new EnumMap<>(Workload.Route.class);
+        if (mix == null) {
+            for (Workload.Route route : Workload.Route.values()) {
+                weights.put(route, route.getDefaultWeight());
+            }
+            return weights;
+        }
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected route=weight in --mix but got " + entry);
+            }
+            weights.put(Workload.Route.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)),
+                    Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,61 @@
+package LoadTest;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import Util.LatencyHistogram;
+
+/**
+ * The RouteStats class collects the results of one route during the measurement window.
+ *
+ * Two latencies are kept for every request: the response time, measured from the moment the request was supposed to
+ * be sent according to the schedule, and the service time, measured from the moment it was actually sent. When the
+ * server stalls, the generator falls behind its schedule; the response time still charges that delay to the requests
+ * that were held back, which is what corrects for coordinated omission. Without a schedule (closed loop with no
+ * pacing) both are the same.
+ */
+public class RouteStats {
+
+    private final String route;
+    private final LatencyHistogram responseTimes = new LatencyHistogram();
+    private final LatencyHistogram serviceTimes = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+
+    public RouteStats(String route) {
+        this.route = route;
+    }
+
+    /**
+     * Records one completed request.
+     * @param intendedStartNanos when the schedule said the request should be sent.
+     * @param actualStartNanos when it was sent.
+     * @param endNanos when the response (or the failure) arrived.
+     * @param error true for a failed request or a response other than 2xx.
+     */
+    public void record(long intendedStartNanos, long actualStartNanos, long endNanos, boolean error) {
+        responseTimes.record(endNanos - intendedStartNanos);
+        serviceTimes.record(endNanos - actualStartNanos);
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public LatencyHistogram getResponseTimes() {
+        return responseTimes;
+    }
+
+    public LatencyHistogram getServiceTimes() {
+        return serviceTimes;
+    }
+
+    public long getCount() {
+        return responseTimes.getCount();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+}
@@ -0,0 +1,257 @@
+package LoadTest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The Workload class knows how to seed the application over HTTP and how to issue a random request from the
+ * configured mix of the eight public endpoints.
+ *
+ * Requests only touch seeded rows that stay valid for the whole run: reads and updates use the seeded messages, and
+ * deletes remove messages created during the run by POST /messages, so no request fails because an earlier one
+ * deleted its row.
+ */
+public class Workload {
+
+    /**
+     * The eight public endpoints. Weights are the default share of each route in the request mix.
+     */
+    public enum Route {
+        REGISTER("POST /register", 4),
+        LOGIN("POST /login", 15),
+        CREATE_MESSAGE("POST /messages", 15),
+        GET_ALL_MESSAGES("GET /messages", 1),
+        GET_MESSAGE("GET /messages/{message_id}", 30),
+        DELETE_MESSAGE("DELETE /messages/{message_id}", 5),
+        UPDATE_MESSAGE("PATCH /messages/{message_id}", 10),
+        GET_ACCOUNT_MESSAGES("GET /accounts/{account_id}/messages", 20);
+
+        private final String label;
+        private final int defaultWeight;
+
+        Route(String label, int defaultWeight) {
+            this.label = label;
+            this.defaultWeight = defaultWeight;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public int getDefaultWeight() {
+            return defaultWeight;
+        }
+    }
+
+    private static final String PASSWORD = "password";
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final Route[] routes;
+    private final int[] cumulativeWeights;
+    private final Map<Route, RouteStats> stats = new EnumMap<>(Route.class);
+    private final ConcurrentLinkedQueue<Integer> createdMessageIds = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger registrations = new AtomicInteger();
+    private int[] accountIds;
+    private String[] usernames;
+    private int[] messageIds;
+    private volatile long measureStartNanos = Long.MAX_VALUE;
+    private volatile long measureEndNanos = Long.MAX_VALUE;
+
+    /**
+     * @param client the client used for every request.
+     * @param port the port the application listens on.
+     * @param mix the weight of each route; routes with a weight of zero are never requested.
+     */
+    public Workload(HttpClient client, int port, Map<Route, Integer> mix) {
+        this.client = client;
+        this.baseUrl = "http://localhost:" + port;
+        List<Route> weighted = new ArrayList<>();
+        List<Integer> cumulative = new ArrayList<>();
+        int total = 0;
+        for (Route route : Route.values()) {
+            int weight = mix.getOrDefault(route, 0);
+            if (weight > 0) {
+                total += weight;
+                weighted.add(route);
+                cumulative.add(total);
+                stats.put(route, new RouteStats(route.getLabel()));
+            }
+        }
+        if (weighted.isEmpty()) {
+            throw new IllegalArgumentException("The request mix must give at least one route a positive weight");
+        }
+        this.routes = weighted.toArray(new Route[0]);
+        this.cumulativeWeights = cumulative.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Registers accountCount accounts and posts messageCount messages spread evenly across them, through the same
+     * endpoints clients use.
+     */
+    public void seed(int accountCount, int messageCount) throws IOException, InterruptedException {
+        accountIds = new int[accountCount];
+        usernames = new String[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            usernames[i] = "load-user-" + i;
+            JsonNode account = objectMapper.readTree(send(post("/register",
+                    accountJson(usernames[i])), "Could not register " + usernames[i]));
+            accountIds[i] = account.get("account_id").asInt();
+        }
+
+        messageIds = new int[messageCount];
+        for (int start = 0; start < messageCount; start += SEED_BATCH_SIZE) {
+            StringBuilder batch = new StringBuilder("[");
+            int end = Math.min(messageCount, start + SEED_BATCH_SIZE);
+            for (int i = start; i < end; i++) {
+                if (i > start) {
+                    batch.append(',');
+                }
+                batch.append(messageJson(accountIds[i % accountCount], "seed message " + i));
+            }
+            batch.append(']');
+            JsonNode results = objectMapper.readTree(send(post("/messages/batch", batch.toString()),
+                    "Could not seed messages"));
+            for (JsonNode result : results) {
+                if (result.get("status").asInt() != 200) {
+                    throw new IllegalStateException("Could not seed messages: " + result);
+                }
+                messageIds[start + result.get("index").asInt()] = result.get("message").get("message_id").asInt();
+            }
+        }
+    }
+
+    /**
+     * Only requests scheduled to start inside [startNanos, endNanos) are recorded; the rest are warmup or cool-down.
+     */
+    public void setMeasurementWindow(long startNanos, long endNanos) {
+        this.measureStartNanos = startNanos;
+        this.measureEndNanos = endNanos;
+    }
+
+    /**
+     * Sends one request, picked at random from the mix.
+     * @param intendedStartNanos when the schedule wanted the request to start, used for the response time.
+     * @return a future that completes (never exceptionally) once the response has been recorded.
+     */
+    public CompletableFuture<Void> issue(long intendedStartNanos) {
+        Route route = pickRoute();
+        HttpRequest request = buildRequest(route);
+        long actualStartNanos = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, failure) -> {
+                    long endNanos = System.nanoTime();
+                    boolean error = failure != null || response.statusCode() / 100 != 2;
+                    if (!error && route == Route.CREATE_MESSAGE) {
+                        rememberCreatedMessage(response.body());
+                    }
+                    if (intendedStartNanos >= measureStartNanos && intendedStartNanos < measureEndNanos) {
+                        stats.get(route).record(intendedStartNanos, actualStartNanos, endNanos, error);
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * @return the statistics of every route in the mix, in declaration order.
+     */
+    public List<RouteStats> getStats() {
+        return new ArrayList<>(stats.values());
+    }
+
+    private Route pickRoute() {
+        int ticket = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (ticket < cumulativeWeights[i]) {
+                return routes[i];
+            }
+        }
+        return routes[routes.length - 1];
+    }
+
+    private HttpRequest buildRequest(Route route) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (route) {
+            case REGISTER:
+                return post("/register", accountJson("load-new-" + registrations.incrementAndGet()));
+            case LOGIN:
+                return post("/login", accountJson(usernames[random.nextInt(usernames.length)]));
+            case CREATE_MESSAGE:
+                return post("/messages", messageJson(accountIds[random.nextInt(accountIds.length)], "load message"));
+            case GET_ALL_MESSAGES:
+                return request("/messages").GET().build();
+            case GET_MESSAGE:
+                return request("/messages/" + randomMessageId()).GET().build();
+            case DELETE_MESSAGE:
+                // Falls back to an id that never exists, which is still a successful (empty) delete
+                Integer created = createdMessageIds.poll();
+                return request("/messages/" + (created != null ? created : Integer.MAX_VALUE)).DELETE().build();
+            case UPDATE_MESSAGE:
+                return request("/messages/" + randomMessageId())
+                        .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"message_text\":\"updated by load\"}"))
+                        .build();
+            case GET_ACCOUNT_MESSAGES:
+                return request("/accounts/" + accountIds[random.nextInt(accountIds.length)] + "/messages").GET()
+                        .build();
+            default:
+                throw new IllegalArgumentException("Unknown route " + route);
+        }
+    }
+
+    private int randomMessageId() {
+        return messageIds[ThreadLocalRandom.current().nextInt(messageIds.length)];
+    }
+
+    private void rememberCreatedMessage(String body) {
+        try {
+            createdMessageIds.add(objectMapper.readTree(body).get("message_id").asInt());
+        } catch (IOException e) {
+            // A response we cannot parse only means one fewer message to delete later
+        }
+    }
+
+    private String send(HttpRequest request, String failureMessage) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(failureMessage + ": HTTP " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return request(path).POST(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .timeout(REQUEST_TIMEOUT);
+    }
+
+    private static String accountJson(String username) {
+        return "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\"}";
+    }
+
+    private static String messageJson(int postedBy, String text) {
+        return "{\"posted_by\":" + postedBy + ",\"message_text\":\"" + text + "\",\"time_posted_epoch\":1669947792}";
+    }
+}
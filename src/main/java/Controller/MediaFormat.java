@@ -0,0 +1,117 @@
+package Controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.util.Locale;
+
+import Util.HttpCompression;
+
+/**
+ * The encodings the message and account endpoints speak. JSON is the default; service-to-service callers can ask for
+ * CBOR or Smile, binary encodings of the same data model, with the Accept and Content-Type headers.
+ *
+ * Each format has an ObjectMapper with the same settings as the one behind context.json(), so the field names and
+ * values are the same whichever encoding is used.
+ */
+public enum MediaFormat {
+
+    JSON("application/json", new JsonFactory()),
+    CBOR("application/cbor", new CBORFactory()),
+    SMILE("application/x-jackson-smile", new SmileFactory());
+
+    private final String contentType;
+    private final ObjectMapper mapper;
+
+    MediaFormat(String contentType, JsonFactory factory) {
+        // Streamed responses must neither close the servlet stream nor silently complete a truncated array
+        factory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        this.contentType = contentType;
+        this.mapper = new ObjectMapper(factory);
+    }
+
+    /**
+     * @return the media type of this format, without parameters.
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return the factory for streaming parsers and generators of this format.
+     */
+    public JsonFactory getFactory() {
+        return mapper.getFactory();
+    }
+
+    /**
+     * @return an ObjectMapper that reads and writes this format.
+     */
+    public ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    /**
+     * Derives the ETag of this format's representation from the ETag of the content. JSON keeps the tag as it is.
+     * @param etag a quoted strong ETag.
+     * @return the ETag of the representation in this format.
+     */
+    public String etag(String etag) {
+        if (this == JSON) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + "-" + name().toLowerCase(Locale.ROOT) + "\"";
+    }
+
+    /**
+     * Picks the format of a request body from its Content-Type. Anything that is not CBOR or Smile, including a
+     * missing header, is read as JSON, as before binary formats were supported.
+     * @param contentType the Content-Type header, or null.
+     * @return the format of the body.
+     */
+    public static MediaFormat ofContentType(String contentType) {
+        if (contentType == null) {
+            return JSON;
+        }
+        int end = contentType.indexOf(';');
+        String mediaType = (end < 0 ? contentType : contentType.substring(0, end)).trim();
+        for (MediaFormat format : values()) {
+            if (format.contentType.equalsIgnoreCase(mediaType)) {
+                return format;
+            }
+        }
+        return JSON;
+    }
+
+    /**
+     * Picks the format of a response from the Accept header: the supported media type with the highest q-value,
+     * preferring JSON on a tie. Wildcards, unsupported types and a missing header get JSON.
+     * @param accept the Accept header, or null.
+     * @return the format to respond with.
+     */
+    public static MediaFormat negotiate(String accept) {
+        if (accept == null) {
+            return JSON;
+        }
+        MediaFormat best = JSON;
+        double bestQuality = 0;
+        for (String entry : accept.split(",")) {
+            String[] parts = entry.split(";");
+            String mediaType = parts[0].trim();
+            for (MediaFormat format : values()) {
+                if (!format.contentType.equalsIgnoreCase(mediaType)) {
+                    continue;
+                }
+                double quality = HttpCompression.parseQuality(parts);
+                if (quality > bestQuality || (quality == bestQuality && format == JSON)) {
+                    best = format;
+                    bestQuality = quality;
+                }
+            }
+        }
+        return best;
+    }
+}
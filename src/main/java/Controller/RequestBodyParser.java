@@ -0,0 +1,224 @@
+package Controller;
+
+import Model.Account;
+import Model.Message;
+import Util.TextUtil;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The RequestBodyParser class reads the bodies of the account and single-message endpoints token by token, in any
+ * {@link MediaFormat}, instead of binding them to beans with reflection. Field presence, blank text and the message
+ * length limit are checked on Jackson's own character buffer as the tokens arrive, so a rejected body never becomes
+ * a String or a model object, and a valid one becomes exactly one.
+ *
+ * Unknown fields (e.g. an account_id or message_id sent by the client) are skipped. A body that is not a single
+ * JSON object, or has a required field missing or of the wrong type, is rejected like an invalid value.
+ *
+ * Array bodies are read one element at a time and rejected at the first element past their size limit, so an
+ * oversized array is never bound in full.
+ */
+public class RequestBodyParser {
+
+    public static final int MAX_MESSAGE_LENGTH = 255;
+
+    private RequestBodyParser() {
+    }
+
+    /**
+     * Parses the body of POST /register and POST /login: {"username": ..., "password": ...}.
+     * @param body the request body.
+     * @param format the encoding of the body.
+     * @return the account, or null if the username is missing or blank or the password is missing.
+     */
+    public static Account parseAccount(InputStream body, MediaFormat format) {
+        String username = null;
+        String password = null;
+        try (JsonParser parser = format.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName(); // Field names are canonicalized, not allocated per request
+                JsonToken value = parser.nextToken();
+                if (field.equals("username")) {
+                    if (value != JsonToken.VALUE_STRING || isBlank(parser)) {
+                        return null;
+                    }
+                    username = parser.getText();
+                } else if (field.equals("password")) {
+                    if (value != JsonToken.VALUE_STRING) {
+                        return null;
+                    }
+                    password = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (token != JsonToken.END_OBJECT || parser.nextToken() != null) {
+                return null;
+            }
+        } catch (IOException e) {
+            return null; // Malformed JSON, a number out of range, or the client went away
+        }
+        return username == null || password == null ? null : new Account(username, password);
+    }
+
+    /**
+     * Parses the body of POST /messages: {"posted_by": ..., "message_text": ..., "time_posted_epoch": ...}.
+     * time_posted_epoch defaults to 0, as with the bean binding.
+     * @param body the request body.
+     * @param format the encoding of the body.
+     * @return the message, or null if posted_by is missing or the text is missing, blank or too long.
+     */
+    public static Message parseMessage(InputStream body, MediaFormat format) {
+        boolean hasPostedBy = false;
+        int postedBy = 0;
+        String messageText = null;
+        long timePostedEpoch = 0;
+        try (JsonParser parser = format.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("posted_by")) {
+                    if (value != JsonToken.VALUE_NUMBER_INT) {
+                        return null;
+                    }
+                    postedBy = parser.getIntValue();
+                    hasPostedBy = true;
+                } else if (field.equals("message_text")) {
+                    if (!isValidMessageText(parser, value)) {
+                        return null;
+                    }
+                    messageText = parser.getText();
+                } else if (field.equals("time_posted_epoch")) {
+                    if (value != JsonToken.VALUE_NUMBER_INT) {
+                        return null;
+                    }
+                    timePostedEpoch = parser.getLongValue();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (token != JsonToken.END_OBJECT || parser.nextToken() != null) {
+                return null;
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return !hasPostedBy || messageText == null ? null : new Message(postedBy, messageText, timePostedEpoch);
+    }
+
+    /**
+     * Parses the body of PATCH /messages/{message_id}: {"message_text": ...}.
+     * @param body the request body.
+     * @param format the encoding of the body.
+     * @return the new text, or null if it is missing, blank or too long.
+     */
+    public static String parseMessageText(InputStream body, MediaFormat format) {
+        String messageText = null;
+        try (JsonParser parser = format.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("message_text")) {
+                    if (!isValidMessageText(parser, value)) {
+                        return null;
+                    }
+                    messageText = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (token != JsonToken.END_OBJECT || parser.nextToken() != null) {
+                return null;
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return messageText;
+    }
+
+    /**
+     * Parses the body of POST /messages/batch: an array of message objects. Each element is bound to a Message with
+     * databinding and left to the service to validate, so a null element or an invalid message is returned as is.
+     * @param body the request body.
+     * @param format the encoding of the body.
+     * @param maxCount the largest number of messages accepted.
+     * @return the messages, or null if the body is not an array of message objects or has more than maxCount.
+     */
+    public static List<Message> parseMessages(InputStream body, MediaFormat format, int maxCount) {
+        List<Message> messages = new ArrayList<>();
+        try (JsonParser parser = format.getMapper().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return null;
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null || messages.size() == maxCount) {
+                    return null; // Truncated, or one element too many
+                }
+                messages.add(token == JsonToken.VALUE_NULL ? null : parser.readValueAs(Message.class));
+            }
+            if (parser.nextToken() != null) {
+                return null;
+            }
+        } catch (IOException e) {
+            return null; // Malformed, or an element that is not a message object
+        }
+        return messages;
+    }
+
+    /**
+     * Parses the body of POST /messages/lookup: an array of message IDs, e.g. [3, 1, 2].
+     * @param body the request body.
+     * @param format the encoding of the body.
+     * @param maxCount the largest number of IDs accepted.
+     * @return the IDs in request order, or null if the body is not an array of integers or has more than maxCount.
+     */
+    public static List<Integer> parseMessageIds(InputStream body, MediaFormat format, int maxCount) {
+        List<Integer> messageIds = new ArrayList<>();
+        try (JsonParser parser = format.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return null;
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.VALUE_NUMBER_INT || messageIds.size() == maxCount) {
+                    return null; // Truncated, a null or non-integer ID, or one ID too many
+                }
+                messageIds.add(parser.getIntValue());
+            }
+            if (parser.nextToken() != null) {
+                return null;
+            }
+        } catch (IOException e) {
+            return null; // Malformed, or an ID out of int range
+        }
+        return messageIds;
+    }
+
+    private static boolean isValidMessageText(JsonParser parser, JsonToken value) throws IOException {
+        return value == JsonToken.VALUE_STRING && parser.getTextLength() <= MAX_MESSAGE_LENGTH && !isBlank(parser);
+    }
+
+    /**
+     * Checks the current string token on the parser's buffer, before it is turned into a String.
+     */
+    private static boolean isBlank(JsonParser parser) throws IOException {
+        return TextUtil.isBlank(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+}
@@ -1,13 +1,48 @@
 package Controller;
 
 import io.javalin.Javalin;
+import io.javalin.compression.CompressionStrategy;
+import io.javalin.compression.Gzip;
+import io.javalin.http.ContentType;
 import io.javalin.http.Context;
+import io.javalin.http.Handler;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.VirtualThreads;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import DAO.DAOFactory;
+import DAO.MessageRowHandler;
 
 import Model.Account; // Import Account model
 import Service.AccountService; // Import AccountService
 import Model.Message; // Import Message model
+import Model.MessageBatchResult;
 import Service.MessageService; // Import MessageService
+import Service.MessagePage;
+import Service.ServiceOverloadedException;
+import Service.WriteBehindQueue;
+import Util.ConnectionPool;
+import Util.ConnectionUtil;
+import Util.HttpCompression;
+import Util.JdbcExecutor;
+import Util.LruCache;
+import Util.PageCursor;
+import Util.PrometheusWriter;
+import Util.QueryMonitor;
+import Util.RequestMetrics;
+import Util.SchemaMigrator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List; // Import List
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 
 
@@ -18,15 +53,55 @@ import java.util.List; // Import List
  */
 public class SocialMediaController {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_LOOKUP_IDS = 1000;
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String REQUEST_START_ATTRIBUTE = "metrics.requestStartNanos";
+    /**
+     * Responses differ by the negotiated format and, through compression, by the accepted encodings.
+     */
+    private static final String VARY = "Accept, Accept-Encoding";
+    /**
+     * Responses smaller than this many bytes are sent uncompressed; gzip saves little on them and costs CPU.
+     */
+    private static final int COMPRESSION_MIN_SIZE = Integer.getInteger("http.compression.minSize", 1500);
+    private static final int COMPRESSION_LEVEL = Integer.getInteger("http.compression.level", 6);
+
     // Declaring Services
     private AccountService accountService; 
     private MessageService messageService; 
+    /**
+     * Runs the handlers when -Dserver.asyncHandlers=true, otherwise null and handlers run on the Jetty thread.
+     */
+    private JdbcExecutor jdbcExecutor;
+    /**
+     * Latency histograms per method, route and status, recorded by the before/after handlers and served at /metrics.
+     */
+    private final RequestMetrics requestMetrics = new RequestMetrics();
+    /**
+     * Paths of the registered endpoints, used as the route label of the request metrics.
+     */
+    private final Set<String> endpointPaths = ConcurrentHashMap.newKeySet();
+    /**
+     * Serialized (and, where the client accepts it, gzipped) bodies of the unpaged message lists, keyed by the ETag
+     * of the variant. Tags change with every write, and a body read while its tag changed is not stored, so entries
+     * are never stale, and the ones no client asks for any more age out of the LRU. Bounded by the
+     * cache.responses.maxBytes system property.
+     */
+    private final LruCache<String, ResponseBody> responseCache = new LruCache<>(
+            Long.getLong("cache.responses.maxBytes", 64L * 1024 * 1024),
+            body -> body.bytes.length,
+            0,
+            0);
 
     public SocialMediaController() {
 
     // Initialize services
         this.accountService = new AccountService(); 
-        this.messageService = new MessageService(); 
+        // Share the AccountService so new registrations are visible to the message write path's account index
+        this.messageService = new MessageService(DAOFactory.createMessageDAO(), accountService); 
     }
     /**
      * In order for the test cases to work, you will need to write the endpoints in the startAPI() method, as the test
@@ -34,37 +109,174 @@ public class SocialMediaController {
      * @return a Javalin app object which defines the behavior of the Javalin controller.
      */
     public Javalin startAPI() {
-        Javalin app = Javalin.create();
+        // Bring the schema up to date before serving any request
+        SchemaMigrator.migrate();
+        accountService.loadAccountIndex();
+        if (Boolean.getBoolean("server.asyncHandlers")) {
+            jdbcExecutor = new JdbcExecutor(
+                    Integer.getInteger("jdbc.executor.threads", ConnectionUtil.getMaxPoolSize()),
+                    Integer.getInteger("jdbc.executor.queueCapacity", 1000));
+        }
+
+        Javalin app = Javalin.create(config -> {
+            config.jetty.server(() -> new Server(createThreadPool()));
+            config.compression.custom(createCompressionStrategy());
+        });
+        // Write out queued messages while the server can still answer the callers waiting for them
+        app.events(event -> {
+            event.handlerAdded(handler -> endpointPaths.add(handler.getPath()));
+            event.serverStopping(messageService::close);
+            event.serverStopped(() -> {
+                if (jdbcExecutor != null) {
+                    jdbcExecutor.shutdown();
+                }
+            });
+        });
+        // A full write-behind queue means "try again later", not a client error
+        app.exception(ServiceOverloadedException.class, (e, ctx) -> {
+            ctx.status(503);
+            ctx.header("Retry-After", "1");
+        });
+        app.exception(RejectedExecutionException.class, (e, ctx) -> {
+            ctx.status(503); // JDBC executor queue is full
+            ctx.header("Retry-After", "1");
+        });
+        // Time every request, including the ones that end in an exception mapper or a 404
+        app.before(ctx -> ctx.attribute(REQUEST_START_ATTRIBUTE, System.nanoTime()));
+        app.after(ctx -> recordRequest(ctx));
         app.get("example-endpoint", this::exampleHandler);
 
+        // --- Prometheus metrics ---
+        app.get("/metrics", ctx -> metricsHandler(ctx));
+
         // --- Register New User ---
-        app.post("/register", ctx -> registerAccountHandler(ctx));
+        app.post("/register", jdbc(ctx -> registerAccountHandler(ctx)));
 
         // --- User Login ---
-        app.post("/login", ctx -> loginAccountHandler(ctx));
+        app.post("/login", jdbc(ctx -> loginAccountHandler(ctx)));
 
         // --- Create New Message ---
-        app.post("/messages", ctx -> createMessageHandler(ctx));
+        app.post("/messages", jdbc(ctx -> createMessageHandler(ctx)));
+
+        // --- Create New Messages in a batch ---
+        app.post("/messages/batch", jdbc(ctx -> createMessagesBatchHandler(ctx)));
+
+        // --- Retrieve several messages by a list of IDs (for lists too long for a query string) ---
+        app.post("/messages/lookup", jdbc(ctx -> lookupMessagesHandler(ctx)));
 
         // --- Retrieve All Messages ---
-        app.get("/messages", ctx -> getAllMessagesHandler(ctx));
+        app.get("/messages", jdbc(ctx -> getAllMessagesHandler(ctx)));
 
         // --- Retrieve a message by its ID ---
-        app.get("/messages/{message_id}", ctx -> getMessageByIdHandler(ctx));
+        app.get("/messages/{message_id}", jdbc(ctx -> getMessageByIdHandler(ctx)));
 
         // --- Delete a message by a message ID ---
-        app.delete("/messages/{message_id}", ctx -> deleteMessageHandler(ctx));
+        app.delete("/messages/{message_id}", jdbc(ctx -> deleteMessageHandler(ctx)));
 
         // --- Update a message by a message ID ---
-        app.patch("/messages/{message_id}", ctx -> updateMessageTextHandler(ctx));
+        app.patch("/messages/{message_id}", jdbc(ctx -> updateMessageTextHandler(ctx)));
 
         // --- Retrieve all messages by a particular user ---
-        app.get("/accounts/{account_id}/messages", ctx -> getMessagesByAccountIdHandler(ctx));
+        app.get("/accounts/{account_id}/messages", jdbc(ctx -> getMessagesByAccountIdHandler(ctx)));
 
 
         return app;
     }
 
+    /**
+     * Returns the handler tagged with its route for the statement timings, and, in async mode, run on the JDBC
+     * executor through ctx.future so the Jetty thread is released while the database work runs. The handler still
+     * writes the response itself; Javalin sends it once the future completes.
+     */
+    private Handler jdbc(Handler handler) {
+        Handler monitored = ctx -> {
+            // Statement timings and slow queries are reported per endpoint
+            QueryMonitor.setRoute(ctx.method().name() + " " + ctx.endpointHandlerPath());
+            try {
+                handler.handle(ctx);
+            } finally {
+                QueryMonitor.clearRoute();
+            }
+        };
+        if (jdbcExecutor == null) {
+            return monitored;
+        }
+        return ctx -> ctx.future(() -> jdbcExecutor.submit(() -> {
+            monitored.handle(ctx);
+            return null;
+        }));
+    }
+
+    /**
+     * Records the time since the before handler ran. Requests that matched no endpoint share the "unmatched" route,
+     * so scanning for random URLs cannot create an unbounded number of histograms.
+     */
+    private void recordRequest(Context context) {
+        Long startNanos = context.attribute(REQUEST_START_ATTRIBUTE);
+        if (startNanos == null) {
+            return;
+        }
+        String route = context.endpointHandlerPath();
+        requestMetrics.record(context.method().name(), endpointPaths.contains(route) ? route : "unmatched",
+                context.statusCode(), System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return the per-route latency histograms recorded so far.
+     */
+    public RequestMetrics getRequestMetrics() {
+        return requestMetrics;
+    }
+
+    /**
+     * @return the hit, miss and eviction counts of the cache of serialized list responses.
+     */
+    public LruCache.Stats getResponseCacheStats() {
+        return responseCache.getStats();
+    }
+
+    /**
+     * @return queue depth, wait times and counters of the JDBC executor, or null when handlers run synchronously.
+     */
+    public JdbcExecutor.Stats getJdbcExecutorStats() {
+        return jdbcExecutor == null ? null : jdbcExecutor.getStats();
+    }
+
+    /**
+     * Creates the Jetty thread pool. By default handlers run on a bounded pool of platform threads (server.maxThreads,
+     * 250 by default). With -Dserver.virtualThreads=true on a JVM that supports virtual threads, Jetty keeps its
+     * selectors on the platform pool but runs every request handler on its own virtual thread, so requests blocked
+     * on JDBC no longer use up the pool; the connection pool size then becomes the limit on concurrent queries.
+     * Javalin would otherwise pick virtual threads on its own whenever the JVM has them, which is why the pool is
+     * always set explicitly.
+     */
+    private static QueuedThreadPool createThreadPool() {
+        QueuedThreadPool threadPool = new QueuedThreadPool(
+                Integer.getInteger("server.maxThreads", 250),
+                Integer.getInteger("server.minThreads", 8),
+                60_000);
+        threadPool.setName("JettyServerThreadPool");
+        if (Boolean.getBoolean("server.virtualThreads")) {
+            if (VirtualThreads.areSupported()) {
+                threadPool.setUseVirtualThreads(true);
+            } else {
+                System.err.println("Virtual threads are not supported by this JVM, using platform threads");
+            }
+        }
+        return threadPool;
+    }
+
+    /**
+     * Creates Javalin's compression strategy, which negotiates gzip for every response of at least
+     * http.compression.minSize bytes (1500 by default) at deflate level http.compression.level (6 by default).
+     * Brotli is left out because it needs a native library.
+     */
+    private static CompressionStrategy createCompressionStrategy() {
+        CompressionStrategy strategy = new CompressionStrategy(null, new Gzip(COMPRESSION_LEVEL));
+        strategy.setMinSizeForCompression(COMPRESSION_MIN_SIZE);
+        return strategy;
+    }
+
     /**
      * This is an example handler for an example endpoint.
      * @param context The Javalin Context object manages information about both the HTTP request and response.
@@ -73,6 +285,79 @@ public class SocialMediaController {
         context.json("sample text");
     }
 
+    /**
+     * Handler for GET /metrics endpoint.
+     * Returns the request and JDBC statement latency histograms and the connection pool, cache, JDBC executor and
+     * write-behind statistics in the Prometheus text format.
+     * @param context The Javalin Context object.
+     */
+    private void metricsHandler(Context context) {
+        PrometheusWriter metrics = new PrometheusWriter();
+        requestMetrics.writeTo(metrics);
+        if (ConnectionUtil.getQueryMonitor() != null) {
+            ConnectionUtil.getQueryMonitor().writeTo(metrics);
+        }
+
+        ConnectionPool.Stats pool = ConnectionUtil.getPoolStats();
+        metrics.gauge("db_pool_connections_active", "Connections currently borrowed.", pool.getActive())
+                .gauge("db_pool_connections_idle", "Open connections waiting to be borrowed.", pool.getIdle())
+                .gauge("db_pool_connections_max", "Maximum number of open connections.", pool.getMaxSize())
+                .gauge("db_pool_waiting_threads", "Callers waiting for a connection.", pool.getWaiting())
+                .counter("db_pool_timeouts_total", "Acquires that timed out.", pool.getTimeoutCount())
+                .counter("db_pool_leaks_total", "Connections held longer than the leak threshold.", pool.getLeakCount())
+                .header("db_pool_acquire_seconds", "Time to borrow a connection.", "histogram")
+                .histogram("db_pool_acquire_seconds", pool.getAcquireTimes());
+
+        LruCache.Stats messageCache = messageService.getMessageCacheStats();
+        LruCache.Stats timelineCache = messageService.getTimelineCacheStats();
+        LruCache.Stats jsonCache = messageService.getJsonCache().getStats();
+        LruCache.Stats responseCache = this.responseCache.getStats();
+        metrics.header("cache_size", "Entries in the cache.", "gauge")
+                .sample("cache_size", messageCache.getSize(), "cache", "messages")
+                .sample("cache_size", timelineCache.getSize(), "cache", "timelines")
+                .sample("cache_size", jsonCache.getSize(), "cache", "json")
+                .sample("cache_size", responseCache.getSize(), "cache", "responses")
+                .header("cache_hits_total", "Cache lookups that found an entry.", "counter")
+                .sample("cache_hits_total", messageCache.getHitCount(), "cache", "messages")
+                .sample("cache_hits_total", timelineCache.getHitCount(), "cache", "timelines")
+                .sample("cache_hits_total", jsonCache.getHitCount(), "cache", "json")
+                .sample("cache_hits_total", responseCache.getHitCount(), "cache", "responses")
+                .header("cache_misses_total", "Cache lookups that found no entry.", "counter")
+                .sample("cache_misses_total", messageCache.getMissCount(), "cache", "messages")
+                .sample("cache_misses_total", timelineCache.getMissCount(), "cache", "timelines")
+                .sample("cache_misses_total", jsonCache.getMissCount(), "cache", "json")
+                .sample("cache_misses_total", responseCache.getMissCount(), "cache", "responses")
+                .header("cache_evictions_total", "Entries evicted to stay within the cache's maximum weight.", "counter")
+                .sample("cache_evictions_total", messageCache.getEvictionCount(), "cache", "messages")
+                .sample("cache_evictions_total", timelineCache.getEvictionCount(), "cache", "timelines")
+                .sample("cache_evictions_total", jsonCache.getEvictionCount(), "cache", "json")
+                .sample("cache_evictions_total", responseCache.getEvictionCount(), "cache", "responses");
+
+        if (jdbcExecutor != null) {
+            JdbcExecutor.Stats executor = jdbcExecutor.getStats();
+            metrics.gauge("jdbc_executor_active_threads", "Executor threads running a handler.", executor.getActive())
+                    .gauge("jdbc_executor_queue_depth", "Handlers waiting for an executor thread.",
+                            executor.getQueueDepth())
+                    .counter("jdbc_executor_rejected_total", "Handlers rejected because the queue was full.",
+                            executor.getRejectedCount())
+                    .header("jdbc_executor_queue_wait_seconds", "Time handlers spent queued.", "histogram")
+                    .histogram("jdbc_executor_queue_wait_seconds", executor.getWaitTimes());
+        }
+
+        WriteBehindQueue writeBehind = messageService.getWriteBehindQueue();
+        if (writeBehind != null) {
+            metrics.gauge("write_behind_queue_depth", "Messages waiting to be written.", writeBehind.getQueueDepth())
+                    .counter("write_behind_batches_total", "Batches written.", writeBehind.getBatchCount())
+                    .counter("write_behind_messages_total", "Messages written.", writeBehind.getMessageCount())
+                    .counter("write_behind_rejected_total", "Messages rejected because the queue was full.",
+                            writeBehind.getRejectedCount());
+        }
+
+        context.status(200);
+        context.contentType("text/plain; version=0.0.4; charset=utf-8");
+        context.result(metrics.toString());
+    }
+
 
 /**
      * Handler for POST /register endpoint.
@@ -81,13 +366,17 @@ public class SocialMediaController {
      */
     // THIS registerAccountHandler METHOD MUST BE DIRECTLY INSIDE THE SocialMediaController CLASS
     // (and not inside startAPI or any other method).
-    private void registerAccountHandler(Context context) {
-        Account newAccount = context.bodyAsClass(Account.class); // Parse JSON body into Account object
+    private void registerAccountHandler(Context context) throws IOException {
+        Account newAccount = RequestBodyParser.parseAccount(context.bodyInputStream(), requestFormat(context));
+        if (newAccount == null) {
+            context.status(400); // Malformed body, or missing or blank username
+            return;
+        }
         Account registeredAccount = accountService.registerAccount(newAccount);
 
         if (registeredAccount != null) {
             context.status(200); // Default, but explicit
-            context.json(registeredAccount); // Return the registered account with its ID
+            writeBody(context, registeredAccount); // Return the registered account with its ID
         } else {
             context.status(400); // Bad Request (client error)
         }
@@ -98,13 +387,17 @@ public class SocialMediaController {
      * Processes user login verification.
      * @param context The Javalin Context object.
      */
-    private void loginAccountHandler(Context context) {
-        Account loginAttempt = context.bodyAsClass(Account.class); // Parse JSON body into Account object
+    private void loginAccountHandler(Context context) throws IOException {
+        Account loginAttempt = RequestBodyParser.parseAccount(context.bodyInputStream(), requestFormat(context));
+        if (loginAttempt == null) {
+            context.status(401); // Unauthorized, like any other failed login
+            return;
+        }
         Account loggedInAccount = accountService.loginAccount(loginAttempt);
 
         if (loggedInAccount != null) {
             context.status(200); // OK
-            context.json(loggedInAccount); // Return the logged-in account
+            writeBody(context, loggedInAccount); // Return the logged-in account
         } else {
             context.status(401); // Unauthorized
         }
@@ -115,27 +408,96 @@ public class SocialMediaController {
      * Processes the creation of new messages.
      * @param context The Javalin Context object.
      */
-    private void createMessageHandler(Context context) {
-        Message newMessage = context.bodyAsClass(Message.class); // Parse JSON body into Message object
+    private void createMessageHandler(Context context) throws IOException {
+        Message newMessage = RequestBodyParser.parseMessage(context.bodyInputStream(), requestFormat(context));
+        if (newMessage == null) {
+            context.status(400); // Malformed body, missing posted_by, or blank or too long text
+            return;
+        }
         Message createdMessage = messageService.createMessage(newMessage);
 
         if (createdMessage != null) {
             context.status(200); // OK
-            context.json(createdMessage); // Return the created message with its ID
+            writeBody(context, createdMessage); // Return the created message with its ID
         } else {
             context.status(400); // Client error (invalid message, or posted_by user doesn't exist)
         }
     }
 
+    /**
+     * Handler for POST /messages/batch endpoint.
+     * Creates every message in a JSON array, validating each one separately.
+     * @param context The Javalin Context object.
+     */
+    private void createMessagesBatchHandler(Context context) throws IOException {
+        List<Message> newMessages = RequestBodyParser.parseMessages(context.bodyInputStream(), requestFormat(context),
+                MAX_BATCH_SIZE);
+        if (newMessages == null) {
+            context.status(400); // Client error (malformed body, or batch too large)
+            return;
+        }
+
+        List<MessageBatchResult> results = messageService.createMessages(newMessages);
+        context.status(200); // Per-item statuses are in the body
+        writeBody(context, results);
+    }
+
     /**
      * Handler for GET /messages endpoint.
      * Retrieves all messages.
      * @param context The Javalin Context object.
      */
-    private void getAllMessagesHandler(Context context) {
-        List<Message> messages = messageService.getAllMessages();
-        context.status(200); // Always 200 OK
-        context.json(messages); // Returns an empty list if no messages
+    private void getAllMessagesHandler(Context context) throws IOException {
+        String ids = context.queryParam("ids");
+        if (ids != null) {
+            List<Integer> messageIds = parseIds(ids);
+            if (messageIds == null) {
+                context.status(400); // Invalid or too many IDs
+                return;
+            }
+            context.status(200);
+            writeMessages(context, messageService.getMessagesByIds(messageIds));
+            return;
+        }
+        if (isStreamRequest(context)) {
+            streamMessages(context, messageService::streamAllMessages);
+            return;
+        }
+        if (isPageRequest(context)) {
+            PageRequest pageRequest = parsePageRequest(context);
+            if (pageRequest == null) {
+                context.status(400); // Invalid paging parameters
+                return;
+            }
+            MessagePage page = messageService.getMessagesPage(pageRequest.afterId, pageRequest.limit,
+                    pageRequest.ascending);
+            writePage(context, page, pageRequest.ascending);
+            return;
+        }
+
+        // Only the full list carries the table's ETag; pages, id lookups and streams are other representations
+        String etag = messageService.getMessagesETag();
+        if (notModified(context, etag)) {
+            return; // Nothing changed since the client's copy, so neither H2 nor the serializer is needed
+        }
+        // Always 200 OK; an empty list if no messages
+        sendCachedList(context, etag, messageService::getMessagesETag, () -> messageService.getAllMessages());
+    }
+
+    /**
+     * Handler for POST /messages/lookup endpoint.
+     * Retrieves several messages by ID. The body is a JSON array of message IDs, e.g. [3, 1, 2].
+     * @param context The Javalin Context object.
+     */
+    private void lookupMessagesHandler(Context context) throws IOException {
+        List<Integer> messageIds = RequestBodyParser.parseMessageIds(context.bodyInputStream(), requestFormat(context),
+                MAX_LOOKUP_IDS);
+        if (messageIds == null) {
+            context.status(400); // Client error (malformed body, a null or non-integer ID, or too many IDs)
+            return;
+        }
+        context.status(200);
+        writeMessages(context, messageService.getMessagesByIds(messageIds)); // In request order
     }
 
     /**
@@ -143,17 +505,23 @@ public class SocialMediaController {
      * Retrieves a message by its ID.
      * @param context The Javalin Context object.
      */
-    private void getMessageByIdHandler(Context context) {
+    private void getMessageByIdHandler(Context context) throws IOException {
         int messageId = Integer.parseInt(context.pathParam("message_id"));
         Message message = messageService.getMessageById(messageId);
 
         if (message != null) {
             context.status(200); // OK
-            context.json(message);
+            MediaFormat format = responseFormat(context);
+            if (format == MediaFormat.JSON) {
+                context.contentType(ContentType.APPLICATION_JSON);
+                context.result(messageService.getJsonCache().toJson(message));
+            } else {
+                writeBody(context, message);
+            }
         } else {
             // As per requirement, if message does not exist, status is 200, body is empty
             context.status(200);
-            context.json(""); // Represents an empty JSON response body
+            writeEmptyBody(context);
         }
     }
 
@@ -162,31 +530,15 @@ public class SocialMediaController {
      * Deletes a message identified by its ID.
      * @param context The Javalin Context object.
      */
-    private void deleteMessageHandler(Context context) {
+    private void deleteMessageHandler(Context context) throws IOException {
         int messageId = Integer.parseInt(context.pathParam("message_id"));
         Message deletedMessage = messageService.deleteMessage(messageId);
 
         context.status(200); // Always 200 OK as per requirement (idempotent DELETE)
         if (deletedMessage != null) {
-            context.json(deletedMessage); // Return the deleted message if it existed
+            writeBody(context, deletedMessage); // Return the deleted message if it existed
         } else {
-            context.json(""); // Return empty body if message did not exist
-        }
-    }
-
-    /**
-     * Helper class to parse the JSON body for PATCH /messages/{message_id}
-     * Assuming the body is like: `{"message_text": "new text"}`
-     */
-    private static class MessageUpdateBody {
-        public String message_text;
-
-        public String getMessage_text() {
-            return message_text;
-        }
-
-        public void setMessage_text(String message_text) {
-            this.message_text = message_text;
+            writeEmptyBody(context); // Return empty body if message did not exist
         }
     }
 
@@ -195,18 +547,19 @@ public class SocialMediaController {
      * Updates the text of an existing message.
      * @param context The Javalin Context object.
      */
-    private void updateMessageTextHandler(Context context) {
+    private void updateMessageTextHandler(Context context) throws IOException {
         int messageId = Integer.parseInt(context.pathParam("message_id"));
-        
-        // Parse the request body into our helper class
-        MessageUpdateBody updateBody = context.bodyAsClass(MessageUpdateBody.class);
-        String newText = updateBody.getMessage_text();
+        String newText = RequestBodyParser.parseMessageText(context.bodyInputStream(), requestFormat(context));
+        if (newText == null) {
+            context.status(400); // Malformed body, or blank or too long text
+            return;
+        }
 
         Message updatedMessage = messageService.updateMessage(messageId, newText);
 
         if (updatedMessage != null) {
             context.status(200); // OK
-            context.json(updatedMessage); // Return the full updated message
+            writeBody(context, updatedMessage); // Return the full updated message
         } else {
             context.status(400); // Client error (message not found, invalid text, etc.)
         }
@@ -217,12 +570,299 @@ public class SocialMediaController {
      * Retrieves all messages posted by a particular user.
      * @param context The Javalin Context object.
      */
-    private void getMessagesByAccountIdHandler(Context context) {
+    private void getMessagesByAccountIdHandler(Context context) throws IOException {
         int accountId = Integer.parseInt(context.pathParam("account_id"));
-        List<Message> messages = messageService.getMessagesByAccountId(accountId);
+        if (isStreamRequest(context)) {
+            streamMessages(context, handler -> messageService.streamMessagesByAccountId(accountId, handler));
+            return;
+        }
+        if (isPageRequest(context)) {
+            PageRequest pageRequest = parsePageRequest(context);
+            if (pageRequest == null) {
+                context.status(400); // Invalid paging parameters
+                return;
+            }
+            MessagePage page = messageService.getMessagesByAccountIdPage(accountId, pageRequest.afterId,
+                    pageRequest.limit, pageRequest.ascending);
+            writePage(context, page, pageRequest.ascending);
+            return;
+        }
 
-        context.status(200); // Always 200 OK
-        context.json(messages); // Returns an empty list if no messages or user doesn't exist (as per current service logic)
+        // Like for GET /messages, only the full list carries the ETag
+        String etag = messageService.getMessagesByAccountIdETag(accountId);
+        if (notModified(context, etag)) {
+            return;
+        }
+        // Always 200 OK; an empty list if no messages or user doesn't exist (as per current service logic)
+        sendCachedList(context, etag, () -> messageService.getMessagesByAccountIdETag(accountId),
+                () -> messageService.getMessagesByAccountId(accountId));
     }
-}
 
+    /**
+     * Sets the ETag of the list about to be sent and checks it against If-None-Match. The tag must be taken before
+     * the list is read.
+     * @return true if the client's copy is current and a 304 Not Modified was set instead of a body.
+     */
+    private boolean notModified(Context context, String etag) {
+        etag = responseFormat(context).etag(etag);
+        context.header("ETag", etag);
+        String ifNoneMatch = context.header("If-None-Match");
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String gzipETag = HttpCompression.gzipETag(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2); // If-None-Match uses the weak comparison
+            }
+            if (tag.equals("*") || tag.equals(etag) || tag.equals(gzipETag)) {
+                context.header("ETag", tag.equals(gzipETag) ? gzipETag : etag);
+                context.status(304);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A serialized list response, gzip-encoded if {@code gzipped}.
+     */
+    private static class ResponseBody {
+        final byte[] bytes;
+        final boolean gzipped;
+
+        ResponseBody(byte[] bytes, boolean gzipped) {
+            this.bytes = bytes;
+            this.gzipped = gzipped;
+        }
+    }
+
+    /**
+     * Sends a full message list from the response cache, so a repeat request for an unchanged list is neither
+     * serialized nor compressed again. The body is written to the servlet stream directly, past Javalin's own
+     * compression, which would otherwise gzip it a second time.
+     * @param etag the tag set by {@link #notModified}, taken before the list is read.
+     * @param currentETag reads the tag again once the list is serialized. If a write changed it in between, the body
+     *                    may be newer than {@code etag} and is sent without being cached under it.
+     * @param loader reads the list on a cache miss.
+     */
+    private void sendCachedList(Context context, String etag, Supplier<String> currentETag,
+            Supplier<List<Message>> loader) throws IOException {
+        MediaFormat format = responseFormat(context);
+        boolean acceptsGzip = HttpCompression.acceptsGzip(context.header("Accept-Encoding"));
+        String formatETag = format.etag(etag);
+        String variantETag = acceptsGzip ? HttpCompression.gzipETag(formatETag) : formatETag;
+        ResponseBody body = responseCache.get(variantETag, key -> {
+            byte[] encoded = encodeMessages(format, loader.get());
+            if (!etag.equals(currentETag.get())) {
+                responseCache.invalidate(key); // Keeps this load from being stored
+            }
+            if (acceptsGzip && encoded.length >= COMPRESSION_MIN_SIZE) {
+                return new ResponseBody(HttpCompression.gzip(encoded, COMPRESSION_LEVEL), true);
+            }
+            return new ResponseBody(encoded, false);
+        });
+
+        context.status(200);
+        context.contentType(format.getContentType());
+        if (body.gzipped) {
+            context.header("Content-Encoding", HttpCompression.GZIP);
+            context.header("ETag", variantETag); // A list too small to compress keeps the identity tag
+        }
+        context.res().setContentLength(body.bytes.length);
+        context.res().getOutputStream().write(body.bytes);
+    }
+
+    /**
+     * Paging parameters of a list request: after_id, limit and order, or an opaque cursor from a previous page.
+     */
+    private static class PageRequest {
+        Integer afterId;
+        int limit;
+        boolean ascending;
+    }
+
+    /**
+     * Clients that send none of the paging parameters keep getting the full, unpaged list.
+     * @return true if the request asks for a single page.
+     */
+    private boolean isPageRequest(Context context) {
+        return context.queryParam("cursor") != null || context.queryParam("after_id") != null
+                || context.queryParam("limit") != null || context.queryParam("order") != null;
+    }
+
+    /**
+     * Parses the paging query parameters. A cursor takes precedence over after_id and order.
+     * @return the paging parameters, or null if any of them is invalid.
+     */
+    private PageRequest parsePageRequest(Context context) {
+        PageRequest pageRequest = new PageRequest();
+        try {
+            String limit = context.queryParam("limit");
+            pageRequest.limit = limit == null ? DEFAULT_PAGE_SIZE : Integer.parseInt(limit);
+            if (pageRequest.limit < 1 || pageRequest.limit > MAX_PAGE_SIZE) {
+                return null;
+            }
+
+            String cursor = context.queryParam("cursor");
+            if (cursor != null) {
+                PageCursor decoded = PageCursor.decode(cursor);
+                if (decoded == null) {
+                    return null;
+                }
+                pageRequest.afterId = decoded.getAfterId();
+                pageRequest.ascending = decoded.isAscending();
+                return pageRequest;
+            }
+
+            String order = context.queryParam("order");
+            if (order == null || order.equalsIgnoreCase("asc")) {
+                pageRequest.ascending = true;
+            } else if (order.equalsIgnoreCase("desc")) {
+                pageRequest.ascending = false;
+            } else {
+                return null;
+            }
+
+            String afterId = context.queryParam("after_id");
+            pageRequest.afterId = afterId == null ? null : Integer.valueOf(afterId);
+            return pageRequest;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes one page of messages. The body stays a plain JSON array; the opaque cursor for the next page, if any, is
+     * returned in the X-Next-Cursor header.
+     */
+    private void writePage(Context context, MessagePage page, boolean ascending) {
+        if (page.hasNext()) {
+            context.header(NEXT_CURSOR_HEADER, new PageCursor(page.getNextAfterId(), ascending).encode());
+        }
+        context.status(200);
+        writeMessages(context, page.getMessages());
+    }
+
+    /**
+     * Writes a list of messages as a JSON array spliced together from their cached JSON, instead of serializing the
+     * Message objects again.
+     */
+    private void writeMessages(Context context, List<Message> messages) {
+        MediaFormat format = responseFormat(context);
+        context.contentType(format.getContentType());
+        context.result(encodeMessages(format, messages));
+    }
+
+    /**
+     * Encodes a list of messages; JSON is spliced from the cached JSON of each message.
+     */
+    private byte[] encodeMessages(MediaFormat format, List<Message> messages) {
+        if (format == MediaFormat.JSON) {
+            return messageService.getJsonCache().toJsonArray(messages);
+        }
+        try {
+            return format.getMapper().writeValueAsBytes(messages);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e); // A Message has only plain fields, so this cannot happen
+        }
+    }
+
+    /**
+     * Picks the response format from the Accept header, and tells caches that the response depends on it.
+     */
+    private MediaFormat responseFormat(Context context) {
+        context.header("Vary", VARY);
+        return MediaFormat.negotiate(context.header("Accept"));
+    }
+
+    /**
+     * @return the format of the request body, from its Content-Type.
+     */
+    private MediaFormat requestFormat(Context context) {
+        return MediaFormat.ofContentType(context.contentType());
+    }
+
+    /**
+     * Writes a response body in the format negotiated with the Accept header. JSON goes through context.json().
+     */
+    private void writeBody(Context context, Object body) throws IOException {
+        MediaFormat format = responseFormat(context);
+        if (format == MediaFormat.JSON) {
+            context.json(body);
+            return;
+        }
+        context.contentType(format.getContentType());
+        context.result(format.getMapper().writeValueAsBytes(body));
+    }
+
+    /**
+     * Writes an empty response body, labelled with the format negotiated with the Accept header like any other body.
+     */
+    private void writeEmptyBody(Context context) {
+        context.contentType(responseFormat(context).getContentType());
+        context.result("");
+    }
+
+    /**
+     * A full dump can be requested with stream=true. It is written row by row as it is read from the database.
+     * @return true if the request asks for a streamed response.
+     */
+    private boolean isStreamRequest(Context context) {
+        return "true".equalsIgnoreCase(context.queryParam("stream"));
+    }
+
+    /**
+     * A streaming read: the service pushes each row to the handler it is given.
+     */
+    private interface MessageStream {
+        boolean stream(MessageRowHandler handler) throws IOException;
+    }
+
+    /**
+     * Writes a JSON array straight to the response output stream, one message object per database row, so the
+     * response never exists in memory as a list or as a whole document.
+     */
+    private void streamMessages(Context context, MessageStream source) throws IOException {
+        MediaFormat format = responseFormat(context);
+        context.status(200);
+        context.contentType(format.getContentType());
+        try (JsonGenerator generator = format.getFactory().createGenerator(context.outputStream())) {
+            generator.writeStartArray();
+            boolean complete = source.stream((messageId, postedBy, messageText, timePostedEpoch) -> {
+                generator.writeStartObject();
+                generator.writeNumberField("message_id", messageId);
+                generator.writeNumberField("posted_by", postedBy);
+                generator.writeStringField("message_text", messageText);
+                generator.writeNumberField("time_posted_epoch", timePostedEpoch);
+                generator.writeEndObject();
+            });
+            if (!complete) {
+                // The status is already committed; leave the array unterminated so clients see a truncated body
+                return;
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Parses the ids query parameter of a multi-get, e.g. "3,1,2".
+     * @return the IDs in request order, or null if the list is empty, too long or not a list of integers.
+     */
+    private List<Integer> parseIds(String ids) {
+        String[] parts = ids.split(",");
+        if (parts.length > MAX_LOOKUP_IDS) {
+            return null;
+        }
+        List<Integer> messageIds = new ArrayList<>(parts.length);
+        try {
+            for (String part : parts) {
+                messageIds.add(Integer.valueOf(part.trim()));
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return messageIds;
+    }
+}
@@ -2,120 +2,51 @@
 package DAO;
 
 import Model.Account;
-import Util.ConnectionUtil;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Statement;
-
-
-public class AccountDAO {
+/**
+ * Data access for the account table. {@link DAOFactory} picks the implementation: {@link JdbcAccountDAO} by default,
+ * {@link R2dbcAccountDAO} with -Ddao.engine=r2dbc, or {@link MemoryAccountDAO} with -Ddao.engine=memory.
+ */
+public interface AccountDAO {
 
     /**
-     * Registers a new account by inserting it into the database.
+     * Registers a new account, unless the username is already taken.
      * @param account The account object to be inserted. The account_id will be populated upon successful insertion.
-     * @return The Account object with its generated ID if successful, null otherwise.
+     * @return The Account object with its generated ID if successful, null otherwise (e.g., the username is taken).
      */
-    public Account registerAccount(Account account) {
-        try (Connection connection = ConnectionUtil.getConnection()) {
-            String sql = "INSERT INTO account (username, password) VALUES (?, ?)";
-            PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            ps.setString(1, account.getUsername());
-            ps.setString(2, account.getPassword());
-            ps.executeUpdate();
-
-            ResultSet rs = ps.getGeneratedKeys();
-            if (rs.next()) {
-                account.setAccount_id(rs.getInt(1));
-            }
-            return account;
-
-        } catch (SQLException e) {
-            // Log the exception for debugging purposes
-            System.err.println("SQL Exception during account registration: " + e.getMessage());
-            return null; // Return null if there's a database error (e.g., duplicate username)
-        }
-    }
+    Account registerAccount(Account account);
 
     /**
      * Retrieves an account by its username.
      * @param username The username to search for.
      * @return The Account object if found, null otherwise.
      */
-    public Account getAccountByUsername(String username) {
-        try (Connection connection = ConnectionUtil.getConnection()) {
-            String sql = "SELECT * FROM account WHERE username = ?";
-            PreparedStatement ps = connection.prepareStatement(sql);
-            ps.setString(1, username);
-            ResultSet rs = ps.executeQuery();
-
-            if (rs.next()) {
-                return new Account(
-                        rs.getInt("account_id"),
-                        rs.getString("username"),
-                        rs.getString("password")
-                );
-            }
-            return null;
-        } catch (SQLException e) {
-            System.err.println("SQL Exception while getting account by username: " + e.getMessage());
-            return null;
-        }
-    }
+    Account getAccountByUsername(String username);
 
-/**
+    /**
      * Retrieves an account by its username and password.
      * @param username The username for login.
      * @param password The password for login.
      * @return The Account object if credentials match, null otherwise.
      */
-    public Account getAccountByUsernameAndPassword(String username, String password) {
-        try (Connection connection = ConnectionUtil.getConnection()) {
-            String sql = "SELECT * FROM account WHERE username = ? AND password = ?";
-            PreparedStatement ps = connection.prepareStatement(sql);
-            ps.setString(1, username);
-            ps.setString(2, password);
-            ResultSet rs = ps.executeQuery();
-
-            if (rs.next()) {
-                return new Account(
-                        rs.getInt("account_id"),
-                        rs.getString("username"),
-                        rs.getString("password")
-                );
-            }
-            return null; 
-        } catch (SQLException e) {
-            System.err.println("SQL Exception while getting account by username and password: " + e.getMessage());
-            return null;
-        }
-    }
+    Account getAccountByUsernameAndPassword(String username, String password);
 
     /**
-     * Retrieves an account by its ID to verify if a user exists.
+     * Retrieves an account by its ID.
      * @param accountId The ID of the account.
      * @return The Account object if found, null otherwise.
      */
-    public Account getAccountById(int accountId) {
-        try (Connection connection = ConnectionUtil.getConnection()) {
-            String sql = "SELECT * FROM account WHERE account_id = ?";
-            PreparedStatement ps = connection.prepareStatement(sql);
-            ps.setInt(1, accountId);
-            ResultSet rs = ps.executeQuery();
+    Account getAccountById(int accountId);
 
-            if (rs.next()) {
-                return new Account(
-                        rs.getInt("account_id"),
-                        rs.getString("username"),
-                        rs.getString("password")
-                );
-            }
-            return null;
-        } catch (SQLException e) {
-            System.err.println("SQL Exception while getting account by ID: " + e.getMessage());
-            return null;
-        }
-    }
-}
\ No newline at end of file
+    /**
+     * Checks whether an account exists, using an in-memory index of account IDs.
+     * @param accountId The ID of the account.
+     * @return true if the account exists, false otherwise.
+     */
+    boolean accountExists(int accountId);
+
+    /**
+     * Loads the in-memory account ID index if it has not been loaded yet.
+     */
+    void loadAccountIds();
+}
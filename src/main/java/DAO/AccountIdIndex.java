@@ -0,0 +1,60 @@
+package DAO;
+
+import Util.ConcurrentBitSet;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+
+/**
+ * In-memory index of every existing account_id, shared by the AccountDAO implementations so author checks on the
+ * message write path never hit the database. It is loaded from the account table once and kept current by
+ * registerAccount().
+ */
+class AccountIdIndex {
+
+    /**
+     * Reads every account_id from the database.
+     */
+    interface Loader {
+        /**
+         * @param sink receives each account_id.
+         * @return true if every id was read, false if a database error stopped the load.
+         */
+        boolean loadInto(IntConsumer sink);
+    }
+
+    private final ConcurrentBitSet accountIds = new ConcurrentBitSet();
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile boolean loaded;
+
+    /**
+     * Checks the index, loading it first if that has not happened yet.
+     */
+    boolean contains(int accountId, Loader loader) {
+        if (!loaded) {
+            load(loader);
+        }
+        return accountIds.contains(accountId);
+    }
+
+    /**
+     * Loads the index unless it already is. A failed load leaves the index unloaded so the next check tries again.
+     */
+    void load(Loader loader) {
+        loadLock.lock();
+        try {
+            if (!loaded && loader.loadInto(accountIds::add)) {
+                loaded = true;
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Records a newly registered account.
+     */
+    void add(int accountId) {
+        accountIds.add(accountId);
+    }
+}
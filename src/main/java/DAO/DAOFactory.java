@@ -0,0 +1,93 @@
+package DAO;
+
+import Util.UnitOfWork;
+
+import java.util.function.Supplier;
+
+/**
+ * The DAOFactory class creates the DAOs for the data-access engine selected with the dao.engine system property:
+ * "jdbc" (the default) for blocking JDBC through the connection pool, "r2dbc" for the reactive H2 driver, or "memory"
+ * for a {@link MemoryStore} seeded from the database once and kept in memory from then on.
+ */
+public class DAOFactory {
+
+    private static final String ENGINE = System.getProperty("dao.engine", "jdbc");
+
+    private static MemoryStore memoryStore;
+
+    /**
+     * @return a new AccountDAO for the configured engine.
+     */
+    public static AccountDAO createAccountDAO() {
+        switch (ENGINE) {
+            case "jdbc":
+                return new JdbcAccountDAO();
+            case "r2dbc":
+                return new R2dbcAccountDAO();
+            case "memory":
+                return new MemoryAccountDAO(memoryStore());
+            default:
+                throw unknownEngine();
+        }
+    }
+
+    /**
+     * @return a new MessageDAO for the configured engine.
+     */
+    public static MessageDAO createMessageDAO() {
+        switch (ENGINE) {
+            case "jdbc":
+                return new JdbcMessageDAO();
+            case "r2dbc":
+                return new R2dbcMessageDAO();
+            case "memory":
+                return new MemoryMessageDAO(memoryStore());
+            default:
+                throw unknownEngine();
+        }
+    }
+
+    /**
+     * Runs DAO writes that must be atomic inside a {@link UnitOfWork}. Only the JDBC engine needs one: the memory
+     * engine makes its writes atomic itself, and every R2DBC write is a single statement or, for a batch, one R2DBC
+     * transaction, so for them the work runs directly and no pooled JDBC connection is borrowed. Callers therefore
+     * pass a single DAO write, which is atomic on every engine.
+     * @param work the DAO calls to run.
+     * @return whatever the work returned.
+     * @throws Util.UnitOfWorkException if the transaction could not be committed.
+     */
+    public static <T> T inUnitOfWork(Supplier<T> work) {
+        return ENGINE.equals("jdbc") ? UnitOfWork.execute(work) : work.get();
+    }
+
+    /**
+     * @return the configured engine name.
+     */
+    public static String getEngine() {
+        return ENGINE;
+    }
+
+    /**
+     * Empties the memory engine's shared store, so it is seeded again from the database on its next use. Tests call
+     * this when they reset the database under it. Does nothing if no memory DAO has been created.
+     */
+    public static synchronized void resetMemoryStore() {
+        if (memoryStore != null) {
+            memoryStore.reset();
+        }
+    }
+
+    /**
+     * Every DAO of the memory engine shares one store, so accounts and messages stay consistent across services.
+     */
+    private static synchronized MemoryStore memoryStore() {
+        if (memoryStore == null) {
+            memoryStore = new MemoryStore();
+        }
+        return memoryStore;
+    }
+
+    private static IllegalArgumentException unknownEngine() {
+        return new IllegalArgumentException("Unknown dao.engine: " + ENGINE);
+    }
+}
@@ -0,0 +1,176 @@
+// DAO/JdbcAccountDAO.java
+package DAO;
+
+import Model.Account;
+import Util.ConnectionUtil;
+import Util.UnitOfWork;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.IntConsumer;
+
+
+/**
+ * AccountDAO implementation using blocking JDBC connections from {@link ConnectionUtil}. Inside a UnitOfWork a
+ * failed statement marks the unit of work for rollback, like in {@link JdbcMessageDAO}.
+ */
+public class JdbcAccountDAO implements AccountDAO {
+
+    private final AccountIdIndex accountIds = new AccountIdIndex();
+
+    /**
+     * Registers a new account by inserting it into the database. The username uniqueness check and the insert are
+     * done in a single statement, so no separate lookup round trip is needed.
+     * @param account The account object to be inserted. The account_id will be populated upon successful insertion.
+     * @return The Account object with its generated ID if successful, null otherwise (e.g., the username is taken).
+     */
+    public Account registerAccount(Account account) {
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            String sql = "INSERT INTO account (username, password) SELECT ?, ? "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM account WHERE username = ?)";
+            PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            ps.setString(1, account.getUsername());
+            ps.setString(2, account.getPassword());
+            ps.setString(3, account.getUsername());
+            if (ps.executeUpdate() == 0) {
+                return null; // Username already taken
+            }
+
+            ResultSet rs = ps.getGeneratedKeys();
+            if (rs.next()) {
+                int accountId = rs.getInt(1);
+                account.setAccount_id(accountId);
+                // Only index the account once it is committed; create message validates authors against the index
+                UnitOfWork.afterCommit(() -> accountIds.add(accountId));
+            }
+            return account;
+
+        } catch (SQLException e) {
+            // Log the exception for debugging purposes
+            System.err.println("SQL Exception during account registration: " + e.getMessage());
+            UnitOfWork.setRollbackOnly();
+            return null; // Return null if there's a database error (e.g., duplicate username)
+        }
+    }
+
+    /**
+     * Retrieves an account by its username.
+     * @param username The username to search for.
+     * @return The Account object if found, null otherwise.
+     */
+    public Account getAccountByUsername(String username) {
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            String sql = "SELECT * FROM account WHERE username = ?";
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setString(1, username);
+            ResultSet rs = ps.executeQuery();
+
+            if (rs.next()) {
+                return new Account(
+                        rs.getInt("account_id"),
+                        rs.getString("username"),
+                        rs.getString("password")
+                );
+            }
+            return null;
+        } catch (SQLException e) {
+            System.err.println("SQL Exception while getting account by username: " + e.getMessage());
+            UnitOfWork.setRollbackOnly();
+            return null;
+        }
+    }
+
+/**
+     * Retrieves an account by its username and password.
+     * @param username The username for login.
+     * @param password The password for login.
+     * @return The Account object if credentials match, null otherwise.
+     */
+    public Account getAccountByUsernameAndPassword(String username, String password) {
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            String sql = "SELECT * FROM account WHERE username = ? AND password = ?";
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setString(1, username);
+            ps.setString(2, password);
+            ResultSet rs = ps.executeQuery();
+
+            if (rs.next()) {
+                return new Account(
+                        rs.getInt("account_id"),
+                        rs.getString("username"),
+                        rs.getString("password")
+                );
+            }
+            return null; 
+        } catch (SQLException e) {
+            System.err.println("SQL Exception while getting account by username and password: " + e.getMessage());
+            UnitOfWork.setRollbackOnly();
+            return null;
+        }
+    }
+
+    /**
+     * Retrieves an account by its ID to verify if a user exists.
+     * @param accountId The ID of the account.
+     * @return The Account object if found, null otherwise.
+     */
+    public Account getAccountById(int accountId) {
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            String sql = "SELECT * FROM account WHERE account_id = ?";
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setInt(1, accountId);
+            ResultSet rs = ps.executeQuery();
+
+            if (rs.next()) {
+                return new Account(
+                        rs.getInt("account_id"),
+                        rs.getString("username"),
+                        rs.getString("password")
+                );
+            }
+            return null;
+        } catch (SQLException e) {
+            System.err.println("SQL Exception while getting account by ID: " + e.getMessage());
+            UnitOfWork.setRollbackOnly();
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether an account exists using the in-memory account_id index. Only the first call (or
+     * loadAccountIds()) reads the database; every later check is a bit lookup.
+     * @param accountId The ID of the account.
+     * @return true if the account exists, false otherwise.
+     */
+    public boolean accountExists(int accountId) {
+        return accountIds.contains(accountId, this::selectAccountIds);
+    }
+
+    /**
+     * Loads every account_id from the database into the in-memory index. Called at startup so the first request does
+     * not pay for it; later calls do nothing.
+     */
+    public void loadAccountIds() {
+        accountIds.load(this::selectAccountIds);
+    }
+
+    private boolean selectAccountIds(IntConsumer sink) {
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            String sql = "SELECT account_id FROM account";
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ResultSet rs = ps.executeQuery();
+
+            while (rs.next()) {
+                sink.accept(rs.getInt(1));
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("SQL Exception while loading account IDs: " + e.getMessage());
+            UnitOfWork.setRollbackOnly();
+            return false;
+        }
+    }
+}
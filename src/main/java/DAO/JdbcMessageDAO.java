@@ -0,0 +1,408 @@
+package DAO;
+
+import Model.Message;
+import Util.ConnectionUtil;
+import Util.UnitOfWork;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList; 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;     
+import java.util.Map;
+
+/**
+ * MessageDAO implementation using blocking JDBC connections from {@link ConnectionUtil}. Inside a UnitOfWork every
+ * call shares the unit of work's connection and transaction, and a failed statement marks it for rollback, so the
+ * other writes of the unit are not committed without it.
+ */
+public class JdbcMessageDAO implements MessageDAO {
+
+    /**
+     * Number of rows the driver is asked to fetch at a time when streaming a result set.
+     */
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    /**
+     * Reads every message posted by an account, in message_id order. Public, like the page queries below, so
+     * SchemaMigrationTest can EXPLAIN the exact SQL this class runs.
+     */
+    public static final String SELECT_BY_ACCOUNT_SQL = "SELECT * FROM message WHERE posted_by = ? ORDER BY message_id";
+
+    /**
+     * Reads the page of messages after a message_id, in ascending order.
+     */
+    public static final String SELECT_PAGE_ASC_SQL =
+            "SELECT * FROM message WHERE message_id > ? ORDER BY message_id ASC LIMIT ?";
+
+    /**
+     * Reads the page of messages before a message_id, in descending order.
+     */
+    public static final String SELECT_PAGE_DESC_SQL =
+            "SELECT * FROM message WHERE message_id < ? ORDER BY message_id DESC LIMIT ?";
+
+    /**
+     * Reads the page of an account's messages after a message_id, in ascending order.
+     */
+    public static final String SELECT_BY_ACCOUNT_PAGE_ASC_SQL =
+            "SELECT * FROM message WHERE posted_by = ? AND message_id > ? ORDER BY message_id ASC LIMIT ?";
+
+    /**
+     * Reads the page of an account's messages before a message_id, in descending order.
+     */
+    public static final String SELECT_BY_ACCOUNT_PAGE_DESC_SQL =
+            "SELECT * FROM message WHERE posted_by = ? AND message_id < ? ORDER BY message_id DESC LIMIT ?";
+
+    /**
+     * Creates a new message by inserting it into the database. The insert only happens if posted_by refers to an
+     * existing account, so the author check and the write are a single round trip.
+     * @param message The message object to be inserted. The message_id will be populated upon successful insertion.
+     * @return The Message object with its generated ID if successful, null otherwise (e.g., the author does not exist).
+     */
+    public Message createMessage(Message message) {
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            String sql = "INSERT INTO message (posted_by, message_text, time_posted_epoch) "
+                    + "SELECT account_id, ?, ? FROM account WHERE account_id = ?";
+            PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            ps.setString(1, message.getMessage_text());
+            ps.setLong(2, message.getTime_posted_epoch());
+            ps.setInt(3, message.getPosted_by());
+            if (ps.executeUpdate() == 0) {
+                return null; // posted_by does not refer to an existing account
+            }
+
+            ResultSet rs = ps.getGeneratedKeys();
+            if (rs.next()) {
+                message.setMessage_id(rs.getInt(1));
+            }
+            return message;
+
+        } catch (SQLException e) {
+            System.err.println("SQL Exception during message creation: " + e.getMessage());
+            UnitOfWork.setRollbackOnly();
+            return null;
+        }
+    }
+
+    /**
+     * Inserts several messages with one JDBC batch. The authors must already have been validated. Call this inside a
+     * UnitOfWork so the whole batch is committed or rolled back together; on failure the unit of work is marked for
+     * rollback.
+     * @param messages The messages to insert. Their message_id fields are populated upon successful insertion.
+     * @return The same messages with their generated IDs if every insert succeeded, null otherwise.
+     */
+    public List<Message> createMessages(List<Message> messages) {
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            String sql = "INSERT INTO message (posted_by, message_text, time_posted_epoch) VALUES (?, ?, ?)";
+            PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            for (Message message : messages) {
+                ps.setInt(1, message.getPosted_by());
+                ps.setString(2, message.getMessage_text());
+                ps.setLong(3, message.getTime_posted_epoch());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+
+            ResultSet rs = ps.getGeneratedKeys();
+            for (Message message : messages) {
+                if (!rs.next()) {
+                    UnitOfWork.setRollbackOnly();
+                    return null;
+                }
+                message.setMessage_id(rs.getInt(1));
+            }
+            return messages;
+
+        } catch (SQLException e) {
+            System.err.println("SQL Exception during batch message creation: " + e.getMessage());
+            UnitOfWork.setRollbackOnly();
+            return null;
+        }
+    }
+
+/**
+     * Retrieves all messages from the database.
+     * @return A list of all messages, or an empty list if none exist.
+     */
+    public List<Message> getAllMessages() {
+        List<Message> messages = new ArrayList<>();
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            String sql = "SELECT * FROM message";
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ResultSet rs = ps.executeQuery();
+
+            while (rs.next()) {
+                messages.add(new Message(
+                        rs.getInt("message_id"),
+                        rs.getInt("posted_by"),
+                        rs.getString("message_text"),
+                        rs.getLong("time_posted_epoch")
+                ));
+            }
+        } catch (SQLException e) {
+            System.err.println("SQL Exception while getting all messages: " + e.getMessage());
+            UnitOfWork.setRollbackOnly();
+        }
+        return messages;
+    }
+
+    /**
+     * Retrieves a message by its ID.
+     * @param messageId The ID of the message to retrieve.
+     * @return The Message if found, null otherwise.
+     */
+    public Message getMessageById(int messageId) {
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            String sql = "SELECT * FROM message WHERE message_id = ?";
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setInt(1, messageId);
+            ResultSet rs = ps.executeQuery();
+
+            if (rs.next()) {
+                return new Message(
+                        rs.getInt("message_id"),
+                        rs.getInt("posted_by"),
+                        rs.getString("message_text"),
+                        rs.getLong("time_posted_epoch")
+                );
+            }
+            return null; 
+        } catch (SQLException e) {
+            System.err.println("SQL Exception while getting message by ID: " + e.getMessage());
+            UnitOfWork.setRollbackOnly();
+            return null;
+        }
+    }
+
+    /**
+     * Retrieves several messages by ID with a single query.
+     * @param messageIds The IDs of the messages to retrieve.
+     * @return The messages that exist, keyed by message_id. IDs that do not exist are absent.
+     */
+    public Map<Integer, Message> getMessagesByIds(Collection<Integer> messageIds) {
+        Map<Integer, Message> messages = new HashMap<>();
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            String sql = "SELECT * FROM message WHERE message_id = ANY(?)";
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setArray(1, connection.createArrayOf("INTEGER", messageIds.toArray()));
+            ResultSet rs = ps.executeQuery();
+
+            while (rs.next()) {
+                Message message = mapMessage(rs);
+                messages.put(message.getMessage_id(), message);
+            }
+        } catch (SQLException e) {
+            System.err.println("SQL Exception while getting messages by IDs: " + e.getMessage());
+            UnitOfWork.setRollbackOnly();
+        }
+        return messages;
+    }
+
+    /**
+     * Deletes a message by its ID. The deleted row is read back from H2's OLD TABLE delta table in the same
+     * statement, so there is one round trip and no window between reading and deleting the row.
+     * @param messageId The ID of the message to delete.
+     * @return The Message object that was deleted if successful, null if the message didn't exist or deletion failed.
+     */
+    public Message deleteMessage(int messageId) {
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            String sql = "SELECT * FROM OLD TABLE (DELETE FROM message WHERE message_id = ?)";
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setInt(1, messageId);
+            ResultSet rs = ps.executeQuery();
+
+            if (rs.next()) {
+                return mapMessage(rs); // Return the message that was just deleted
+            }
+            return null; // Message didn't exist
+        } catch (SQLException e) {
+            System.err.println("SQL Exception during message deletion: " + e.getMessage());
+            UnitOfWork.setRollbackOnly();
+            return null;
+        }
+    }
+
+    /**
+     * Updates the text of an existing message. The updated row is read back from H2's FINAL TABLE delta table in
+     * the same statement, so no second SELECT is needed.
+     * @param messageId The ID of the message to update.
+     * @param newText The new text for the message.
+     * @return The updated Message object if successful, null otherwise.
+     */
+    public Message updateMessageText(int messageId, String newText) {
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            String sql = "SELECT * FROM FINAL TABLE (UPDATE message SET message_text = ? WHERE message_id = ?)";
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setString(1, newText);
+            ps.setInt(2, messageId);
+            ResultSet rs = ps.executeQuery();
+
+            if (rs.next()) {
+                return mapMessage(rs);
+            }
+            return null; // No message found with that ID
+        } catch (SQLException e) {
+            System.err.println("SQL Exception during message text update: " + e.getMessage());
+            UnitOfWork.setRollbackOnly();
+            return null;
+        }
+    }
+
+    /**
+     * Retrieves all messages posted by a specific account.
+     * @param accountId The ID of the account whose messages to retrieve.
+     * @return A list of messages posted by the user in message_id order, or an empty list if none exist.
+     */
+    public List<Message> getMessagesByAccountId(int accountId) {
+        List<Message> messages = new ArrayList<>();
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            String sql = SELECT_BY_ACCOUNT_SQL;
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setInt(1, accountId);
+            ResultSet rs = ps.executeQuery();
+
+            while (rs.next()) {
+                messages.add(new Message(
+                        rs.getInt("message_id"),
+                        rs.getInt("posted_by"),
+                        rs.getString("message_text"),
+                        rs.getLong("time_posted_epoch")
+                ));
+            }
+        } catch (SQLException e) {
+            System.err.println("SQL Exception while getting messages by account ID: " + e.getMessage());
+            UnitOfWork.setRollbackOnly();
+        }
+        return messages;
+    }
+
+    /**
+     * Retrieves one page of messages using keyset pagination: only messages whose ID comes after afterId in the
+     * requested order are read, through a range scan on the primary key.
+     * @param afterId The message_id the page starts after. Use 0 (ascending) or Integer.MAX_VALUE (descending) for
+     *                the first page.
+     * @param limit The maximum number of messages to return.
+     * @param ascending true to sort by ascending message_id, false for descending.
+     * @return A list of at most limit messages, or an empty list if none remain.
+     */
+    public List<Message> getMessagesPage(int afterId, int limit, boolean ascending) {
+        String sql = ascending ? SELECT_PAGE_ASC_SQL : SELECT_PAGE_DESC_SQL;
+        List<Message> messages = new ArrayList<>();
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setInt(1, afterId);
+            ps.setInt(2, limit);
+            ResultSet rs = ps.executeQuery();
+
+            while (rs.next()) {
+                messages.add(mapMessage(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("SQL Exception while getting a page of messages: " + e.getMessage());
+            UnitOfWork.setRollbackOnly();
+        }
+        return messages;
+    }
+
+    /**
+     * Retrieves one page of the messages posted by a specific account using keyset pagination.
+     * @param accountId The ID of the account whose messages to retrieve.
+     * @param afterId The message_id the page starts after. Use 0 (ascending) or Integer.MAX_VALUE (descending) for
+     *                the first page.
+     * @param limit The maximum number of messages to return.
+     * @param ascending true to sort by ascending message_id, false for descending.
+     * @return A list of at most limit messages, or an empty list if none remain.
+     */
+    public List<Message> getMessagesByAccountIdPage(int accountId, int afterId, int limit, boolean ascending) {
+        String sql = ascending ? SELECT_BY_ACCOUNT_PAGE_ASC_SQL : SELECT_BY_ACCOUNT_PAGE_DESC_SQL;
+        List<Message> messages = new ArrayList<>();
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setInt(1, accountId);
+            ps.setInt(2, afterId);
+            ps.setInt(3, limit);
+            ResultSet rs = ps.executeQuery();
+
+            while (rs.next()) {
+                messages.add(mapMessage(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("SQL Exception while getting a page of messages by account ID: " + e.getMessage());
+            UnitOfWork.setRollbackOnly();
+        }
+        return messages;
+    }
+
+    /**
+     * Streams every message to the handler as the rows are read, without collecting them in a list.
+     * @param handler Receives each row in message_id order.
+     * @return true if every row was streamed, false if a database error stopped the stream.
+     * @throws IOException if the handler failed to write a row.
+     */
+    public boolean streamAllMessages(MessageRowHandler handler) throws IOException {
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            String sql = "SELECT * FROM message ORDER BY message_id";
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            streamRows(ps.executeQuery(), handler);
+            return true;
+        } catch (SQLException e) {
+            System.err.println("SQL Exception while streaming all messages: " + e.getMessage());
+            UnitOfWork.setRollbackOnly();
+            return false;
+        }
+    }
+
+    /**
+     * Streams the messages posted by a specific account to the handler as the rows are read.
+     * @param accountId The ID of the account whose messages to stream.
+     * @param handler Receives each row in message_id order.
+     * @return true if every row was streamed, false if a database error stopped the stream.
+     * @throws IOException if the handler failed to write a row.
+     */
+    public boolean streamMessagesByAccountId(int accountId, MessageRowHandler handler) throws IOException {
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            String sql = SELECT_BY_ACCOUNT_SQL;
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            ps.setInt(1, accountId);
+            streamRows(ps.executeQuery(), handler);
+            return true;
+        } catch (SQLException e) {
+            System.err.println("SQL Exception while streaming messages by account ID: " + e.getMessage());
+            UnitOfWork.setRollbackOnly();
+            return false;
+        }
+    }
+
+    private void streamRows(ResultSet rs, MessageRowHandler handler) throws SQLException, IOException {
+        // Column indexes instead of labels avoid a name lookup per column per row
+        int idColumn = rs.findColumn("message_id");
+        int postedByColumn = rs.findColumn("posted_by");
+        int textColumn = rs.findColumn("message_text");
+        int epochColumn = rs.findColumn("time_posted_epoch");
+        while (rs.next()) {
+            handler.handleRow(rs.getInt(idColumn), rs.getInt(postedByColumn), rs.getString(textColumn),
+                    rs.getLong(epochColumn));
+        }
+    }
+
+    /**
+     * Builds a Message from the current row of a result set.
+     */
+    private Message mapMessage(ResultSet rs) throws SQLException {
+        return new Message(
+                rs.getInt("message_id"),
+                rs.getInt("posted_by"),
+                rs.getString("message_text"),
+                rs.getLong("time_posted_epoch")
+        );
+    }
+}
@@ -0,0 +1,78 @@
+package DAO;
+
+import Model.Account;
+
+/**
+ * AccountDAO implementation backed by a {@link MemoryStore} instead of the database.
+ */
+public class MemoryAccountDAO implements AccountDAO {
+
+    private final MemoryStore store;
+
+    /**
+     * @param store the store holding the accounts, shared with the MessageDAO of the same engine.
+     */
+    public MemoryAccountDAO(MemoryStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Registers a new account unless the username is taken. The check and the insert happen under one lock.
+     * @param account The account object to be inserted. The account_id will be populated upon successful insertion.
+     * @return The Account object with its generated ID if successful, null otherwise (e.g., the username is taken).
+     */
+    public Account registerAccount(Account account) {
+        Account registered = store.registerAccount(account.getUsername(), account.getPassword());
+        if (registered == null) {
+            return null;
+        }
+        account.setAccount_id(registered.getAccount_id());
+        return account;
+    }
+
+    /**
+     * Retrieves an account by its username.
+     * @param username The username to search for.
+     * @return The Account object if found, null otherwise.
+     */
+    public Account getAccountByUsername(String username) {
+        return store.getAccountByUsername(username);
+    }
+
+    /**
+     * Retrieves an account by its username and password.
+     * @param username The username for login.
+     * @param password The password for login.
+     * @return The Account object if credentials match, null otherwise.
+     */
+    public Account getAccountByUsernameAndPassword(String username, String password) {
+        Account account = store.getAccountByUsername(username);
+        return account != null && password != null && password.equals(account.getPassword()) ? account : null;
+    }
+
+    /**
+     * Retrieves an account by its ID.
+     * @param accountId The ID of the account.
+     * @return The Account object if found, null otherwise.
+     */
+    public Account getAccountById(int accountId) {
+        return store.getAccountById(accountId);
+    }
+
+    /**
+     * Checks whether an account exists with an array lookup by account_id.
+     * @param accountId The ID of the account.
+     * @return true if the account exists, false otherwise.
+     */
+    public boolean accountExists(int accountId) {
+        return store.accountExists(accountId);
+    }
+
+    /**
+     * Seeds the store from the database, accounts and messages together, if that has not happened yet. Called at
+     * startup so the first request does not pay for it.
+     */
+    public void loadAccountIds() {
+        store.ensureLoaded();
+    }
+}
@@ -0,0 +1,164 @@
+package DAO;
+
+import Model.Message;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MessageDAO implementation backed by a {@link MemoryStore} instead of the database. Every read is served from the
+ * store's columns without locking, so this engine shows how fast the layers above the DAO can go.
+ */
+public class MemoryMessageDAO implements MessageDAO {
+
+    private final MemoryStore store;
+
+    /**
+     * @param store the store holding the messages, shared with the AccountDAO of the same engine.
+     */
+    public MemoryMessageDAO(MemoryStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Creates a new message, unless posted_by does not refer to an existing account.
+     * @param message The message object to be inserted. The message_id will be populated upon successful insertion.
+     * @return The Message object with its generated ID if successful, null otherwise (e.g., the author does not exist).
+     */
+    public Message createMessage(Message message) {
+        return store.insert(message);
+    }
+
+    /**
+     * Inserts several messages with consecutive IDs; either all of them are saved or none.
+     * @param messages The messages to insert. Their message_id fields are populated upon successful insertion.
+     * @return The same messages with their generated IDs if every insert succeeded, null otherwise.
+     */
+    public List<Message> createMessages(List<Message> messages) {
+        return store.insertAll(messages);
+    }
+
+    /**
+     * Retrieves all messages.
+     * @return A list of all messages, or an empty list if none exist.
+     */
+    public List<Message> getAllMessages() {
+        return collect(null, 0, Integer.MAX_VALUE, true);
+    }
+
+    /**
+     * Retrieves a message by its ID.
+     * @param messageId The ID of the message to retrieve.
+     * @return The Message if found, null otherwise.
+     */
+    public Message getMessageById(int messageId) {
+        return store.get(messageId);
+    }
+
+    /**
+     * Retrieves several messages by ID.
+     * @param messageIds The IDs of the messages to retrieve.
+     * @return The messages that exist, keyed by message_id. IDs that do not exist are absent.
+     */
+    public Map<Integer, Message> getMessagesByIds(Collection<Integer> messageIds) {
+        Map<Integer, Message> messages = new HashMap<>();
+        for (Integer messageId : messageIds) {
+            Message message = store.get(messageId);
+            if (message != null) {
+                messages.put(messageId, message);
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Deletes a message by its ID.
+     * @param messageId The ID of the message to delete.
+     * @return The Message object that was deleted if successful, null if the message didn't exist.
+     */
+    public Message deleteMessage(int messageId) {
+        return store.remove(messageId);
+    }
+
+    /**
+     * Updates the text of an existing message.
+     * @param messageId The ID of the message to update.
+     * @param newText The new text for the message.
+     * @return The updated Message object if successful, null otherwise.
+     */
+    public Message updateMessageText(int messageId, String newText) {
+        return store.replaceText(messageId, newText);
+    }
+
+    /**
+     * Retrieves all messages posted by a specific account from its posting list.
+     * @param accountId The ID of the account whose messages to retrieve.
+     * @return A list of messages posted by the user in message_id order, or an empty list if none exist.
+     */
+    public List<Message> getMessagesByAccountId(int accountId) {
+        return collect(accountId, 0, Integer.MAX_VALUE, true);
+    }
+
+    /**
+     * Retrieves one page of messages, starting from the slot of afterId.
+     * @param afterId The message_id the page starts after. Use 0 (ascending) or Integer.MAX_VALUE (descending) for
+     *                the first page.
+     * @param limit The maximum number of messages to return.
+     * @param ascending true to sort by ascending message_id, false for descending.
+     * @return A list of at most limit messages, or an empty list if none remain.
+     */
+    public List<Message> getMessagesPage(int afterId, int limit, boolean ascending) {
+        return collect(null, afterId, limit, ascending);
+    }
+
+    /**
+     * Retrieves one page of the messages posted by a specific account, starting from a binary search of its posting
+     * list.
+     * @param accountId The ID of the account whose messages to retrieve.
+     * @param afterId The message_id the page starts after. Use 0 (ascending) or Integer.MAX_VALUE (descending) for
+     *                the first page.
+     * @param limit The maximum number of messages to return.
+     * @param ascending true to sort by ascending message_id, false for descending.
+     * @return A list of at most limit messages, or an empty list if none remain.
+     */
+    public List<Message> getMessagesByAccountIdPage(int accountId, int afterId, int limit, boolean ascending) {
+        return collect(accountId, afterId, limit, ascending);
+    }
+
+    /**
+     * Streams every message to the handler straight from the store's columns.
+     * @param handler Receives each row in message_id order.
+     * @return true if every row was streamed, false if the store could not be loaded.
+     * @throws IOException if the handler failed to write a row.
+     */
+    public boolean streamAllMessages(MessageRowHandler handler) throws IOException {
+        return store.scan(null, 0, Integer.MAX_VALUE, true, handler);
+    }
+
+    /**
+     * Streams the messages posted by a specific account to the handler straight from the store's columns.
+     * @param accountId The ID of the account whose messages to stream.
+     * @param handler Receives each row in message_id order.
+     * @return true if every row was streamed, false if the store could not be loaded.
+     * @throws IOException if the handler failed to write a row.
+     */
+    public boolean streamMessagesByAccountId(int accountId, MessageRowHandler handler) throws IOException {
+        return store.scan(accountId, 0, Integer.MAX_VALUE, true, handler);
+    }
+
+    private List<Message> collect(Integer accountId, int afterId, int limit, boolean ascending) {
+        List<Message> messages = new ArrayList<>(Math.min(limit, 64));
+        try {
+            store.scan(accountId, afterId, limit, ascending, (messageId, postedBy, messageText, timePostedEpoch) ->
+                    messages.add(new Message(messageId, postedBy, messageText, timePostedEpoch)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Cannot happen, the handler above does not throw
+        }
+        return messages;
+    }
+}
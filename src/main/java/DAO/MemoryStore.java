@@ -0,0 +1,545 @@
+package DAO;
+
+import Model.Account;
+import Model.Message;
+import Util.ConnectionUtil;
+import Util.IntIntHashMap;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The MemoryStore class holds the accounts and messages of the "memory" engine. It is seeded from the database the
+ * first time it is used and from then on never touches it, so it suits a cache tier in front of the database or a
+ * ceiling for what the other engines could reach.
+ *
+ * Messages are stored column by column in fixed-size chunks of slots: posted_by and time_posted_epoch in primitive
+ * arrays, and message_text in an atomic array where null means the slot is deleted or not published yet. Slots are
+ * in message_id order. The seeded ids, which may have gaps, are mapped to their slots with a primitive hash map; new
+ * ids continue from the largest seeded id, one per slot, so their slot follows from the id without a lookup. Each
+ * account has a posting list of the slots of its messages.
+ *
+ * Reads never lock. Writes set message_text last, so a reader that sees the text also sees the other columns.
+ * Inserts hold the lock of the author's stripe while they reserve slots and append to the posting list, which keeps
+ * every posting list in slot order while authors in different stripes insert in parallel. Updates and deletes
+ * compare-and-set the text of one slot. Deleted slots are not reused.
+ */
+public class MemoryStore {
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int STRIPES = 64;
+
+    /**
+     * One chunk of message columns.
+     */
+    private static final class Chunk {
+        final int[] postedBy = new int[CHUNK_SIZE];
+        final long[] epochs = new long[CHUNK_SIZE];
+        final AtomicReferenceArray<String> texts = new AtomicReferenceArray<>(CHUNK_SIZE);
+    }
+
+    /**
+     * The slots of one account's messages, in ascending order. Appends must hold the account's stripe lock; reads
+     * take the size first, so the array they read afterwards holds at least that many slots.
+     */
+    private static final class PostingList {
+        private volatile int[] slots = new int[8];
+        private volatile int size;
+
+        void append(int slot) {
+            int[] current = slots;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+                slots = current;
+            }
+            current[size] = slot;
+            size = size + 1;
+        }
+    }
+
+    /**
+     * Values indexed directly by a dense, non-negative id such as account_id. Reads are lock-free; writes lock.
+     */
+    private static final class IdTable<T> {
+        private final ReentrantLock writeLock = new ReentrantLock();
+        private volatile AtomicReferenceArray<T> values = new AtomicReferenceArray<>(64);
+
+        T get(int id) {
+            AtomicReferenceArray<T> current = values;
+            return id >= 0 && id < current.length() ? current.get(id) : null;
+        }
+
+        void set(int id, T value) {
+            writeLock.lock();
+            try {
+                AtomicReferenceArray<T> current = values;
+                if (id >= current.length()) {
+                    // Grow by doubling; the copy happens under the lock so no concurrent set can be lost
+                    AtomicReferenceArray<T> grown = new AtomicReferenceArray<>(Math.max(id + 1, current.length() * 2));
+                    for (int i = 0; i < current.length(); i++) {
+                        grown.set(i, current.get(i));
+                    }
+                    values = grown;
+                    current = grown;
+                }
+                current.set(id, value);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        void clear() {
+            writeLock.lock();
+            try {
+                values = new AtomicReferenceArray<>(64);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile boolean loaded;
+
+    // Written once by load(), before loaded is set
+    private int[] seededIds = new int[0];
+    private IntIntHashMap seededSlots = new IntIntHashMap(0);
+    private int seededCount;
+    private int firstNewId = 1;
+
+    private final AtomicInteger slotCount = new AtomicInteger();
+    private final ReentrantLock chunkLock = new ReentrantLock();
+    private volatile Chunk[] chunks = new Chunk[0];
+    private final IdTable<PostingList> postings = new IdTable<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    private final ReentrantLock accountLock = new ReentrantLock();
+    private final ConcurrentHashMap<String, Account> accountsByUsername = new ConcurrentHashMap<>();
+    private final IdTable<Account> accountsById = new IdTable<>();
+    private int nextAccountId = 1;
+
+    public MemoryStore() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Seeds the store from the database unless it already is. A failed load leaves the store unloaded so the next
+     * call tries again; until then reads find nothing and writes fail.
+     * @return true if the store is loaded.
+     */
+    public boolean ensureLoaded() {
+        if (loaded) {
+            return true;
+        }
+        loadLock.lock();
+        try {
+            if (!loaded) {
+                loaded = load();
+            }
+            return loaded;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Drops every account and message, so the next use seeds the store from the database again. Used by tests after
+     * the database is reset; other threads must not use the store meanwhile.
+     */
+    public void reset() {
+        loadLock.lock();
+        try {
+            loaded = false;
+            accountLock.lock();
+            try {
+                accountsByUsername.clear();
+                accountsById.clear();
+                nextAccountId = 1;
+            } finally {
+                accountLock.unlock();
+            }
+            chunkLock.lock();
+            try {
+                chunks = new Chunk[0];
+            } finally {
+                chunkLock.unlock();
+            }
+            postings.clear();
+            slotCount.set(0);
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private boolean load() {
+        List<Account> accounts = new ArrayList<>();
+        List<Message> messages = new ArrayList<>();
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            if (connection == null) {
+                System.err.println("Could not get a connection to load the in-memory store");
+                return false;
+            }
+            ResultSet rs = connection.prepareStatement("SELECT account_id, username, password FROM account")
+                    .executeQuery();
+            while (rs.next()) {
+                accounts.add(new Account(rs.getInt(1), rs.getString(2), rs.getString(3)));
+            }
+            rs = connection.prepareStatement("SELECT message_id, posted_by, message_text, time_posted_epoch "
+                    + "FROM message ORDER BY message_id").executeQuery();
+            while (rs.next()) {
+                messages.add(new Message(rs.getInt(1), rs.getInt(2), rs.getString(3), rs.getLong(4)));
+            }
+        } catch (SQLException e) {
+            System.err.println("SQL Exception while loading the in-memory store: " + e.getMessage());
+            return false;
+        }
+
+        for (Account account : accounts) {
+            accountsByUsername.put(account.getUsername(), account);
+            accountsById.set(account.getAccount_id(), account);
+            nextAccountId = Math.max(nextAccountId, account.getAccount_id() + 1);
+        }
+        seededCount = messages.size();
+        seededIds = new int[seededCount];
+        seededSlots = new IntIntHashMap(seededCount);
+        ensureChunks(seededCount);
+        for (int slot = 0; slot < seededCount; slot++) {
+            Message message = messages.get(slot);
+            seededIds[slot] = message.getMessage_id();
+            seededSlots.put(message.getMessage_id(), slot);
+            write(slot, message.getPosted_by(), message.getMessage_text(), message.getTime_posted_epoch());
+            postingList(message.getPosted_by()).append(slot);
+        }
+        firstNewId = seededCount == 0 ? 1 : seededIds[seededCount - 1] + 1;
+        slotCount.set(seededCount);
+        return true;
+    }
+
+    // Accounts
+
+    /**
+     * @return the new account, or null if the username is taken or the store could not be loaded.
+     */
+    Account registerAccount(String username, String password) {
+        if (!ensureLoaded()) {
+            return null;
+        }
+        accountLock.lock();
+        try {
+            if (accountsByUsername.containsKey(username)) {
+                return null;
+            }
+            Account account = new Account(nextAccountId++, username, password);
+            accountsById.set(account.getAccount_id(), account);
+            accountsByUsername.put(username, account);
+            return copy(account);
+        } finally {
+            accountLock.unlock();
+        }
+    }
+
+    Account getAccountByUsername(String username) {
+        return ensureLoaded() && username != null ? copy(accountsByUsername.get(username)) : null;
+    }
+
+    Account getAccountById(int accountId) {
+        return ensureLoaded() ? copy(accountsById.get(accountId)) : null;
+    }
+
+    boolean accountExists(int accountId) {
+        return ensureLoaded() && accountsById.get(accountId) != null;
+    }
+
+    // Messages
+
+    /**
+     * @return the message with its new id, or null if it has no text, its author does not exist or the store could
+     *         not be loaded.
+     */
+    Message insert(Message message) {
+        if (!isInsertable(message)) {
+            return null;
+        }
+        ReentrantLock stripe = stripe(message.getPosted_by());
+        stripe.lock();
+        try {
+            int slot = reserve(1);
+            append(slot, message);
+        } finally {
+            stripe.unlock();
+        }
+        return message;
+    }
+
+    /**
+     * Inserts every message or, if one of them cannot be inserted, none. The messages get consecutive ids.
+     */
+    List<Message> insertAll(List<Message> messages) {
+        boolean[] locked = new boolean[STRIPES];
+        for (Message message : messages) {
+            if (!isInsertable(message)) {
+                return null;
+            }
+            locked[Math.floorMod(message.getPosted_by(), STRIPES)] = true;
+        }
+        // Stripes are taken in index order, so two batches cannot deadlock
+        for (int i = 0; i < STRIPES; i++) {
+            if (locked[i]) {
+                stripes[i].lock();
+            }
+        }
+        try {
+            int slot = reserve(messages.size());
+            for (Message message : messages) {
+                append(slot++, message);
+            }
+        } finally {
+            for (int i = STRIPES - 1; i >= 0; i--) {
+                if (locked[i]) {
+                    stripes[i].unlock();
+                }
+            }
+        }
+        return messages;
+    }
+
+    private boolean isInsertable(Message message) {
+        // A null text would read as an unpublished slot. The services never insert one
+        return message.getMessage_text() != null && accountExists(message.getPosted_by());
+    }
+
+    Message get(int messageId) {
+        int slot = slotOf(messageId);
+        if (slot < 0) {
+            return null;
+        }
+        Chunk chunk = chunks[slot >>> CHUNK_BITS];
+        int i = slot & CHUNK_MASK;
+        String text = chunk.texts.get(i);
+        return text == null ? null : new Message(messageId, chunk.postedBy[i], text, chunk.epochs[i]);
+    }
+
+    /**
+     * @return the deleted message, or null if it did not exist.
+     */
+    Message remove(int messageId) {
+        int slot = slotOf(messageId);
+        if (slot < 0) {
+            return null;
+        }
+        Chunk chunk = chunks[slot >>> CHUNK_BITS];
+        int i = slot & CHUNK_MASK;
+        String text = chunk.texts.getAndSet(i, null);
+        return text == null ? null : new Message(messageId, chunk.postedBy[i], text, chunk.epochs[i]);
+    }
+
+    /**
+     * @return the updated message, or null if it did not exist.
+     */
+    Message replaceText(int messageId, String newText) {
+        int slot = slotOf(messageId);
+        if (slot < 0) {
+            return null;
+        }
+        Chunk chunk = chunks[slot >>> CHUNK_BITS];
+        int i = slot & CHUNK_MASK;
+        String text;
+        do {
+            text = chunk.texts.get(i);
+            if (text == null) {
+                return null; // Deleted, or not published yet
+            }
+        } while (!chunk.texts.compareAndSet(i, text, newText));
+        return new Message(messageId, chunk.postedBy[i], newText, chunk.epochs[i]);
+    }
+
+    /**
+     * Passes messages to the handler in message_id order, like the keyset pages of the SQL engines.
+     * @param accountId the author to filter on, or null for every message.
+     * @param afterId the message_id the scan starts after, in the direction of the scan.
+     * @param limit the maximum number of messages to pass.
+     * @return false if the store could not be loaded.
+     */
+    boolean scan(Integer accountId, int afterId, int limit, boolean ascending, MessageRowHandler handler)
+            throws IOException {
+        if (!ensureLoaded()) {
+            return false;
+        }
+        int end = slotCount.get();
+        // The first slot past afterId in the direction of the scan
+        int start = ascending ? firstSlotAtOrAbove((long) afterId + 1) : firstSlotAtOrAbove(afterId) - 1;
+        int passed = 0;
+        if (accountId == null) {
+            int step = ascending ? 1 : -1;
+            for (int slot = ascending ? start : Math.min(start, end - 1); slot >= 0 && slot < end && passed < limit;
+                    slot += step) {
+                if (emit(slot, handler)) {
+                    passed++;
+                }
+            }
+            return true;
+        }
+
+        PostingList postingList = postings.get(accountId);
+        if (postingList == null) {
+            return true;
+        }
+        int size = postingList.size;
+        int[] slots = postingList.slots;
+        if (ascending) {
+            for (int i = lowerBound(slots, size, start); i < size && passed < limit; i++) {
+                if (emit(slots[i], handler)) {
+                    passed++;
+                }
+            }
+        } else {
+            for (int i = lowerBound(slots, size, start + 1) - 1; i >= 0 && passed < limit; i--) {
+                if (emit(slots[i], handler)) {
+                    passed++;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean emit(int slot, MessageRowHandler handler) throws IOException {
+        Chunk[] current = chunks;
+        if (slot >>> CHUNK_BITS >= current.length) {
+            return false; // Reserved by an insert that has not allocated its chunk yet
+        }
+        Chunk chunk = current[slot >>> CHUNK_BITS];
+        int i = slot & CHUNK_MASK;
+        String text = chunk.texts.get(i);
+        if (text == null) {
+            return false;
+        }
+        handler.handleRow(idAt(slot), chunk.postedBy[i], text, chunk.epochs[i]);
+        return true;
+    }
+
+    private int idAt(int slot) {
+        return slot < seededCount ? seededIds[slot] : firstNewId + (slot - seededCount);
+    }
+
+    /**
+     * @return the slot of a message_id, or -1 if it was never assigned.
+     */
+    private int slotOf(int messageId) {
+        if (!ensureLoaded()) {
+            return -1;
+        }
+        if (messageId < firstNewId) {
+            return seededSlots.get(messageId);
+        }
+        long slot = seededCount + ((long) messageId - firstNewId);
+        return slot < slotCount.get() && (slot >>> CHUNK_BITS) < chunks.length ? (int) slot : -1;
+    }
+
+    /**
+     * @return the first slot whose message_id is at least the given id; may be past the last slot.
+     */
+    private int firstSlotAtOrAbove(long messageId) {
+        if (messageId >= firstNewId) {
+            return (int) Math.min(seededCount + (messageId - firstNewId), Integer.MAX_VALUE - 1);
+        }
+        if (messageId <= Integer.MIN_VALUE) {
+            return 0;
+        }
+        return lowerBound(seededIds, seededCount, (int) messageId);
+    }
+
+    /**
+     * @return the index of the first of the size sorted values that is at least key.
+     */
+    private static int lowerBound(int[] values, int size, int key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Reserves count consecutive slots. The caller must hold the stripe locks of the authors it writes.
+     */
+    private int reserve(int count) {
+        int first = slotCount.getAndAdd(count);
+        ensureChunks(first + count);
+        return first;
+    }
+
+    private void ensureChunks(int slots) {
+        int needed = (slots + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+        if (needed <= chunks.length) {
+            return;
+        }
+        chunkLock.lock();
+        try {
+            Chunk[] current = chunks;
+            if (needed > current.length) {
+                Chunk[] grown = Arrays.copyOf(current, Math.max(needed, current.length * 2));
+                for (int i = current.length; i < grown.length; i++) {
+                    grown[i] = new Chunk();
+                }
+                chunks = grown;
+            }
+        } finally {
+            chunkLock.unlock();
+        }
+    }
+
+    /**
+     * Writes a reserved slot, gives the message its id and adds the slot to the author's posting list.
+     */
+    private void append(int slot, Message message) {
+        write(slot, message.getPosted_by(), message.getMessage_text(), message.getTime_posted_epoch());
+        message.setMessage_id(idAt(slot));
+        postingList(message.getPosted_by()).append(slot);
+    }
+
+    private void write(int slot, int postedBy, String text, long epoch) {
+        Chunk chunk = chunks[slot >>> CHUNK_BITS];
+        int i = slot & CHUNK_MASK;
+        chunk.postedBy[i] = postedBy;
+        chunk.epochs[i] = epoch;
+        chunk.texts.set(i, text); // Publishes the slot
+    }
+
+    private PostingList postingList(int accountId) {
+        PostingList postingList = postings.get(accountId);
+        if (postingList == null) {
+            // Only this account's stripe (or the load) appends to it, so no one else can create it concurrently
+            postingList = new PostingList();
+            postings.set(accountId, postingList);
+        }
+        return postingList;
+    }
+
+    private ReentrantLock stripe(int accountId) {
+        return stripes[Math.floorMod(accountId, STRIPES)];
+    }
+
+    private static Account copy(Account account) {
+        return account == null ? null
+                : new Account(account.getAccount_id(), account.getUsername(), account.getPassword());
+    }
+}
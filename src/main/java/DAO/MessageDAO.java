@@ -1,120 +1,59 @@
 package DAO;
 
 import Model.Message;
-import Util.ConnectionUtil;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.ArrayList; 
-import java.util.List;     
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
-public class MessageDAO {
+/**
+ * Data access for the message table. {@link DAOFactory} picks the implementation: {@link JdbcMessageDAO} by default,
+ * {@link R2dbcMessageDAO} with -Ddao.engine=r2dbc, or {@link MemoryMessageDAO} with -Ddao.engine=memory.
+ */
+public interface MessageDAO {
 
     /**
-     * Creates a new message by inserting it into the database.
+     * Creates a new message, unless posted_by does not refer to an existing account.
      * @param message The message object to be inserted. The message_id will be populated upon successful insertion.
-     * @return The Message object with its generated ID if successful, null otherwise.
+     * @return The Message object with its generated ID if successful, null otherwise (e.g., the author does not exist).
      */
-    public Message createMessage(Message message) {
-        try (Connection connection = ConnectionUtil.getConnection()) {
-            String sql = "INSERT INTO message (posted_by, message_text, time_posted_epoch) VALUES (?, ?, ?)";
-            PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            ps.setInt(1, message.getPosted_by());
-            ps.setString(2, message.getMessage_text());
-            ps.setLong(3, message.getTime_posted_epoch());
-            ps.executeUpdate();
-
-            ResultSet rs = ps.getGeneratedKeys();
-            if (rs.next()) {
-                message.setMessage_id(rs.getInt(1));
-            }
-            return message;
+    Message createMessage(Message message);
 
-        } catch (SQLException e) {
-            System.err.println("SQL Exception during message creation: " + e.getMessage());
-            return null;
-        }
-    }
+    /**
+     * Inserts several messages together; either all of them are saved or none. The authors must already have been
+     * validated.
+     * @param messages The messages to insert. Their message_id fields are populated upon successful insertion.
+     * @return The same messages with their generated IDs if every insert succeeded, null otherwise.
+     */
+    List<Message> createMessages(List<Message> messages);
 
-/**
-     * Retrieves all messages from the database.
+    /**
+     * Retrieves all messages.
      * @return A list of all messages, or an empty list if none exist.
      */
-    public List<Message> getAllMessages() {
-        List<Message> messages = new ArrayList<>();
-        try (Connection connection = ConnectionUtil.getConnection()) {
-            String sql = "SELECT * FROM message";
-            PreparedStatement ps = connection.prepareStatement(sql);
-            ResultSet rs = ps.executeQuery();
-
-            while (rs.next()) {
-                messages.add(new Message(
-                        rs.getInt("message_id"),
-                        rs.getInt("posted_by"),
-                        rs.getString("message_text"),
-                        rs.getLong("time_posted_epoch")
-                ));
-            }
-        } catch (SQLException e) {
-            System.err.println("SQL Exception while getting all messages: " + e.getMessage());
-        }
-        return messages;
-    }
+    List<Message> getAllMessages();
 
     /**
      * Retrieves a message by its ID.
      * @param messageId The ID of the message to retrieve.
      * @return The Message if found, null otherwise.
      */
-    public Message getMessageById(int messageId) {
-        try (Connection connection = ConnectionUtil.getConnection()) {
-            String sql = "SELECT * FROM message WHERE message_id = ?";
-            PreparedStatement ps = connection.prepareStatement(sql);
-            ps.setInt(1, messageId);
-            ResultSet rs = ps.executeQuery();
+    Message getMessageById(int messageId);
 
-            if (rs.next()) {
-                return new Message(
-                        rs.getInt("message_id"),
-                        rs.getInt("posted_by"),
-                        rs.getString("message_text"),
-                        rs.getLong("time_posted_epoch")
-                );
-            }
-            return null; 
-        } catch (SQLException e) {
-            System.err.println("SQL Exception while getting message by ID: " + e.getMessage());
-            return null;
-        }
-    }
+    /**
+     * Retrieves several messages by ID with a single query.
+     * @param messageIds The IDs of the messages to retrieve.
+     * @return The messages that exist, keyed by message_id. IDs that do not exist are absent.
+     */
+    Map<Integer, Message> getMessagesByIds(Collection<Integer> messageIds);
 
     /**
      * Deletes a message by its ID.
      * @param messageId The ID of the message to delete.
      * @return The Message object that was deleted if successful, null if the message didn't exist or deletion failed.
      */
-    public Message deleteMessage(int messageId) {
-        // Retrieve the message to return it if deletion is successful
-        Message deletedMessage = getMessageById(messageId);
-
-        if (deletedMessage != null) {
-            try (Connection connection = ConnectionUtil.getConnection()) {
-                String sql = "DELETE FROM message WHERE message_id = ?";
-                PreparedStatement ps = connection.prepareStatement(sql);
-                ps.setInt(1, messageId);
-                int rowsAffected = ps.executeUpdate();
-                if (rowsAffected > 0) {
-                    return deletedMessage; // Return the message that was just deleted
-                }
-            } catch (SQLException e) {
-                System.err.println("SQL Exception during message deletion: " + e.getMessage());
-            }
-        }
-        return null; // Message didn't exist or deletion failed
-    }
+    Message deleteMessage(int messageId);
 
     /**
      * Updates the text of an existing message.
@@ -122,49 +61,50 @@ public class MessageDAO {
      * @param newText The new text for the message.
      * @return The updated Message object if successful, null otherwise.
      */
-    public Message updateMessageText(int messageId, String newText) {
-        try (Connection connection = ConnectionUtil.getConnection()) {
-            String sql = "UPDATE message SET message_text = ? WHERE message_id = ?";
-            PreparedStatement ps = connection.prepareStatement(sql);
-            ps.setString(1, newText);
-            ps.setInt(2, messageId);
-            int rowsAffected = ps.executeUpdate();
-
-            if (rowsAffected > 0) {
-                // Fetch and return the updated message from the database
-                return getMessageById(messageId);
-            }
-            return null; // No message found with that ID or update failed
-        } catch (SQLException e) {
-            System.err.println("SQL Exception during message text update: " + e.getMessage());
-            return null;
-        }
-    }
+    Message updateMessageText(int messageId, String newText);
 
     /**
      * Retrieves all messages posted by a specific account.
      * @param accountId The ID of the account whose messages to retrieve.
-     * @return A list of messages posted by the user, or an empty list if none exist.
+     * @return A list of messages posted by the user in message_id order, or an empty list if none exist.
      */
-    public List<Message> getMessagesByAccountId(int accountId) {
-        List<Message> messages = new ArrayList<>();
-        try (Connection connection = ConnectionUtil.getConnection()) {
-            String sql = "SELECT * FROM message WHERE posted_by = ?";
-            PreparedStatement ps = connection.prepareStatement(sql);
-            ps.setInt(1, accountId);
-            ResultSet rs = ps.executeQuery();
+    List<Message> getMessagesByAccountId(int accountId);
 
-            while (rs.next()) {
-                messages.add(new Message(
-                        rs.getInt("message_id"),
-                        rs.getInt("posted_by"),
-                        rs.getString("message_text"),
-                        rs.getLong("time_posted_epoch")
-                ));
-            }
-        } catch (SQLException e) {
-            System.err.println("SQL Exception while getting messages by account ID: " + e.getMessage());
-        }
-        return messages;
-    }
-}
\ No newline at end of file
+    /**
+     * Retrieves one page of messages using keyset pagination.
+     * @param afterId The message_id the page starts after. Use 0 (ascending) or Integer.MAX_VALUE (descending) for
+     *                the first page.
+     * @param limit The maximum number of messages to return.
+     * @param ascending true to sort by ascending message_id, false for descending.
+     * @return A list of at most limit messages, or an empty list if none remain.
+     */
+    List<Message> getMessagesPage(int afterId, int limit, boolean ascending);
+
+    /**
+     * Retrieves one page of the messages posted by a specific account using keyset pagination.
+     * @param accountId The ID of the account whose messages to retrieve.
+     * @param afterId The message_id the page starts after. Use 0 (ascending) or Integer.MAX_VALUE (descending) for
+     *                the first page.
+     * @param limit The maximum number of messages to return.
+     * @param ascending true to sort by ascending message_id, false for descending.
+     * @return A list of at most limit messages, or an empty list if none remain.
+     */
+    List<Message> getMessagesByAccountIdPage(int accountId, int afterId, int limit, boolean ascending);
+
+    /**
+     * Streams every message to the handler as the rows are read, without collecting them in a list.
+     * @param handler Receives each row in message_id order.
+     * @return true if every row was streamed, false if a database error stopped the stream.
+     * @throws IOException if the handler failed to write a row.
+     */
+    boolean streamAllMessages(MessageRowHandler handler) throws IOException;
+
+    /**
+     * Streams the messages posted by a specific account to the handler as the rows are read.
+     * @param accountId The ID of the account whose messages to stream.
+     * @param handler Receives each row in message_id order.
+     * @return true if every row was streamed, false if a database error stopped the stream.
+     * @throws IOException if the handler failed to write a row.
+     */
+    boolean streamMessagesByAccountId(int accountId, MessageRowHandler handler) throws IOException;
+}
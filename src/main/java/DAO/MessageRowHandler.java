@@ -0,0 +1,16 @@
+package DAO;
+
+import java.io.IOException;
+
+/**
+ * Callback used by the streaming read methods of {@link MessageDAO}. It receives the columns of one message row at a
+ * time, as the row is read from the database, so callers can write it out without building Message objects or lists.
+ */
+public interface MessageRowHandler {
+
+    /**
+     * Called once for every row, in result order.
+     * @throws IOException if writing the row out fails (e.g., the client disconnected). Streaming stops.
+     */
+    void handleRow(int messageId, int postedBy, String messageText, long timePostedEpoch) throws IOException;
+}
@@ -0,0 +1,120 @@
+package DAO;
+
+import Model.Account;
+import Util.R2dbcConnectionUtil;
+
+import java.util.function.IntConsumer;
+
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * AccountDAO implementation on the H2 R2DBC driver. The reactive methods return a Mono or Flux and do nothing until
+ * subscribed to; the AccountDAO methods wait for them.
+ */
+public class R2dbcAccountDAO extends R2dbcSupport implements AccountDAO {
+
+    private final AccountIdIndex accountIds = new AccountIdIndex();
+
+    public R2dbcAccountDAO() {
+        this(R2dbcConnectionUtil.getConnectionFactory());
+    }
+
+    public R2dbcAccountDAO(ConnectionFactory connectionFactory) {
+        super(connectionFactory);
+    }
+
+    /**
+     * Inserts the account unless its username is taken, in a single statement.
+     * @return the account with its generated ID, or an empty Mono if the username is taken.
+     */
+    public Mono<Account> insert(Account account) {
+        return withConnection(connection -> bindAll(connection.createStatement(
+                        "INSERT INTO account (username, password) SELECT $1, $2 "
+                                + "WHERE NOT EXISTS (SELECT 1 FROM account WHERE username = $3)"),
+                        account.getUsername(), account.getPassword(), account.getUsername())
+                        .returnGeneratedValues("account_id")
+                        .execute())
+                .concatMap(result -> result.map((row, metadata) -> row.get(0, Integer.class)))
+                .next()
+                .map(accountId -> {
+                    account.setAccount_id(accountId);
+                    accountIds.add(accountId);
+                    return account;
+                });
+    }
+
+    public Mono<Account> findByUsername(String username) {
+        return queryAccount("SELECT * FROM account WHERE username = $1", username);
+    }
+
+    public Mono<Account> findByUsernameAndPassword(String username, String password) {
+        return queryAccount("SELECT * FROM account WHERE username = $1 AND password = $2", username, password);
+    }
+
+    public Mono<Account> findById(int accountId) {
+        return queryAccount("SELECT * FROM account WHERE account_id = $1", accountId);
+    }
+
+    /**
+     * @return every account_id.
+     */
+    public Flux<Integer> findAllIds() {
+        return withConnection(connection -> connection.createStatement("SELECT account_id FROM account").execute())
+                .concatMap(result -> result.map((row, metadata) -> row.get(0, Integer.class)));
+    }
+
+    public Account registerAccount(Account account) {
+        return block(insert(account), "during account registration", null);
+    }
+
+    public Account getAccountByUsername(String username) {
+        return block(findByUsername(username), "while getting account by username", null);
+    }
+
+    public Account getAccountByUsernameAndPassword(String username, String password) {
+        return block(findByUsernameAndPassword(username, password),
+                "while getting account by username and password", null);
+    }
+
+    public Account getAccountById(int accountId) {
+        return block(findById(accountId), "while getting account by ID", null);
+    }
+
+    public boolean accountExists(int accountId) {
+        return accountIds.contains(accountId, this::selectAccountIds);
+    }
+
+    public void loadAccountIds() {
+        accountIds.load(this::selectAccountIds);
+    }
+
+    private boolean selectAccountIds(IntConsumer sink) {
+        try {
+            for (Integer accountId : findAllIds().toIterable()) {
+                sink.accept(accountId);
+            }
+            return true;
+        } catch (RuntimeException e) {
+            System.err.println("R2DBC Exception while loading account IDs: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private Mono<Account> queryAccount(String sql, Object... params) {
+        return withConnection(connection -> bindAll(connection.createStatement(sql), params).execute())
+                .concatMap(result -> result.map(R2dbcAccountDAO::mapAccount))
+                .next();
+    }
+
+    private static Account mapAccount(Row row, RowMetadata metadata) {
+        return new Account(
+                row.get("account_id", Integer.class),
+                row.get("username", String.class),
+                row.get("password", String.class)
+        );
+    }
+}
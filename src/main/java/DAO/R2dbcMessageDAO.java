@@ -0,0 +1,238 @@
+package DAO;
+
+import Model.Message;
+import Util.R2dbcConnectionUtil;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * MessageDAO implementation on the H2 R2DBC driver. The reactive methods return a Mono or Flux and do nothing until
+ * subscribed to; list queries emit rows as the driver produces them, as fast as the subscriber requests them. The
+ * MessageDAO methods wait for the reactive ones, and the stream methods pull rows on demand, a few at a time, so a
+ * slow client holds back the query instead of rows piling up in memory.
+ */
+public class R2dbcMessageDAO extends R2dbcSupport implements MessageDAO {
+
+    /**
+     * Number of rows requested at a time when streaming.
+     */
+    private static final int STREAM_PREFETCH = 256;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO message (posted_by, message_text, time_posted_epoch) VALUES ($1, $2, $3)";
+
+    public R2dbcMessageDAO() {
+        this(R2dbcConnectionUtil.getConnectionFactory());
+    }
+
+    public R2dbcMessageDAO(ConnectionFactory connectionFactory) {
+        super(connectionFactory);
+    }
+
+    /**
+     * Inserts the message only if posted_by refers to an existing account, in a single statement.
+     * @return the message with its generated ID, or an empty Mono if the author does not exist.
+     */
+    public Mono<Message> insert(Message message) {
+        return withConnection(connection -> bindAll(connection.createStatement(
+                        "INSERT INTO message (posted_by, message_text, time_posted_epoch) "
+                                + "SELECT account_id, $1, $2 FROM account WHERE account_id = $3"),
+                        message.getMessage_text(), message.getTime_posted_epoch(), message.getPosted_by())
+                        .returnGeneratedValues("message_id")
+                        .execute())
+                .concatMap(result -> result.map((row, metadata) -> row.get(0, Integer.class)))
+                .next()
+                .map(messageId -> {
+                    message.setMessage_id(messageId);
+                    return message;
+                });
+    }
+
+    /**
+     * Inserts the messages as one batch in one transaction, which is rolled back if any insert fails.
+     * @return the messages with their generated IDs.
+     */
+    public Mono<List<Message>> insertAll(List<Message> messages) {
+        return withConnection(connection -> {
+            Statement statement = connection.createStatement(INSERT_SQL).returnGeneratedValues("message_id");
+            for (int i = 0; i < messages.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                Message message = messages.get(i);
+                bindAll(statement, message.getPosted_by(), message.getMessage_text(),
+                        message.getTime_posted_epoch());
+            }
+            return Mono.from(connection.beginTransaction())
+                    .thenMany(statement.execute())
+                    .concatMap(result -> result.map((row, metadata) -> row.get(0, Integer.class)))
+                    .collectList()
+                    .flatMap(ids -> {
+                        if (ids.size() != messages.size()) {
+                            return Mono.error(new IllegalStateException(
+                                    "expected " + messages.size() + " generated keys, got " + ids.size()));
+                        }
+                        for (int i = 0; i < ids.size(); i++) {
+                            messages.get(i).setMessage_id(ids.get(i));
+                        }
+                        return Mono.from(connection.commitTransaction()).thenReturn(messages);
+                    })
+                    .onErrorResume(e -> Mono.from(connection.rollbackTransaction()).then(Mono.error(e)));
+        }).next();
+    }
+
+    public Flux<Message> findAll() {
+        return queryMessages("SELECT * FROM message");
+    }
+
+    public Mono<Message> findById(int messageId) {
+        return queryMessages("SELECT * FROM message WHERE message_id = $1", messageId).next();
+    }
+
+    public Flux<Message> findByIds(Collection<Integer> messageIds) {
+        return queryMessages("SELECT * FROM message WHERE message_id = ANY($1)",
+                (Object) messageIds.toArray(new Integer[0]));
+    }
+
+    /**
+     * Deletes the message and reads the deleted row back from H2's OLD TABLE in the same statement.
+     */
+    public Mono<Message> delete(int messageId) {
+        return queryMessages("SELECT * FROM OLD TABLE (DELETE FROM message WHERE message_id = $1)", messageId)
+                .next();
+    }
+
+    /**
+     * Updates the text and reads the updated row back from H2's FINAL TABLE in the same statement.
+     */
+    public Mono<Message> updateText(int messageId, String newText) {
+        return queryMessages("SELECT * FROM FINAL TABLE (UPDATE message SET message_text = $1 WHERE message_id = $2)",
+                newText, messageId).next();
+    }
+
+    /**
+     * @return the messages of the account in message_id order.
+     */
+    public Flux<Message> findByAccountId(int accountId) {
+        return queryMessages("SELECT * FROM message WHERE posted_by = $1 ORDER BY message_id", accountId);
+    }
+
+    /**
+     * @return every message in message_id order.
+     */
+    public Flux<Message> findAllOrdered() {
+        return queryMessages("SELECT * FROM message ORDER BY message_id");
+    }
+
+    public Flux<Message> findPage(int afterId, int limit, boolean ascending) {
+        return queryMessages(ascending
+                ? "SELECT * FROM message WHERE message_id > $1 ORDER BY message_id ASC LIMIT $2"
+                : "SELECT * FROM message WHERE message_id < $1 ORDER BY message_id DESC LIMIT $2", afterId, limit);
+    }
+
+    public Flux<Message> findPageByAccountId(int accountId, int afterId, int limit, boolean ascending) {
+        return queryMessages(ascending
+                ? "SELECT * FROM message WHERE posted_by = $1 AND message_id > $2 ORDER BY message_id ASC LIMIT $3"
+                : "SELECT * FROM message WHERE posted_by = $1 AND message_id < $2 ORDER BY message_id DESC LIMIT $3",
+                accountId, afterId, limit);
+    }
+
+    public Message createMessage(Message message) {
+        return block(insert(message), "during message creation", null);
+    }
+
+    public List<Message> createMessages(List<Message> messages) {
+        return block(insertAll(messages), "during batch message creation", null);
+    }
+
+    public List<Message> getAllMessages() {
+        return block(findAll().collectList(), "while getting all messages", new ArrayList<>());
+    }
+
+    public Message getMessageById(int messageId) {
+        return block(findById(messageId), "while getting message by ID", null);
+    }
+
+    public Map<Integer, Message> getMessagesByIds(Collection<Integer> messageIds) {
+        return block(findByIds(messageIds).collectMap(Message::getMessage_id, message -> message, HashMap::new),
+                "while getting messages by IDs", new HashMap<>());
+    }
+
+    public Message deleteMessage(int messageId) {
+        return block(delete(messageId), "during message deletion", null);
+    }
+
+    public Message updateMessageText(int messageId, String newText) {
+        return block(updateText(messageId, newText), "during message text update", null);
+    }
+
+    public List<Message> getMessagesByAccountId(int accountId) {
+        return block(findByAccountId(accountId).collectList(), "while getting messages by account ID",
+                new ArrayList<>());
+    }
+
+    public List<Message> getMessagesPage(int afterId, int limit, boolean ascending) {
+        return block(findPage(afterId, limit, ascending).collectList(), "while getting a page of messages",
+                new ArrayList<>());
+    }
+
+    public List<Message> getMessagesByAccountIdPage(int accountId, int afterId, int limit, boolean ascending) {
+        return block(findPageByAccountId(accountId, afterId, limit, ascending).collectList(),
+                "while getting a page of messages by account ID", new ArrayList<>());
+    }
+
+    public boolean streamAllMessages(MessageRowHandler handler) throws IOException {
+        return streamRows(findAllOrdered(), handler, "while streaming all messages");
+    }
+
+    public boolean streamMessagesByAccountId(int accountId, MessageRowHandler handler) throws IOException {
+        return streamRows(findByAccountId(accountId), handler, "while streaming messages by account ID");
+    }
+
+    /**
+     * Hands the rows to the handler as they arrive, requesting STREAM_PREFETCH rows at a time. Closing the stream
+     * cancels the query, e.g. when the handler fails because the client went away.
+     */
+    private boolean streamRows(Flux<Message> rows, MessageRowHandler handler, String action) throws IOException {
+        try (Stream<Message> stream = rows.toStream(STREAM_PREFETCH)) {
+            Iterator<Message> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                Message message = iterator.next();
+                handler.handleRow(message.getMessage_id(), message.getPosted_by(), message.getMessage_text(),
+                        message.getTime_posted_epoch());
+            }
+            return true;
+        } catch (RuntimeException e) {
+            System.err.println("R2DBC Exception " + action + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private Flux<Message> queryMessages(String sql, Object... params) {
+        return withConnection(connection -> bindAll(connection.createStatement(sql), params).execute())
+                .concatMap(result -> result.map(R2dbcMessageDAO::mapMessage));
+    }
+
+    private static Message mapMessage(Row row, RowMetadata metadata) {
+        return new Message(
+                row.get("message_id", Integer.class),
+                row.get("posted_by", Integer.class),
+                row.get("message_text", String.class),
+                row.get("time_posted_epoch", Long.class)
+        );
+    }
+}
@@ -0,0 +1,56 @@
+package DAO;
+
+import java.util.function.Function;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Statement;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Base class of the R2DBC DAOs: runs statements on a pooled connection that is released when the returned publisher
+ * completes, fails or is cancelled, and adapts the reactive results to the blocking DAO interfaces.
+ */
+abstract class R2dbcSupport {
+
+    protected final ConnectionFactory connectionFactory;
+
+    protected R2dbcSupport(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * Runs work on a connection from the pool and releases the connection afterwards. Nothing happens until the
+     * returned Flux is subscribed to.
+     */
+    protected <T> Flux<T> withConnection(Function<Connection, Publisher<T>> work) {
+        return Flux.usingWhen(connectionFactory.create(), work, Connection::close);
+    }
+
+    /**
+     * Creates a statement and binds the parameters to $1, $2, ... in order.
+     */
+    protected static Statement bindAll(Statement statement, Object... params) {
+        for (int i = 0; i < params.length; i++) {
+            statement.bind(i, params[i]);
+        }
+        return statement;
+    }
+
+    /**
+     * Waits for the result, for the blocking DAO interface methods.
+     * @param action describes the call for the error log, e.g. "while getting message by ID".
+     * @param fallback returned when the database call fails.
+     * @return the value the Mono emitted, null if it completed empty, or fallback on failure.
+     */
+    protected static <T> T block(Mono<T> mono, String action, T fallback) {
+        try {
+            return mono.block();
+        } catch (RuntimeException e) {
+            System.err.println("R2DBC Exception " + action + ": " + e.getMessage());
+            return fallback;
+        }
+    }
+}
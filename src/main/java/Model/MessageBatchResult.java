@@ -0,0 +1,86 @@
+package Model;
+
+/**
+ * This is a class that models the outcome of one item of a POST /messages/batch request.
+ */
+public class MessageBatchResult {
+    /**
+     * The position of the item in the request array.
+     */
+    public int index;
+    /**
+     * The HTTP-style status of this item: 200 if it was created, 400 if it failed validation, 500 if the insert failed.
+     */
+    public int status;
+    /**
+     * The created message, including its generated message_id. Null if the item was not created.
+     */
+    public Message message;
+    /**
+     * Why the item was not created. Null if it was created.
+     */
+    public String error;
+    /**
+     * A default, no-args constructor, as well as correctly formatted getters and setters, are needed for
+     * Jackson Objectmapper to work.
+     */
+    public MessageBatchResult(){
+    }
+    /**
+     * @param index
+     * @param status
+     * @param message
+     * @param error
+     */
+    public MessageBatchResult(int index, int status, Message message, String error) {
+        this.index = index;
+        this.status = status;
+        this.message = message;
+        this.error = error;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public Message getMessage() {
+        return message;
+    }
+
+    public void setMessage(Message message) {
+        this.message = message;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+    /**
+     * Overriding the default toString() method allows for easy debugging.
+     * @return a String representation of this class.
+     */
+    @Override
+    public String toString() {
+        return "MessageBatchResult{" +
+                "index=" + index +
+                ", status=" + status +
+                ", message=" + message +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
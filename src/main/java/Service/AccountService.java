@@ -1,14 +1,16 @@
 package Service;
 
 import DAO.AccountDAO;
+import DAO.DAOFactory;
 import Model.Account;
+import Util.TextUtil;
 
 public class AccountService {
 
     private AccountDAO accountDAO;
 
     public AccountService() {
-        this.accountDAO = new AccountDAO();
+        this.accountDAO = DAOFactory.createAccountDAO();
     }
 
     // Constructor for dependency injection in tests (useful for mock DAOs)
@@ -23,7 +25,7 @@ public class AccountService {
      */
     public Account registerAccount(Account account) {
         // 1. Validation: username not blank
-        if (account.getUsername() == null || account.getUsername().trim().isEmpty()) {
+        if (account.getUsername() == null || TextUtil.isBlank(account.getUsername())) {
             return null;
         }
 
@@ -32,13 +34,9 @@ public class AccountService {
             return null;
         }
 
-        // 3. Validation: An Account with that username does not already exist
-        if (accountDAO.getAccountByUsername(account.getUsername()) != null) {
-            return null; // Username already taken
-        }
-
-        // If all validations pass, attempt to register
-        return accountDAO.registerAccount(account);
+        // 3. Validation: An Account with that username does not already exist.
+        // The DAO checks this in the same statement as the insert, inside one unit of work.
+        return DAOFactory.inUnitOfWork(() -> accountDAO.registerAccount(account));
     }
 
 /**
@@ -48,7 +46,7 @@ public class AccountService {
      */
     public Account loginAccount(Account account) {
         // Basic validation: username and password should not be blank/null
-        if (account.getUsername() == null || account.getUsername().trim().isEmpty() ||
+        if (account.getUsername() == null || TextUtil.isBlank(account.getUsername()) ||
             account.getPassword() == null || account.getPassword().isEmpty()) {
             return null; // Invalid input
         }
@@ -58,11 +56,19 @@ public class AccountService {
     }
 
     /**
-     * Checks if an account with the given ID exists.
+     * Checks if an account with the given ID exists. Uses the DAO's in-memory account index, so it does not query
+     * the database.
      * @param accountId The ID of the account to check.
      * @return true if the account exists, false otherwise.
      */
     public boolean doesAccountExist(int accountId) {
-        return accountDAO.getAccountById(accountId) != null;
+        return accountDAO.accountExists(accountId);
+    }
+
+    /**
+     * Builds the in-memory account index up front, so the first message write does not pay for it.
+     */
+    public void loadAccountIndex() {
+        accountDAO.loadAccountIds();
     }
 }
\ No newline at end of file
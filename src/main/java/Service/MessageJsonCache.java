@@ -0,0 +1,124 @@
+package Service;
+
+import Model.Message;
+import Util.LruCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The MessageJsonCache class keeps the serialized UTF-8 JSON of recently served messages, keyed by message_id, so
+ * read handlers can send a message, or splice a list of them into a JSON array, without running Jackson again.
+ *
+ * Each entry remembers the field values it was serialized from and is only used for a message with the same values.
+ * A list read straight from the database therefore never picks up an older text, even if it races with an update;
+ * {@link MessageService} still invalidates entries on update and delete so they do not take up space.
+ */
+public class MessageJsonCache {
+
+    /**
+     * Same settings as the ObjectMapper behind context.json(), so cached and freshly serialized bodies are identical.
+     */
+    private static final ObjectWriter MESSAGE_WRITER = new ObjectMapper().writerFor(Message.class);
+
+    private final LruCache<Integer, Entry> cache;
+
+    /**
+     * @param maxBytes the maximum total size of the cached JSON.
+     */
+    public MessageJsonCache(long maxBytes) {
+        this.cache = new LruCache<>(maxBytes, entry -> entry.json.length, 0, 0);
+    }
+
+    /**
+     * The JSON of one message, together with the field values it was serialized from.
+     */
+    private static class Entry {
+        final int postedBy;
+        final String messageText;
+        final long timePostedEpoch;
+        final byte[] json;
+
+        Entry(Message message, byte[] json) {
+            this.postedBy = message.getPosted_by();
+            this.messageText = message.getMessage_text();
+            this.timePostedEpoch = message.getTime_posted_epoch();
+            this.json = json;
+        }
+
+        boolean matches(Message message) {
+            return postedBy == message.getPosted_by() && timePostedEpoch == message.getTime_posted_epoch()
+                    && Objects.equals(messageText, message.getMessage_text());
+        }
+    }
+
+    /**
+     * Returns the JSON of a message, serializing and caching it unless the cache already holds it.
+     * The returned array is shared and must not be modified.
+     * @param message the message to serialize.
+     * @return the message as a UTF-8 JSON object.
+     */
+    public byte[] toJson(Message message) {
+        Entry entry = cache.get(message.getMessage_id(), messageId -> serialize(message));
+        if (entry.matches(message)) {
+            return entry.json;
+        }
+        // The cached JSON is from before an update
+        Entry current = serialize(message);
+        cache.put(message.getMessage_id(), current);
+        return current.json;
+    }
+
+    /**
+     * Builds a JSON array of the messages from their cached JSON.
+     * @param messages the messages, in response order.
+     * @return the messages as a UTF-8 JSON array.
+     */
+    public byte[] toJsonArray(List<Message> messages) {
+        byte[][] parts = new byte[messages.size()][];
+        int length = 2 + Math.max(0, messages.size() - 1);
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = toJson(messages.get(i));
+            length += parts[i].length;
+        }
+
+        byte[] array = new byte[length];
+        int position = 0;
+        array[position++] = '[';
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                array[position++] = ',';
+            }
+            System.arraycopy(parts[i], 0, array, position, parts[i].length);
+            position += parts[i].length;
+        }
+        array[position] = ']';
+        return array;
+    }
+
+    /**
+     * Drops the cached JSON of a message that was updated or deleted.
+     * @param messageId the ID of the message.
+     */
+    public void invalidate(int messageId) {
+        cache.invalidate(messageId);
+    }
+
+    /**
+     * @return hit, miss and eviction counters of the cache; the weight is in bytes.
+     */
+    public LruCache.Stats getStats() {
+        return cache.getStats();
+    }
+
+    private static Entry serialize(Message message) {
+        try {
+            return new Entry(message, MESSAGE_WRITER.writeValueAsBytes(message));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e); // A Message has only plain fields, so this cannot happen
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package Service;
+
+import Model.Message;
+
+import java.util.List;
+
+/**
+ * One page of messages returned by the paginated list methods of {@link MessageService}.
+ */
+public class MessagePage {
+
+    private final List<Message> messages;
+    private final Integer nextAfterId;
+
+    public MessagePage(List<Message> messages, Integer nextAfterId) {
+        this.messages = messages;
+        this.nextAfterId = nextAfterId;
+    }
+
+    /**
+     * @return the messages on this page, in the requested order.
+     */
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    /**
+     * @return true if there are more messages after this page.
+     */
+    public boolean hasNext() {
+        return nextAfterId != null;
+    }
+
+    /**
+     * @return the message_id the next page starts after, or null if this is the last page.
+     */
+    public Integer getNextAfterId() {
+        return nextAfterId;
+    }
+}
@@ -1,23 +1,87 @@
 package Service;
 
+import DAO.DAOFactory;
 import DAO.MessageDAO;
+import DAO.MessageRowHandler;
 import Model.Message;
+import Model.MessageBatchResult;
+import Util.LruCache;
+import Util.TextUtil;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List; // Import List
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class MessageService {
 
     private MessageDAO messageDAO;
     private AccountService accountService; // We need this to validate posted_by
 
+    /**
+     * Read-through cache for getMessageById, keyed by message_id. Missing ids are cached briefly as well.
+     * Tuned with the cache.messages.maxSize, cache.messages.ttlMs and cache.messages.negativeTtlMs system properties.
+     */
+    private final LruCache<Integer, Message> messageCache = new LruCache<>(
+            Long.getLong("cache.messages.maxSize", 10_000),
+            message -> 1,
+            Long.getLong("cache.messages.ttlMs", 0),
+            Long.getLong("cache.messages.negativeTtlMs", 1_000));
+
+    /**
+     * Per-account timeline cache for getMessagesByAccountId, keyed by posted_by. Writes update cached timelines
+     * incrementally instead of dropping them. Each timeline weighs its number of messages, so the total number of
+     * cached messages is bounded and cold accounts are evicted first. Tuned with the cache.timelines.maxMessages and
+     * cache.timelines.ttlMs system properties.
+     */
+    private final LruCache<Integer, List<Message>> timelineCache = new LruCache<>(
+            Long.getLong("cache.timelines.maxMessages", 100_000),
+            timeline -> timeline.size() + 1,
+            Long.getLong("cache.timelines.ttlMs", 300_000),
+            0);
+
+    /**
+     * Serialized JSON of the messages served by the read handlers, keyed by message_id. Bounded by the
+     * cache.json.maxBytes system property.
+     */
+    private final MessageJsonCache jsonCache = new MessageJsonCache(
+            Long.getLong("cache.json.maxBytes", 32L * 1024 * 1024));
+
+    /**
+     * Group-commit queue for createMessage, or null when messages are inserted directly. Enabled with the
+     * writeBehind.enabled system property and tuned with writeBehind.batchSize, writeBehind.lingerMs,
+     * writeBehind.queueCapacity and writeBehind.offerTimeoutMs.
+     */
+    private final WriteBehindQueue writeBehind;
+
+    /**
+     * How long createMessage waits for a queued message to be written before giving up with a 503, so a stalled
+     * writer cannot hold request threads forever. Set with the writeBehind.writeTimeoutMs system property.
+     */
+    private final long writeBehindTimeoutMillis = Long.getLong("writeBehind.writeTimeoutMs", 5_000);
+
+    /**
+     * Change counters behind the ETags of the message lists, bumped by every successful write below.
+     */
+    private final MessageVersions versions = new MessageVersions();
+
     public MessageService() {
-        this.messageDAO = new MessageDAO();
+        this.messageDAO = DAOFactory.createMessageDAO();
         this.accountService = new AccountService(); // Initialize AccountService
+        this.writeBehind = createWriteBehind(messageDAO);
     }
 
     // Constructor for dependency injection in tests
     public MessageService(MessageDAO messageDAO, AccountService accountService) {
         this.messageDAO = messageDAO;
         this.accountService = accountService;
+        this.writeBehind = createWriteBehind(messageDAO);
     }
 
     /**
@@ -27,7 +91,7 @@ public class MessageService {
      */
     public Message createMessage(Message message) {
         // 1. Validation: message_text is not blank
-        if (message.getMessage_text() == null || message.getMessage_text().trim().isEmpty()) {
+        if (message.getMessage_text() == null || TextUtil.isBlank(message.getMessage_text())) {
             return null;
         }
 
@@ -36,14 +100,77 @@ public class MessageService {
             return null;
         }
 
-        // 3. Validation: posted_by refers to a real, existing user
-        // We need AccountService to check if the user exists
+        // 3. Validation: posted_by refers to a real, existing user.
+        // Checked against the in-memory account index first, so unknown authors are rejected without a database hit.
+        // The DAO checks the author again in the same statement as the insert.
         if (!accountService.doesAccountExist(message.getPosted_by())) {
             return null; // User does not exist
         }
+        Message created = writeBehind == null
+                ? DAOFactory.inUnitOfWork(() -> messageDAO.createMessage(message))
+                : awaitWriteBehind(message);
+        if (created != null) {
+            // Replaces any cached "not found" for the new id
+            messageCache.put(created.getMessage_id(), created);
+            timelineCache.updateIfPresent(created.getPosted_by(), timeline -> withMessage(timeline, created));
+            // Bump last, so a reader that sees the new tag also sees the new message
+            versions.bump(created.getPosted_by());
+        }
+        return created;
+    }
+    /**
+     * Creates several messages at once. Each message is validated like in createMessage, but authors are checked
+     * once per distinct posted_by, and every valid message is inserted with one JDBC batch in a single transaction.
+     * @param messages The messages to create.
+     * @return One result per message, in request order, with the created message or the reason it was rejected.
+     */
+    public List<MessageBatchResult> createMessages(List<Message> messages) {
+        List<MessageBatchResult> results = new ArrayList<>(messages.size());
+        List<Message> valid = new ArrayList<>(messages.size());
+        Map<Integer, Boolean> authorExists = new HashMap<>();
+
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            String error = null;
+            if (message == null || message.getMessage_text() == null || TextUtil.isBlank(message.getMessage_text())) {
+                error = "message_text must not be blank";
+            } else if (message.getMessage_text().length() > 255) {
+                error = "message_text must not be over 255 characters";
+            } else if (!authorExists.computeIfAbsent(message.getPosted_by(), accountService::doesAccountExist)) {
+                error = "posted_by does not refer to an existing account";
+            }
+
+            if (error != null) {
+                results.add(new MessageBatchResult(i, 400, null, error));
+            } else {
+                results.add(new MessageBatchResult(i, 200, message, null));
+                valid.add(message);
+            }
+        }
+        if (valid.isEmpty()) {
+            return results;
+        }
 
-        return messageDAO.createMessage(message);
+        List<Message> created = DAOFactory.inUnitOfWork(() -> messageDAO.createMessages(valid));
+        for (MessageBatchResult result : results) {
+            if (result.getStatus() != 200) {
+                continue;
+            }
+            if (created == null) {
+                // The whole batch was rolled back
+                result.setStatus(500);
+                result.setMessage(null);
+                result.setError("message could not be saved");
+            } else {
+                Message message = result.getMessage();
+                messageCache.put(message.getMessage_id(), message);
+                timelineCache.updateIfPresent(message.getPosted_by(), timeline -> withMessage(timeline, message));
+                versions.bump(message.getPosted_by());
+            }
+        }
+        return results;
     }
+
 /**
      * Retrieves all messages.
      * @return A list of all messages.
@@ -58,7 +185,27 @@ public class MessageService {
      * @return The Message object if found, or null if not found.
      */
     public Message getMessageById(int messageId) {
-        return messageDAO.getMessageById(messageId);
+        return messageCache.get(messageId, messageDAO::getMessageById);
+    }
+
+    /**
+     * Retrieves several messages by ID. Cached messages are served from the cache, and every miss is fetched with
+     * one query.
+     * @param messageIds The IDs of the messages to retrieve.
+     * @return The messages that exist, in the order their IDs were requested. Missing and repeated IDs are skipped.
+     */
+    public List<Message> getMessagesByIds(List<Integer> messageIds) {
+        Set<Integer> distinctIds = new LinkedHashSet<>(messageIds);
+        Map<Integer, Message> found = messageCache.getAll(distinctIds, messageDAO::getMessagesByIds);
+
+        List<Message> messages = new ArrayList<>(found.size());
+        for (Integer messageId : distinctIds) {
+            Message message = found.get(messageId);
+            if (message != null) {
+                messages.add(message);
+            }
+        }
+        return messages;
     }
 
     /**
@@ -67,7 +214,15 @@ public class MessageService {
      * @return The deleted Message object if it existed, or null if it didn't.
      */
     public Message deleteMessage(int messageId) {
-        return messageDAO.deleteMessage(messageId);
+        // The DAO deletes and returns the row in a single statement
+        Message deleted = messageDAO.deleteMessage(messageId);
+        messageCache.invalidate(messageId);
+        jsonCache.invalidate(messageId);
+        if (deleted != null) {
+            timelineCache.updateIfPresent(deleted.getPosted_by(), timeline -> withoutMessage(timeline, messageId));
+            versions.bump(deleted.getPosted_by());
+        }
+        return deleted;
     }
 
     /**
@@ -78,7 +233,7 @@ public class MessageService {
      */
     public Message updateMessage(int messageId, String newText) {
         // Validation: new message_text is not blank
-        if (newText == null || newText.trim().isEmpty()) {
+        if (newText == null || TextUtil.isBlank(newText)) {
             return null;
         }
         // Validation: new message_text is not over 255 characters
@@ -86,23 +241,216 @@ public class MessageService {
             return null;
         }
 
-        // Check if the message exists before attempting to update
-        if (messageDAO.getMessageById(messageId) == null) {
-            return null; // Message does not exist
+        // The DAO updates and returns the row in a single statement, and returns null when the message does not
+        // exist, so no separate existence check is needed.
+        Message updated = messageDAO.updateMessageText(messageId, newText);
+        // Invalidate after the write, so a concurrent read cannot cache the old text again
+        messageCache.invalidate(messageId);
+        jsonCache.invalidate(messageId);
+        if (updated != null) {
+            timelineCache.updateIfPresent(updated.getPosted_by(), timeline -> withMessage(timeline, updated));
+            versions.bump(updated.getPosted_by());
         }
-
-        return messageDAO.updateMessageText(messageId, newText);
+        return updated;
     }
     //
     /**
-     * Retrieves all messages posted by a specific user.
+     * Retrieves all messages posted by a specific user, from the timeline cache when possible.
      * @param accountId The ID of the user whose messages to retrieve.
-     * @return A list of messages posted by the user, or an empty list if none exist.
+     * @return A read-only list of messages posted by the user, or an empty list if none exist.
      */
     public List<Message> getMessagesByAccountId(int accountId) {
         // if (!accountService.doesAccountExist(accountId)) {
         //     return new ArrayList<>(); // Or throw an exception, or return null based on stricter requirements
         // }
-        return messageDAO.getMessagesByAccountId(accountId);
+        return timelineCache.get(accountId,
+                id -> Collections.unmodifiableList(messageDAO.getMessagesByAccountId(id)));
+    }
+
+    /**
+     * Retrieves one page of all messages, using keyset pagination.
+     * @param afterId The message_id the page starts after, or null for the first page.
+     * @param limit The maximum number of messages on the page.
+     * @param ascending true to sort by ascending message_id, false for descending.
+     * @return The page, including where the next page starts if there is one.
+     */
+    public MessagePage getMessagesPage(Integer afterId, int limit, boolean ascending) {
+        // Fetch one extra row to find out whether another page follows
+        List<Message> rows = messageDAO.getMessagesPage(firstAfterId(afterId, ascending), limit + 1, ascending);
+        return toPage(rows, limit);
+    }
+
+    /**
+     * Retrieves one page of the messages posted by a specific user, using keyset pagination.
+     * @param accountId The ID of the user whose messages to retrieve.
+     * @param afterId The message_id the page starts after, or null for the first page.
+     * @param limit The maximum number of messages on the page.
+     * @param ascending true to sort by ascending message_id, false for descending.
+     * @return The page, including where the next page starts if there is one.
+     */
+    public MessagePage getMessagesByAccountIdPage(int accountId, Integer afterId, int limit, boolean ascending) {
+        List<Message> rows = messageDAO.getMessagesByAccountIdPage(accountId, firstAfterId(afterId, ascending),
+                limit + 1, ascending);
+        return toPage(rows, limit);
+    }
+
+    /**
+     * Streams all messages to the handler without building a list, so memory use does not grow with the table.
+     * @param handler Receives each message row in message_id order.
+     * @return true if every row was streamed, false if a database error stopped the stream.
+     * @throws IOException if the handler failed to write a row.
+     */
+    public boolean streamAllMessages(MessageRowHandler handler) throws IOException {
+        return messageDAO.streamAllMessages(handler);
+    }
+
+    /**
+     * Streams the messages posted by a specific user to the handler without building a list.
+     * @param accountId The ID of the user whose messages to stream.
+     * @param handler Receives each message row in message_id order.
+     * @return true if every row was streamed, false if a database error stopped the stream.
+     * @throws IOException if the handler failed to write a row.
+     */
+    public boolean streamMessagesByAccountId(int accountId, MessageRowHandler handler) throws IOException {
+        return messageDAO.streamMessagesByAccountId(accountId, handler);
+    }
+
+    /**
+     * @return a strong ETag that changes whenever any message is created, updated or deleted. Take it before reading
+     * the list it describes.
+     */
+    public String getMessagesETag() {
+        return versions.getTableETag();
+    }
+
+    /**
+     * @return a strong ETag that changes whenever a message of the given account is created, updated or deleted.
+     * Take it before reading the list it describes.
+     */
+    public String getMessagesByAccountIdETag(int accountId) {
+        return versions.getAccountETag(accountId);
+    }
+
+    /**
+     * @return hit, miss and eviction counters of the getMessageById cache.
+     */
+    public LruCache.Stats getMessageCacheStats() {
+        return messageCache.getStats();
+    }
+
+    /**
+     * @return hit, miss and eviction counters of the per-account timeline cache.
+     */
+    public LruCache.Stats getTimelineCacheStats() {
+        return timelineCache.getStats();
+    }
+
+    /**
+     * @return the cache the read handlers serialize messages with.
+     */
+    public MessageJsonCache getJsonCache() {
+        return jsonCache;
+    }
+
+    /**
+     * @return the write-behind queue used by createMessage, or null if write-behind is disabled.
+     */
+    public WriteBehindQueue getWriteBehindQueue() {
+        return writeBehind;
+    }
+
+    /**
+     * Stops accepting write-behind messages and writes the ones still queued. Does nothing if write-behind is
+     * disabled.
+     */
+    public void close() {
+        if (writeBehind != null) {
+            writeBehind.close();
+        }
+    }
+
+    private static WriteBehindQueue createWriteBehind(MessageDAO messageDAO) {
+        if (!Boolean.getBoolean("writeBehind.enabled")) {
+            return null;
+        }
+        return new WriteBehindQueue(messageDAO,
+                Integer.getInteger("writeBehind.batchSize", 256),
+                Long.getLong("writeBehind.lingerMs", 2),
+                Integer.getInteger("writeBehind.queueCapacity", 10_000),
+                Long.getLong("writeBehind.offerTimeoutMs", 100));
+    }
+
+    /**
+     * Queues the message for the next group commit and waits until it has been written. A failed batch is reported
+     * by the writer and rethrown here, as if the message had been inserted directly.
+     * @throws ServiceOverloadedException if the queue is full, or the message was not written within the write
+     * timeout. It may still be written later.
+     */
+    private Message awaitWriteBehind(Message message) {
+        try {
+            return writeBehind.submit(message).get(writeBehindTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceOverloadedException("write-behind write timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceOverloadedException("interrupted while waiting for write-behind");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause(); // The writer only fails futures with unchecked exceptions
+        }
+    }
+
+    /**
+     * Returns a copy of a cached timeline with the message inserted, or replaced if a message with the same id is
+     * already there, keeping message_id order. Cached timelines are never modified, since handlers may be
+     * serializing them on other threads.
+     */
+    private static List<Message> withMessage(List<Message> timeline, Message message) {
+        List<Message> copy = new ArrayList<>(timeline.size() + 1);
+        boolean placed = false;
+        for (Message existing : timeline) {
+            if (!placed && existing.getMessage_id() >= message.getMessage_id()) {
+                copy.add(message);
+                placed = true;
+                if (existing.getMessage_id() == message.getMessage_id()) {
+                    continue; // Replaced
+                }
+            }
+            copy.add(existing);
+        }
+        if (!placed) {
+            copy.add(message);
+        }
+        return Collections.unmodifiableList(copy);
+    }
+
+    /**
+     * Returns a copy of a cached timeline without the given message.
+     */
+    private static List<Message> withoutMessage(List<Message> timeline, int messageId) {
+        List<Message> copy = new ArrayList<>(timeline.size());
+        for (Message existing : timeline) {
+            if (existing.getMessage_id() != messageId) {
+                copy.add(existing);
+            }
+        }
+        return Collections.unmodifiableList(copy);
+    }
+
+    private static int firstAfterId(Integer afterId, boolean ascending) {
+        if (afterId != null) {
+            return afterId;
+        }
+        return ascending ? 0 : Integer.MAX_VALUE;
+    }
+
+    private static MessagePage toPage(List<Message> rows, int limit) {
+        if (rows.size() <= limit) {
+            return new MessagePage(rows, null);
+        }
+        List<Message> messages = rows.subList(0, limit);
+        return new MessagePage(messages, messages.get(limit - 1).getMessage_id());
     }
 }
@@ -0,0 +1,45 @@
+package Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The MessageVersions class counts the changes to the message table, overall and per author, so the controller can
+ * answer conditional GETs of the message lists without reading them.
+ *
+ * Versions only ever go up, and each {@link MessageService} instance starts from a random epoch, so a tag issued
+ * before a restart never matches one issued after it. Writers bump after their change is committed and applied to the
+ * caches, and readers take the tag before reading the list, so a response may carry a tag older than its content
+ * (costing one extra full download later) but never a newer one.
+ */
+class MessageVersions {
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLong tableVersion = new AtomicLong();
+    private final Map<Integer, AtomicLong> accountVersions = new ConcurrentHashMap<>();
+
+    /**
+     * Records a change to one of the given account's messages.
+     */
+    public void bump(int accountId) {
+        accountVersions.computeIfAbsent(accountId, id -> new AtomicLong()).incrementAndGet();
+        tableVersion.incrementAndGet();
+    }
+
+    /**
+     * @return a strong ETag for the list of all messages.
+     */
+    public String getTableETag() {
+        return "\"m-" + epoch + "-" + tableVersion.get() + "\"";
+    }
+
+    /**
+     * @return a strong ETag for the messages posted by the given account.
+     */
+    public String getAccountETag(int accountId) {
+        AtomicLong version = accountVersions.get(accountId);
+        return "\"a" + accountId + "-" + epoch + "-" + (version == null ? 0 : version.get()) + "\"";
+    }
+}
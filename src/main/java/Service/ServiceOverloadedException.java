@@ -0,0 +1,13 @@
+package Service;
+
+/**
+ * Thrown by the service layer when a request cannot be accepted right now because a bounded resource is full, for
+ * example when the write-behind queue stays full for longer than the offer timeout. The controller maps it to
+ * 503 Service Unavailable so clients back off and retry.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    public ServiceOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,223 @@
+package Service;
+
+import DAO.DAOFactory;
+import DAO.MessageDAO;
+import Model.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The WriteBehindQueue class inserts messages in group-committed batches. Callers put validated messages on a bounded
+ * queue and get a future for the created message. A single writer thread takes whatever has queued up, waits up to
+ * the linger time for a batch to fill, and inserts the batch with one JDBC batch in one transaction, so many messages
+ * share one commit instead of paying for one each.
+ *
+ * When the queue is full, {@link #submit(Message)} waits up to the offer timeout and then throws
+ * {@link ServiceOverloadedException}. {@link #close()} stops accepting messages and writes everything already queued.
+ */
+public class WriteBehindQueue {
+
+    /**
+     * How long the writer waits for a first message before checking whether the queue was closed.
+     */
+    private static final long IDLE_POLL_MILLIS = 100;
+    private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(IDLE_POLL_MILLIS);
+    private static final long CLOSE_TIMEOUT_MILLIS = 30_000;
+
+    private final MessageDAO messageDAO;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final long offerTimeoutMillis;
+    private final BlockingQueue<PendingWrite> queue;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder messageCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * Creates the queue and starts its writer thread.
+     * @param messageDAO the DAO used to insert the batches.
+     * @param batchSize the maximum number of messages committed together.
+     * @param lingerMillis how long the writer waits for more messages before committing a partial batch.
+     * @param queueCapacity the maximum number of messages waiting to be written.
+     * @param offerTimeoutMillis how long a caller waits for room in a full queue before being rejected.
+     */
+    public WriteBehindQueue(MessageDAO messageDAO, int batchSize, long lingerMillis, int queueCapacity,
+                            long offerTimeoutMillis) {
+        this.messageDAO = messageDAO;
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.writer = new Thread(this::runWriter, "message-write-behind");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a validated message for insertion.
+     * @param message the message to insert. Its message_id is populated once it has been committed.
+     * @return a future completed with the created message, or with null if it could not be inserted (e.g. its author
+     * no longer exists).
+     * @throws ServiceOverloadedException if the queue is closed, or stayed full for the whole offer timeout.
+     */
+    public CompletableFuture<Message> submit(Message message) {
+        if (closed) {
+            throw new ServiceOverloadedException("write-behind queue is closed");
+        }
+        PendingWrite pending = new PendingWrite(message);
+        boolean queued;
+        try {
+            queued = queue.offer(pending, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            rejectedCount.increment();
+            throw new ServiceOverloadedException("write-behind queue is full");
+        }
+        // If close() ran meanwhile, its final drain may already be over. Take the message back unless someone else
+        // already took it, in which case it will be written.
+        if (closed && queue.remove(pending)) {
+            throw new ServiceOverloadedException("write-behind queue is closed");
+        }
+        return pending.future;
+    }
+
+    /**
+     * Stops accepting messages, waits for the writer to finish and writes anything still queued on the calling
+     * thread. Safe to call more than once.
+     */
+    public void close() {
+        closed = true;
+        try {
+            writer.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<PendingWrite> remaining = new ArrayList<>(batchSize);
+        while (queue.drainTo(remaining, batchSize) > 0) {
+            writeBatch(remaining);
+            remaining.clear();
+        }
+    }
+
+    /**
+     * @return the number of messages waiting to be written.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return the number of batches written so far.
+     */
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    /**
+     * @return the number of messages taken off the queue and written (or failed) so far.
+     */
+    public long getMessageCount() {
+        return messageCount.sum();
+    }
+
+    /**
+     * @return the number of messages rejected because the queue was full.
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    private void runWriter() {
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        try {
+            while (!closed || !queue.isEmpty()) {
+                PendingWrite first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(batch);
+                writeBatch(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // Whatever is left is written by close()
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Adds queued messages to the batch until it is full or the linger time since the first message has passed.
+     * No lingering happens once the queue is closed, so shutdown is not slowed down.
+     */
+    private void fillBatch(List<PendingWrite> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < batchSize) {
+            if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || closed) {
+                return;
+            }
+            // Wake up regularly to notice close() during a long linger
+            PendingWrite next = queue.poll(Math.min(remaining, IDLE_POLL_NANOS), TimeUnit.NANOSECONDS);
+            if (next != null) {
+                batch.add(next);
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingWrite> batch) {
+        List<Message> messages = new ArrayList<>(batch.size());
+        for (PendingWrite pending : batch) {
+            messages.add(pending.message);
+        }
+        try {
+            List<Message> created = DAOFactory.inUnitOfWork(() -> messageDAO.createMessages(messages));
+            if (created == null) {
+                // One bad row, e.g. an author deleted after validation, rolls back the whole group. Retry one by one
+                // so only that caller fails; the guarded single insert rejects a missing author.
+                for (PendingWrite pending : batch) {
+                    pending.future.complete(messageDAO.createMessage(pending.message));
+                }
+            } else {
+                for (PendingWrite pending : batch) {
+                    pending.future.complete(pending.message);
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            System.err.println("Exception during write-behind batch: " + e.getMessage());
+            for (PendingWrite pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+        } finally {
+            batchCount.increment();
+            messageCount.add(batch.size());
+        }
+    }
+
+    /**
+     * A queued message and the future its caller is waiting on.
+     */
+    private static class PendingWrite {
+        private final Message message;
+        private final CompletableFuture<Message> future = new CompletableFuture<>();
+
+        private PendingWrite(Message message) {
+            this.message = message;
+        }
+    }
+}
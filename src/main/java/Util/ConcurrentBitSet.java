@@ -0,0 +1,69 @@
+package Util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The ConcurrentBitSet class is a growable set of non-negative ints stored as one bit per possible value. It is meant
+ * for dense, auto-increment keys such as account ids, where it needs about one bit per id and answers membership
+ * checks with a single array read and no boxing.
+ *
+ * Reads are lock-free. Writes take a lock, which is fine because they are rare compared to reads.
+ */
+public class ConcurrentBitSet {
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile AtomicLongArray words = new AtomicLongArray(16);
+    private volatile int size;
+
+    /**
+     * @param value the value to look up.
+     * @return true if the value has been added to the set.
+     */
+    public boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+        AtomicLongArray current = words;
+        int index = value >>> 6;
+        return index < current.length() && (current.get(index) & (1L << value)) != 0;
+    }
+
+    /**
+     * Adds a value to the set.
+     * @param value a non-negative value.
+     */
+    public void add(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+        int index = value >>> 6;
+        long mask = 1L << value;
+        writeLock.lock();
+        try {
+            AtomicLongArray current = words;
+            if (index >= current.length()) {
+                // Grow by doubling; the copy happens under the lock so no concurrent add can be lost
+                AtomicLongArray grown = new AtomicLongArray(Math.max(index + 1, current.length() * 2));
+                for (int i = 0; i < current.length(); i++) {
+                    grown.set(i, current.get(i));
+                }
+                words = grown;
+                current = grown;
+            }
+            long previous = current.getAndAccumulate(index, mask, (word, bit) -> word | bit);
+            if ((previous & mask) == 0) {
+                size++;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of values in the set.
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,519 @@
+package Util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.sql.DataSource;
+
+/**
+ * The ConnectionPool class keeps a bounded set of physical connections open and hands them out to callers. Callers
+ * use the returned connection exactly like a normal one: calling close() puts the physical connection back into the
+ * pool instead of closing it.
+ *
+ * The pool supports a minimum and maximum size, validation of connections that have been idle for a while, a timeout
+ * when every connection is busy, detection of connections that are borrowed for too long (leaks) and runtime
+ * statistics through {@link #getStats()}.
+ *
+ * The pool only uses a ReentrantLock (never synchronized) around its bookkeeping so that waiting callers do not pin
+ * carrier threads when the server runs on virtual threads.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private final DataSource dataSource;
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final long leakDetectionMillis;
+    private final boolean leakStackTraces;
+    private final long validationIntervalMillis;
+    private final int validationTimeoutSeconds;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition connectionAvailable = lock.newCondition();
+    /**
+     * Idle connections, used as a stack so the most recently returned (and therefore warmest) connection is reused.
+     */
+    private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+    /**
+     * Number of physical connections that are open or currently being opened.
+     */
+    private int totalConnections;
+    private int waitingThreads;
+    private boolean closed;
+
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final LatencyHistogram acquireTimes = new LatencyHistogram();
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong discardedCount = new AtomicLong();
+
+    private final ScheduledExecutorService housekeeper;
+
+    /**
+     * @param dataSource the data source used to open physical connections.
+     * @param minSize the number of connections the pool tries to keep open at all times.
+     * @param maxSize the maximum number of connections that can be open at once.
+     * @param acquireTimeoutMillis how long getConnection() waits for a free connection before failing.
+     * @param leakDetectionMillis how long a connection may stay borrowed before it is reported as a leak, 0 disables.
+     * @param leakStackTraces whether to record where each connection was borrowed, so a leak report can show it.
+     *                        This costs a stack trace per borrow, so it is meant for tracking a leak down.
+     * @param validationIntervalMillis connections idle for longer than this are validated before being handed out.
+     * @param validationTimeoutSeconds timeout passed to Connection.isValid() during validation.
+     */
+    public ConnectionPool(DataSource dataSource, int minSize, int maxSize, long acquireTimeoutMillis,
+                          long leakDetectionMillis, boolean leakStackTraces, long validationIntervalMillis,
+                          int validationTimeoutSeconds) {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.dataSource = dataSource;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.leakDetectionMillis = leakDetectionMillis;
+        this.leakStackTraces = leakStackTraces;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = leakDetectionMillis > 0 ? Math.max(100, leakDetectionMillis / 2) : 5000;
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if the pool has not reached its maximum size yet.
+     * @return a connection whose close() method returns it to the pool.
+     * @throws SQLException if no connection became available within the acquire timeout, or opening one failed.
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMillis);
+
+        while (true) {
+            PooledConnection candidate = null;
+            boolean mustCreate = false;
+
+            lock.lock();
+            try {
+                while (candidate == null && !mustCreate) {
+                    if (closed) {
+                        throw new SQLException("Connection pool is closed");
+                    }
+                    if (!idle.isEmpty()) {
+                        candidate = idle.pop();
+                    } else if (totalConnections < maxSize) {
+                        totalConnections++;
+                        mustCreate = true;
+                    } else {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            timeoutCount.incrementAndGet();
+                            throw new SQLTransientConnectionException("Timed out after " + acquireTimeoutMillis
+                                    + "ms waiting for a connection (active=" + borrowed.size() + ", max=" + maxSize + ")");
+                        }
+                        waitingThreads++;
+                        try {
+                            connectionAvailable.awaitNanos(remaining);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new SQLException("Interrupted while waiting for a connection", e);
+                        } finally {
+                            waitingThreads--;
+                        }
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (mustCreate) {
+                candidate = openPhysicalConnection();
+            } else if (!isUsable(candidate)) {
+                discard(candidate);
+                continue;
+            }
+
+            candidate.borrowedAt = System.currentTimeMillis();
+            candidate.borrowTrace = leakStackTraces ? new Throwable("Connection borrowed here") : null;
+            candidate.leakReported = false;
+            borrowed.add(candidate);
+            acquireCount.incrementAndGet();
+            acquireTimes.record(System.nanoTime() - start);
+            return candidate.newHandle();
+        }
+    }
+
+    /**
+     * @return a point-in-time snapshot of the pool's counters and acquire-time histogram.
+     */
+    public Stats getStats() {
+        lock.lock();
+        try {
+            return new Stats(borrowed.size(), idle.size(), waitingThreads, totalConnections, maxSize,
+                    acquireCount.get(), timeoutCount.get(), leakCount.get(), createdCount.get(),
+                    discardedCount.get(), acquireTimes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops the housekeeping thread. Borrowed connections are closed when they are
+     * returned.
+     */
+    @Override
+    public void close() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+            connectionAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+        for (PooledConnection connection : toClose) {
+            discard(connection);
+        }
+    }
+
+    private PooledConnection openPhysicalConnection() throws SQLException {
+        try {
+            Connection physical = dataSource.getConnection();
+            createdCount.incrementAndGet();
+            return new PooledConnection(physical);
+        } catch (SQLException | RuntimeException e) {
+            lock.lock();
+            try {
+                totalConnections--;
+                connectionAvailable.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private boolean isUsable(PooledConnection connection) {
+        if (System.currentTimeMillis() - connection.returnedAt < validationIntervalMillis) {
+            return true;
+        }
+        try {
+            return connection.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Called by a handle when the borrower closes it. Puts the physical connection back on the idle stack after
+     * restoring its default state, or discards it if the state cannot be restored.
+     */
+    private void release(PooledConnection connection) {
+        borrowed.remove(connection);
+        boolean healthy;
+        try {
+            if (!connection.physical.getAutoCommit()) {
+                connection.physical.rollback();
+                connection.physical.setAutoCommit(true);
+            }
+            if (connection.physical.isReadOnly()) {
+                connection.physical.setReadOnly(false);
+            }
+            connection.physical.clearWarnings();
+            healthy = !connection.physical.isClosed();
+        } catch (SQLException e) {
+            healthy = false;
+        }
+        if (!healthy) {
+            discard(connection);
+            return;
+        }
+
+        connection.returnedAt = System.currentTimeMillis();
+        lock.lock();
+        try {
+            if (!closed) {
+                idle.push(connection);
+                connectionAvailable.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        discard(connection);
+    }
+
+    private void discard(PooledConnection connection) {
+        discardedCount.incrementAndGet();
+        try {
+            connection.physical.close();
+        } catch (SQLException e) {
+            System.err.println("SQL Exception while closing pooled connection: " + e.getMessage());
+        }
+        lock.lock();
+        try {
+            totalConnections--;
+            connectionAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs periodically on the housekeeping thread: reports leaked connections and tops the pool up to its minimum.
+     */
+    private void housekeep() {
+        try {
+            if (leakDetectionMillis > 0) {
+                long now = System.currentTimeMillis();
+                for (PooledConnection connection : borrowed) {
+                    if (!connection.leakReported && now - connection.borrowedAt > leakDetectionMillis) {
+                        connection.leakReported = true;
+                        leakCount.incrementAndGet();
+                        System.err.println("Possible connection leak: connection borrowed " + (now - connection.borrowedAt)
+                                + "ms ago has not been returned to the pool");
+                        if (connection.borrowTrace != null) {
+                            connection.borrowTrace.printStackTrace();
+                        }
+                    }
+                }
+            }
+            while (true) {
+                lock.lock();
+                try {
+                    if (closed || totalConnections >= minSize) {
+                        return;
+                    }
+                    totalConnections++;
+                } finally {
+                    lock.unlock();
+                }
+                PooledConnection connection = openPhysicalConnection();
+                connection.returnedAt = System.currentTimeMillis();
+                lock.lock();
+                try {
+                    idle.addLast(connection);
+                    connectionAvailable.signal();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Connection pool housekeeping failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Bookkeeping for one physical connection owned by the pool.
+     */
+    private class PooledConnection {
+        private final Connection physical;
+        private volatile long borrowedAt;
+        private volatile long returnedAt = System.currentTimeMillis();
+        private volatile Throwable borrowTrace;
+        private volatile boolean leakReported;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        /**
+         * A fresh handle is created for every borrow, so a stale handle that is closed twice (or used after close)
+         * can never affect the next borrower.
+         */
+        private Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new Handle(this));
+        }
+    }
+
+    /**
+     * The proxy handed to callers. Everything is forwarded to the physical connection except close(), isClosed(),
+     * and unwrap() and isWrapperFor(), which never expose the physical connection, since closing that directly would
+     * bypass the pool. The handle remembers the statements created through it and closes them, with their
+     * result sets, when it is closed, so statements a caller forgot do not pile up on the physical connection.
+     */
+    private class Handle implements InvocationHandler {
+        private final PooledConnection owner;
+        private final List<Statement> statements = new ArrayList<>();
+        private volatile boolean released;
+
+        private Handle(PooledConnection owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        closeStatements();
+                        release(owner);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || owner.physical.isClosed();
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    throw new SQLException("A pooled connection cannot be unwrapped to " + args[0]);
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + owner.physical + "]";
+                default:
+                    if (released) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(owner.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (result instanceof Statement) {
+                        statements.add((Statement) result);
+                    }
+                    return result;
+            }
+        }
+
+        private void closeStatements() {
+            for (Statement statement : statements) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    System.err.println("SQL Exception while closing a pooled statement: " + e.getMessage());
+                }
+            }
+            statements.clear();
+        }
+    }
+
+    /**
+     * An immutable snapshot of the pool state, as returned by {@link #getStats()}.
+     */
+    public static class Stats {
+        private final int active;
+        private final int idle;
+        private final int waiting;
+        private final int total;
+        private final int maxSize;
+        private final long acquireCount;
+        private final long timeoutCount;
+        private final long leakCount;
+        private final long createdCount;
+        private final long discardedCount;
+        private final LatencyHistogram acquireTimes;
+
+        private Stats(int active, int idle, int waiting, int total, int maxSize, long acquireCount, long timeoutCount,
+                      long leakCount, long createdCount, long discardedCount, LatencyHistogram acquireTimes) {
+            this.active = active;
+            this.idle = idle;
+            this.waiting = waiting;
+            this.total = total;
+            this.maxSize = maxSize;
+            this.acquireCount = acquireCount;
+            this.timeoutCount = timeoutCount;
+            this.leakCount = leakCount;
+            this.createdCount = createdCount;
+            this.discardedCount = discardedCount;
+            this.acquireTimes = acquireTimes;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getIdle() {
+            return idle;
+        }
+
+        public int getWaiting() {
+            return waiting;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public long getAcquireCount() {
+            return acquireCount;
+        }
+
+        public long getTimeoutCount() {
+            return timeoutCount;
+        }
+
+        public long getLeakCount() {
+            return leakCount;
+        }
+
+        public long getCreatedCount() {
+            return createdCount;
+        }
+
+        public long getDiscardedCount() {
+            return discardedCount;
+        }
+
+        /**
+         * @return the live histogram of how long getConnection() took, in nanoseconds.
+         */
+        public LatencyHistogram getAcquireTimes() {
+            return acquireTimes;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "active=" + active +
+                    ", idle=" + idle +
+                    ", waiting=" + waiting +
+                    ", total=" + total +
+                    ", maxSize=" + maxSize +
+                    ", acquireCount=" + acquireCount +
+                    ", timeoutCount=" + timeoutCount +
+                    ", leakCount=" + leakCount +
+                    ", acquireP50Micros=" + acquireTimes.getValueAtPercentile(50) / 1000 +
+                    ", acquireP99Micros=" + acquireTimes.getValueAtPercentile(99) / 1000 +
+                    '}';
+        }
+    }
+}
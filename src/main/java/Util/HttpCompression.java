@@ -0,0 +1,94 @@
+package Util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The HttpCompression class holds the content negotiation and gzip helpers used for the responses the controller
+ * compresses itself, i.e. the cached list payloads that bypass Javalin's own compression.
+ *
+ * Only gzip is offered: Brotli and zstd need native libraries that are not part of the JVM.
+ */
+public class HttpCompression {
+
+    public static final String GZIP = "gzip";
+
+    private HttpCompression() {
+    }
+
+    /**
+     * Checks an Accept-Encoding header for gzip. An explicit gzip entry wins over "*", and a q-value of 0 refuses
+     * the coding.
+     * @param acceptEncoding the header value, or null if the request has none.
+     * @return true if a gzip-encoded response is acceptable.
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim();
+            boolean accepted = parseQuality(parts) > 0;
+            if (coding.equalsIgnoreCase(GZIP) || coding.equalsIgnoreCase("x-gzip")) {
+                return accepted;
+            }
+            if (coding.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return wildcard != null && wildcard;
+    }
+
+    /**
+     * Compresses a response body.
+     * @param data the uncompressed bytes.
+     * @param level the deflate level, 1 (fastest) to 9 (smallest).
+     * @return the gzip-encoded bytes.
+     */
+    public static byte[] gzip(byte[] data, int level) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Cannot happen when writing to memory
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Derives the tag of the gzip-encoded variant of a representation. A strong ETag must differ between encodings
+     * of the same content, so "abc" becomes "abc-gzip".
+     * @param etag a quoted strong ETag.
+     * @return the ETag of the gzip-encoded variant.
+     */
+    public static String gzipETag(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-" + GZIP + "\"";
+    }
+
+    /**
+     * Reads the q-value of one entry of an Accept or Accept-Encoding header.
+     * @param parts the entry split at its semicolons; the first part is the media type or coding.
+     * @return the q-value, or 1 if the entry has none or it is malformed.
+     */
+    public static double parseQuality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 1;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,104 @@
+package Util;
+
+/**
+ * The IntIntHashMap class maps int keys to non-negative int values with open addressing over a single int array that
+ * holds keys and values side by side, so lookups neither box nor chase pointers.
+ *
+ * It is not thread-safe. Build it on one thread and publish it safely (e.g. through a final or volatile field); after
+ * that any number of threads may read it.
+ */
+public class IntIntHashMap {
+
+    private static final int FREE = Integer.MIN_VALUE;
+
+    private int[] slots;
+    private int mask;
+    private int size;
+
+    /**
+     * @param expectedSize the number of keys the map should hold without growing.
+     */
+    public IntIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * @param key the key to look up.
+     * @return the value of the key, or -1 if it is absent.
+     */
+    public int get(int key) {
+        if (key == FREE) {
+            return -1;
+        }
+        int[] current = slots;
+        int index = mix(key) & mask;
+        while (true) {
+            int stored = current[index << 1];
+            if (stored == key) {
+                return current[(index << 1) + 1];
+            }
+            if (stored == FREE) {
+                return -1;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Adds a key or replaces its value.
+     * @param key any int except Integer.MIN_VALUE.
+     * @param value a non-negative value.
+     */
+    public void put(int key, int value) {
+        if (key == FREE || value < 0) {
+            throw new IllegalArgumentException("Unsupported entry: " + key + " -> " + value);
+        }
+        if ((size + 1) * 2 > mask + 1) {
+            rehash();
+        }
+        int index = mix(key) & mask;
+        while (slots[index << 1] != FREE && slots[index << 1] != key) {
+            index = (index + 1) & mask;
+        }
+        if (slots[index << 1] == FREE) {
+            size++;
+        }
+        slots[index << 1] = key;
+        slots[(index << 1) + 1] = value;
+    }
+
+    /**
+     * @return the number of keys in the map.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void rehash() {
+        int[] old = slots;
+        allocate((mask + 1) * 2);
+        size = 0;
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != FREE) {
+                put(old[i], old[i + 1]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        slots = new int[capacity * 2];
+        for (int i = 0; i < slots.length; i += 2) {
+            slots[i] = FREE;
+        }
+        mask = capacity - 1;
+    }
+
+    /**
+     * Spreads sequential ids over the table so runs of them do not cluster.
+     */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
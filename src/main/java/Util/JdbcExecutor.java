@@ -0,0 +1,156 @@
+package Util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The JdbcExecutor class runs blocking database work on a fixed number of threads with a bounded queue, and hands
+ * back a CompletableFuture so HTTP threads do not have to wait for it. Sizing the executor like the connection pool
+ * means a task that starts running will normally find a free connection, and database concurrency can be tuned and
+ * watched separately from HTTP concurrency.
+ *
+ * When the queue is full, {@link #submit(Callable)} returns a future failed with RejectedExecutionException. The time
+ * every task spent queued before it started is recorded in a {@link LatencyHistogram}.
+ */
+public class JdbcExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * Creates the executor. Threads are started lazily and are daemon threads.
+     * @param threads the number of threads, normally the maximum connection pool size.
+     * @param queueCapacity the maximum number of tasks waiting for a thread.
+     */
+    public JdbcExecutor(int threads, int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "jdbc-executor-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Queues a task.
+     * @param task the blocking work to run.
+     * @return a future completed with the task's result, or failed with whatever it threw, or with
+     * RejectedExecutionException if the queue was full or the executor is shut down.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                waitTimes.record(System.nanoTime() - queuedAt);
+                try {
+                    future.complete(task.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCount.increment();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Stops accepting tasks and waits briefly for the queued ones to finish.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return a snapshot of the executor size, queue depth, counters and queue wait times.
+     */
+    public Stats getStats() {
+        return new Stats(executor.getMaximumPoolSize(), executor.getActiveCount(), executor.getQueue().size(),
+                queueCapacity, executor.getCompletedTaskCount(), rejectedCount.sum(), waitTimes);
+    }
+
+    /**
+     * A point-in-time snapshot of the executor, as returned by {@link #getStats()}.
+     */
+    public static class Stats {
+        private final int threads;
+        private final int active;
+        private final int queueDepth;
+        private final int queueCapacity;
+        private final long completedCount;
+        private final long rejectedCount;
+        private final LatencyHistogram waitTimes;
+
+        private Stats(int threads, int active, int queueDepth, int queueCapacity, long completedCount,
+                      long rejectedCount, LatencyHistogram waitTimes) {
+            this.threads = threads;
+            this.active = active;
+            this.queueDepth = queueDepth;
+            this.queueCapacity = queueCapacity;
+            this.completedCount = completedCount;
+            this.rejectedCount = rejectedCount;
+            this.waitTimes = waitTimes;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public long getCompletedCount() {
+            return completedCount;
+        }
+
+        public long getRejectedCount() {
+            return rejectedCount;
+        }
+
+        /**
+         * @return the live histogram of how long tasks waited in the queue, in nanoseconds.
+         */
+        public LatencyHistogram getWaitTimes() {
+            return waitTimes;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "threads=" + threads +
+                    ", active=" + active +
+                    ", queueDepth=" + queueDepth +
+                    ", queueCapacity=" + queueCapacity +
+                    ", completedCount=" + completedCount +
+                    ", rejectedCount=" + rejectedCount +
+                    ", waitP99Nanos=" + waitTimes.getValueAtPercentile(99) +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package Util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The LatencyHistogram class records durations (in nanoseconds) into log-linear buckets, in the same spirit as an
+ * HdrHistogram: every power of two is split into 32 linear sub-buckets, so any recorded value can be reported back
+ * with roughly 3% precision while the whole histogram stays a fixed-size array of counters.
+ *
+ * Recording is lock-free (a single atomic increment plus two adders), so it is safe to call from any number of
+ * request threads at once.
+ */
+public class LatencyHistogram {
+
+    /**
+     * Number of linear sub-buckets per power of two, expressed in bits (2^5 = 32 sub-buckets).
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    /**
+     * Values below this limit are counted exactly, one bucket per value.
+     */
+    private static final int LINEAR_LIMIT = SUB_BUCKET_COUNT * 2;
+    private static final int BUCKET_COUNT = (63 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalSum = new LongAdder();
+    private final LongAccumulator maxValue = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a single duration.
+     * @param nanos the duration in nanoseconds. Negative values are recorded as zero.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.increment();
+        totalSum.add(value);
+        maxValue.accumulate(value);
+    }
+
+    /**
+     * @return the number of values recorded so far.
+     */
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * @return the sum of all values recorded so far, in nanoseconds.
+     */
+    public long getSum() {
+        return totalSum.sum();
+    }
+
+    /**
+     * @return the largest value recorded so far, in nanoseconds.
+     */
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    /**
+     * @return the mean of all values recorded so far, in nanoseconds, or 0 if nothing was recorded.
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getSum() / count;
+    }
+
+    /**
+     * Returns the value at the given percentile, reported as the highest value that falls in the same bucket.
+     * @param percentile a percentile between 0 and 100, e.g. 99.9
+     * @return the value at that percentile in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = snapshotCounts();
+        long count = 0;
+        for (long c : snapshot) {
+            count += c;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return Math.min(highestValueInBucket(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Counts the recorded values that are less than or equal to the given value. Values that share a bucket with the
+     * limit are included, so the answer is accurate to the precision of the histogram.
+     * @param nanos the inclusive upper limit in nanoseconds.
+     * @return the number of recorded values at or below the limit.
+     */
+    public long getCountAtOrBelow(long nanos) {
+        if (nanos < 0) {
+            return 0;
+        }
+        int last = bucketIndex(nanos);
+        long count = 0;
+        for (int i = 0; i <= last; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Clears every recorded value.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        totalSum.reset();
+        maxValue.reset();
+    }
+
+    private long[] snapshotCounts() {
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    static long highestValueInBucket(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long mantissa = SUB_BUCKET_COUNT + (index & (SUB_BUCKET_COUNT - 1));
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
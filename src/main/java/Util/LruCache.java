@@ -0,0 +1,422 @@
+package Util;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * The LruCache class is a bounded, read-through cache with least-recently-used eviction. Each value has a weight
+ * (1 by default) and the least recently used entries are evicted once the total weight goes over the limit. Values
+ * can expire after a time-to-live, and "not found" results can be cached for a shorter time so repeated lookups of
+ * missing keys do not all reach the database.
+ *
+ * Loads run outside the lock. A load that overlaps with a put or invalidation of the same key is not stored, so a
+ * slow reader can never put back a value that a concurrent writer has just replaced, while writes to other keys do
+ * not keep loads from filling the cache.
+ */
+public class LruCache<K, V> {
+
+    private final long maxWeight;
+    private final ToIntFunction<V> weigher;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+    /**
+     * The keys with a load in flight. A write to one of them bumps its version; a load only stores its result if the
+     * version did not change meanwhile. Keys leave the map when their last load finishes.
+     */
+    private final HashMap<K, PendingLoad> pendingLoads = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param maxWeight the maximum total weight of all cached values.
+     * @param weigher computes the weight of a value; use value -> 1 to bound the number of entries.
+     * @param ttlMillis how long a value stays cached, 0 for no expiry.
+     * @param negativeTtlMillis how long a "not found" (null) result stays cached, 0 to never cache them.
+     */
+    public LruCache(long maxWeight, ToIntFunction<V> weigher, long ttlMillis, long negativeTtlMillis) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.ttlNanos = ttlMillis * 1_000_000;
+        this.negativeTtlNanos = negativeTtlMillis * 1_000_000;
+    }
+
+    /**
+     * Returns the cached value for the key, loading and caching it on a miss.
+     * @param key the key to look up.
+     * @param loader loads the value on a miss; may return null when the key does not exist.
+     * @return the cached or loaded value, or null if the key does not exist.
+     */
+    public V get(K key, Function<K, V> loader) {
+        long loadVersion;
+        lock.lock();
+        try {
+            Entry<V> entry = liveEntry(key);
+            if (entry != null) {
+                hits.increment();
+                return entry.value;
+            }
+            misses.increment();
+            loadVersion = startLoad(key);
+        } finally {
+            lock.unlock();
+        }
+
+        V value;
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            lock.lock();
+            try {
+                finishLoad(key);
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+
+        lock.lock();
+        try {
+            if (finishLoad(key) == loadVersion) {
+                store(key, value);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return value;
+    }
+
+    /**
+     * Returns the cached values for several keys, loading every missing key with a single call to the bulk loader.
+     * Keys the loader does not return are cached as "not found" (if negative caching is enabled).
+     * @param keys the keys to look up.
+     * @param bulkLoader loads the missing keys at once and returns the ones that exist.
+     * @return the values of the keys that exist; keys that do not exist are absent from the map.
+     */
+    public Map<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> bulkLoader) {
+        Map<K, V> found = new HashMap<>();
+        Map<K, Long> missing = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            for (K key : keys) {
+                Entry<V> entry = liveEntry(key);
+                if (entry == null) {
+                    misses.increment();
+                    if (!missing.containsKey(key)) {
+                        missing.put(key, startLoad(key));
+                    }
+                } else {
+                    hits.increment();
+                    if (entry.value != null) {
+                        found.put(key, entry.value);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        Map<K, V> loaded;
+        try {
+            loaded = bulkLoader.apply(missing.keySet());
+        } catch (RuntimeException | Error e) {
+            lock.lock();
+            try {
+                missing.keySet().forEach(this::finishLoad);
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+
+        lock.lock();
+        try {
+            for (Map.Entry<K, Long> load : missing.entrySet()) {
+                K key = load.getKey();
+                V value = loaded.get(key);
+                if (value != null) {
+                    found.put(key, value);
+                }
+                if (finishLoad(key) == load.getValue()) {
+                    store(key, value);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return found;
+    }
+
+    /**
+     * Stores a value, replacing any cached value for the key.
+     * @param key the key.
+     * @param value the value, or null to cache a "not found" result.
+     */
+    public void put(K key, V value) {
+        lock.lock();
+        try {
+            markWritten(key);
+            store(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the cached value for a key only if one is cached, e.g. to apply a write to a cached value in place
+     * instead of dropping it. The update function should return a new value rather than modify the cached one, since
+     * other threads may still be reading it.
+     * @param key the key.
+     * @param update receives the cached value and returns the new one, or null to remove the entry.
+     */
+    public void updateIfPresent(K key, Function<V, V> update) {
+        lock.lock();
+        try {
+            markWritten(key);
+            Entry<V> entry = liveEntry(key);
+            if (entry == null || entry.value == null) {
+                return;
+            }
+            V updated = update.apply(entry.value);
+            if (updated == null) {
+                remove(key);
+            } else {
+                store(key, updated);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a key from the cache.
+     * @param key the key to remove.
+     */
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            markWritten(key);
+            remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes every entry from the cache.
+     */
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            for (PendingLoad pending : pendingLoads.values()) {
+                pending.version++;
+            }
+            entries.clear();
+            totalWeight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return a snapshot of the cache size and hit, miss, eviction and expiration counters.
+     */
+    public Stats getStats() {
+        lock.lock();
+        try {
+            return new Stats(entries.size(), totalWeight, maxWeight, hits.sum(), misses.sum(), evictions.sum(),
+                    expirations.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Must be called while holding the lock. Registers a load of the key.
+     * @return the version of the key when the load started.
+     */
+    private long startLoad(K key) {
+        PendingLoad pending = pendingLoads.computeIfAbsent(key, k -> new PendingLoad());
+        pending.loaders++;
+        return pending.version;
+    }
+
+    /**
+     * Must be called while holding the lock, once for every startLoad().
+     * @return the version of the key now; the load may store its result if it is the one startLoad() returned.
+     */
+    private long finishLoad(K key) {
+        PendingLoad pending = pendingLoads.get(key);
+        if (--pending.loaders == 0) {
+            pendingLoads.remove(key);
+        }
+        return pending.version;
+    }
+
+    /**
+     * Must be called while holding the lock, by every write, so loads of the key in flight are not stored.
+     */
+    private void markWritten(K key) {
+        PendingLoad pending = pendingLoads.get(key);
+        if (pending != null) {
+            pending.version++;
+        }
+    }
+
+    /**
+     * Must be called while holding the lock. Drops the entry if it has expired.
+     */
+    private Entry<V> liveEntry(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtNanos != 0 && System.nanoTime() - entry.expiresAtNanos > 0) {
+            remove(key);
+            expirations.increment();
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Must be called while holding the lock.
+     */
+    private void store(K key, V value) {
+        long ttl = value == null ? negativeTtlNanos : ttlNanos;
+        if (value == null && ttl == 0) {
+            remove(key); // Negative caching disabled
+            return;
+        }
+        int weight = value == null ? 1 : Math.max(1, weigher.applyAsInt(value));
+        long expiresAt = ttl == 0 ? 0 : System.nanoTime() + ttl;
+        Entry<V> previous = entries.put(key, new Entry<>(value, weight, expiresAt));
+        if (previous != null) {
+            totalWeight -= previous.weight;
+        }
+        totalWeight += weight;
+
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (totalWeight > maxWeight && eldest.hasNext()) {
+            Map.Entry<K, Entry<V>> victim = eldest.next();
+            totalWeight -= victim.getValue().weight;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Must be called while holding the lock.
+     */
+    private void remove(K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            totalWeight -= removed.weight;
+        }
+    }
+
+    /**
+     * The loads of one key that are in flight, and how many writes to the key happened since the first of them began.
+     */
+    private static class PendingLoad {
+        private long version;
+        private int loaders;
+    }
+
+    /**
+     * A cached value. The value is null when the entry caches a "not found" result.
+     */
+    private static class Entry<V> {
+        private final V value;
+        private final int weight;
+        private final long expiresAtNanos;
+
+        private Entry(V value, int weight, long expiresAtNanos) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    /**
+     * A point-in-time snapshot of the cache counters, as returned by {@link #getStats()}.
+     */
+    public static class Stats {
+        private final int size;
+        private final long weight;
+        private final long maxWeight;
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final long expirationCount;
+
+        private Stats(int size, long weight, long maxWeight, long hitCount, long missCount, long evictionCount,
+                      long expirationCount) {
+            this.size = size;
+            this.weight = weight;
+            this.maxWeight = maxWeight;
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.expirationCount = expirationCount;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public long getWeight() {
+            return weight;
+        }
+
+        public long getMaxWeight() {
+            return maxWeight;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        public long getExpirationCount() {
+            return expirationCount;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "size=" + size +
+                    ", weight=" + weight +
+                    ", maxWeight=" + maxWeight +
+                    ", hitCount=" + hitCount +
+                    ", missCount=" + missCount +
+                    ", evictionCount=" + evictionCount +
+                    ", expirationCount=" + expirationCount +
+                    '}';
+        }
+    }
+}
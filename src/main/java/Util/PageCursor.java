@@ -0,0 +1,71 @@
+package Util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * The PageCursor class encodes and decodes the opaque cursors returned by the paginated list endpoints. A cursor
+ * remembers the sort order and the last message_id of the previous page, so the next page can be fetched with an
+ * indexed range scan (keyset pagination) instead of an OFFSET.
+ *
+ * Clients must treat the cursor as an opaque string; the format may change between versions.
+ */
+public class PageCursor {
+
+    private static final String VERSION = "v1";
+
+    private final int afterId;
+    private final boolean ascending;
+
+    public PageCursor(int afterId, boolean ascending) {
+        this.afterId = afterId;
+        this.ascending = ascending;
+    }
+
+    /**
+     * @return the message_id the next page starts after.
+     */
+    public int getAfterId() {
+        return afterId;
+    }
+
+    /**
+     * @return true if the pages are sorted by ascending message_id.
+     */
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    /**
+     * @return the opaque, URL-safe string form of this cursor.
+     */
+    public String encode() {
+        String raw = VERSION + ":" + (ascending ? "asc" : "desc") + ":" + afterId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @param cursor a string previously returned by {@link #encode()}.
+     * @return the decoded cursor, or null if the string is not a valid cursor.
+     */
+    public static PageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            String[] parts = raw.split(":");
+            if (parts.length != 3 || !parts[0].equals(VERSION)) {
+                return null;
+            }
+            boolean ascending;
+            if (parts[1].equals("asc")) {
+                ascending = true;
+            } else if (parts[1].equals("desc")) {
+                ascending = false;
+            } else {
+                return null;
+            }
+            return new PageCursor(Integer.parseInt(parts[2]), ascending);
+        } catch (IllegalArgumentException e) {
+            return null; // Not base64, or not a number
+        }
+    }
+}
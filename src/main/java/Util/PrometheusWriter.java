@@ -0,0 +1,125 @@
+package Util;
+
+import java.math.BigDecimal;
+
+/**
+ * The PrometheusWriter class builds a response in the Prometheus text exposition format (version 0.0.4). Each metric
+ * starts with {@link #header}, followed by one sample per label set. Labels are passed as alternating names and
+ * values; values are escaped here.
+ */
+public class PrometheusWriter {
+
+    /**
+     * Histogram bucket bounds, in seconds, used for every latency histogram.
+     */
+    private static final double[] LATENCY_BUCKETS = {
+            0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private final StringBuilder text = new StringBuilder(4096);
+
+    /**
+     * Writes the HELP and TYPE lines of a metric.
+     * @param type counter, gauge or histogram.
+     */
+    public PrometheusWriter header(String name, String help, String type) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    /**
+     * Writes a single sample.
+     * @param labels alternating label names and values, e.g. "cache", "messages".
+     */
+    public PrometheusWriter sample(String name, double value, String... labels) {
+        text.append(name);
+        appendLabels(labels, null);
+        text.append(' ').append(format(value)).append('\n');
+        return this;
+    }
+
+    /**
+     * Writes a header and a single sample, for the common case of a metric without labels.
+     */
+    public PrometheusWriter gauge(String name, String help, double value) {
+        return header(name, help, "gauge").sample(name, value);
+    }
+
+    /**
+     * Same as {@link #gauge}, for a counter. By convention the name ends in _total.
+     */
+    public PrometheusWriter counter(String name, String help, double value) {
+        return header(name, help, "counter").sample(name, value);
+    }
+
+    /**
+     * Writes the _bucket, _sum and _count samples of a latency histogram recorded in nanoseconds, converted to
+     * seconds. Bucket counts inherit the precision of the histogram: a value within about 3% of a bound may be
+     * counted in the bucket below it.
+     * @param labels alternating label names and values shared by every sample.
+     */
+    public PrometheusWriter histogram(String name, LatencyHistogram histogram, String... labels) {
+        long count = histogram.getCount();
+        for (double bound : LATENCY_BUCKETS) {
+            text.append(name).append("_bucket");
+            appendLabels(labels, format(bound));
+            text.append(' ').append(histogram.getCountAtOrBelow((long) (bound * 1e9))).append('\n');
+        }
+        text.append(name).append("_bucket");
+        appendLabels(labels, "+Inf");
+        text.append(' ').append(count).append('\n');
+        sample(name + "_sum", histogram.getSum() / 1e9, labels);
+        sample(name + "_count", count, labels);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return text.toString();
+    }
+
+    private void appendLabels(String[] labels, String le) {
+        if (labels.length == 0 && le == null) {
+            return;
+        }
+        text.append('{');
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(labels[i]).append("=\"");
+            escape(labels[i + 1]);
+            text.append('"');
+        }
+        if (le != null) {
+            if (labels.length > 0) {
+                text.append(',');
+            }
+            text.append("le=\"").append(le).append('"');
+        }
+        text.append('}');
+    }
+
+    private void escape(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                text.append('\\').append(c);
+            } else if (c == '\n') {
+                text.append("\\n");
+            } else {
+                text.append(c);
+            }
+        }
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return Double.isNaN(value) ? "NaN" : value > 0 ? "+Inf" : "-Inf";
+        }
+        return BigDecimal.valueOf(value).toPlainString();
+    }
+}
@@ -0,0 +1,511 @@
+package Util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * The QueryMonitor class wraps the connections handed out by {@link ConnectionUtil} so that every statement executed
+ * through them is timed. Statistics are kept per route and SQL shape: the execution time in a
+ * {@link LatencyHistogram} and the number of rows fetched or affected. Prepared statements are already one shape per
+ * SQL string; plain statements have their literals replaced by ? first.
+ *
+ * A statement slower than the threshold is written to the slow-query log (System.err and the last
+ * {@link #SLOW_LOG_SIZE} entries in memory) with its bind-parameter types and H2's plan. Plain SELECTs are explained
+ * with EXPLAIN ANALYZE, which runs the query again; anything that changes data (including SELECTs over OLD/NEW/FINAL
+ * TABLE) only gets EXPLAIN. Plans are captured at most once per planInterval for each SQL shape, so a query that is
+ * slow all the time is not run twice every time. They are captured on a background thread with a connection of their
+ * own, so the request that ran the slow statement does not wait for the plan; the plan therefore reflects committed
+ * data only, and is dropped when {@link #PLAN_QUEUE_SIZE} captures are already waiting.
+ *
+ * The route is the endpoint being served on the current thread, set by the controller with {@link #setRoute(String)};
+ * statements run outside a request (write-behind, migrations) are reported under "background".
+ */
+public class QueryMonitor {
+
+    private static final ThreadLocal<String> ROUTE = new ThreadLocal<>();
+    private static final String NO_ROUTE = "background";
+    private static final int SLOW_LOG_SIZE = 100;
+    private static final int PLAN_QUEUE_SIZE = 16;
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern DATA_CHANGE_DELTA_TABLE = Pattern.compile("\\b(OLD|NEW|FINAL)\\s+TABLE\\b");
+
+    private final long slowThresholdNanos;
+    private final long planIntervalNanos;
+    private final Map<Key, StatementStats> stats = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastPlanNanos = new ConcurrentHashMap<>();
+    private final ReentrantLock slowLogLock = new ReentrantLock();
+    private final ArrayDeque<SlowQuery> slowLog = new ArrayDeque<>();
+    private final Callable<Connection> planConnections;
+    private final ThreadPoolExecutor planExecutor;
+
+    /**
+     * @param slowThresholdMillis statements that take at least this long are logged with their plan.
+     * @param planIntervalMillis minimum time between two plan captures for the same SQL shape.
+     * @param planConnections opens the connection a plan is captured with; it is closed afterwards. It should not be
+     *                        a monitored connection, or the EXPLAIN would be timed too.
+     */
+    public QueryMonitor(long slowThresholdMillis, long planIntervalMillis, Callable<Connection> planConnections) {
+        this.slowThresholdNanos = slowThresholdMillis * 1_000_000;
+        this.planIntervalNanos = planIntervalMillis * 1_000_000;
+        this.planConnections = planConnections;
+        this.planExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(PLAN_QUEUE_SIZE), runnable -> {
+                    Thread thread = new Thread(runnable, "query-plan-capture");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Attributes the statements run by the current thread to a route, e.g. "GET /messages/{message_id}", until
+     * {@link #clearRoute()} is called.
+     */
+    public static void setRoute(String route) {
+        ROUTE.set(route);
+    }
+
+    public static void clearRoute() {
+        ROUTE.remove();
+    }
+
+    /**
+     * @return a connection that forwards everything to the given one and times the statements created through it.
+     */
+    public Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    /**
+     * @return the statistics of every route and statement seen so far.
+     */
+    public List<StatementStats> getStatementStats() {
+        return new ArrayList<>(stats.values());
+    }
+
+    /**
+     * @return the most recent slow statements, oldest first.
+     */
+    public List<SlowQuery> getSlowQueries() {
+        slowLogLock.lock();
+        try {
+            return new ArrayList<>(slowLog);
+        } finally {
+            slowLogLock.unlock();
+        }
+    }
+
+    /**
+     * Writes db_statement_seconds, db_statement_rows_total and db_statement_slow_total, labelled by route and
+     * statement.
+     */
+    public void writeTo(PrometheusWriter writer) {
+        List<StatementStats> sorted = getStatementStats();
+        sorted.sort(Comparator.comparing(StatementStats::getRoute).thenComparing(StatementStats::getSql));
+        writer.header("db_statement_seconds", "Time to execute JDBC statements.", "histogram");
+        for (StatementStats statement : sorted) {
+            writer.histogram("db_statement_seconds", statement.getTimes(),
+                    "route", statement.getRoute(), "statement", statement.getSql());
+        }
+        writer.header("db_statement_rows_total", "Rows fetched or affected by JDBC statements.", "counter");
+        for (StatementStats statement : sorted) {
+            writer.sample("db_statement_rows_total", statement.getRows(),
+                    "route", statement.getRoute(), "statement", statement.getSql());
+        }
+        writer.header("db_statement_slow_total", "JDBC statements slower than the slow-query threshold.", "counter");
+        for (StatementStats statement : sorted) {
+            writer.sample("db_statement_slow_total", statement.getSlowCount(),
+                    "route", statement.getRoute(), "statement", statement.getSql());
+        }
+    }
+
+    /**
+     * Replaces string and number literals with ? and collapses whitespace, so statements that differ only in their
+     * values share one entry.
+     */
+    static String shapeOf(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    /**
+     * @return true if running the statement again cannot change any data, so EXPLAIN ANALYZE is safe.
+     */
+    static boolean isPlainSelect(String sql) {
+        String upper = sql.trim().toUpperCase(Locale.ROOT);
+        return upper.startsWith("SELECT") && !DATA_CHANGE_DELTA_TABLE.matcher(upper).find();
+    }
+
+    private StatementStats statsFor(String sql) {
+        String route = ROUTE.get();
+        Key key = new Key(route == null ? NO_ROUTE : route, sql);
+        StatementStats statementStats = stats.get(key);
+        if (statementStats == null) {
+            statementStats = stats.computeIfAbsent(key, k -> new StatementStats(k.route, k.sql));
+        }
+        return statementStats;
+    }
+
+    private void recordSlow(StatementStats statementStats, String sql, Object[] parameters, String[] parameterTypes,
+            long elapsedNanos) {
+        statementStats.slowCount.increment();
+        SlowQuery slowQuery = new SlowQuery(statementStats.getRoute(), statementStats.getSql(),
+                new ArrayList<>(Arrays.asList(parameterTypes)), elapsedNanos, System.currentTimeMillis());
+        if (shouldCapturePlan(statementStats.getSql())) {
+            Object[] values = parameters.clone();
+            try {
+                planExecutor.execute(() -> {
+                    slowQuery.plan.complete(capturePlan(sql, values));
+                    System.err.println("Plan of the slow query on " + slowQuery.getRoute() + ": " + slowQuery.getSql()
+                            + "\n" + slowQuery.getPlan());
+                });
+            } catch (RejectedExecutionException e) {
+                slowQuery.plan.complete("Plan unavailable: too many plans waiting to be captured");
+            }
+        } else {
+            slowQuery.plan.complete(null);
+        }
+        slowLogLock.lock();
+        try {
+            if (slowLog.size() == SLOW_LOG_SIZE) {
+                slowLog.removeFirst();
+            }
+            slowLog.addLast(slowQuery);
+        } finally {
+            slowLogLock.unlock();
+        }
+        System.err.println(slowQuery);
+    }
+
+    private boolean shouldCapturePlan(String shape) {
+        long now = System.nanoTime();
+        Long last = lastPlanNanos.get(shape);
+        if (last != null && now - last < planIntervalNanos) {
+            return false;
+        }
+        // Only the thread that wins the update captures the plan
+        return last == null ? lastPlanNanos.putIfAbsent(shape, now) == null : lastPlanNanos.replace(shape, last, now);
+    }
+
+    private String capturePlan(String sql, Object[] parameters) {
+        String explain = (isPlainSelect(sql) ? "EXPLAIN ANALYZE " : "EXPLAIN ") + sql;
+        try (Connection connection = planConnections.call();
+             PreparedStatement ps = connection.prepareStatement(explain)) {
+            for (int i = 0; i < parameters.length; i++) {
+                ps.setObject(i + 1, parameters[i]);
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+            return plan.toString().trim();
+        } catch (Exception e) {
+            return "Plan unavailable: " + e.getMessage();
+        }
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Wraps every statement the connection creates. Everything else goes straight to the connection.
+     */
+    private class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        private ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "MonitoredConnection[" + target + "]";
+                case "prepareStatement":
+                case "prepareCall":
+                case "createStatement":
+                    Statement statement = (Statement) invokeTarget(target, method, args);
+                    String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                    Class<?> type = method.getName().equals("prepareCall") ? CallableStatement.class
+                            : sql != null ? PreparedStatement.class : Statement.class;
+                    return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{type},
+                            new StatementHandler(statement, sql));
+                default:
+                    return invokeTarget(target, method, args);
+            }
+        }
+    }
+
+    /**
+     * Remembers the bind parameters of a statement and times its execute methods.
+     */
+    private class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        /**
+         * The SQL the statement was prepared with, or null for a plain statement.
+         */
+        private final String preparedSql;
+        private final String preparedShape;
+        private Object[] parameters = new Object[0];
+        private String[] parameterTypes = new String[0];
+        private StatementStats lastStats;
+
+        private StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+            this.preparedShape = preparedSql == null ? null : WHITESPACE.matcher(preparedSql).replaceAll(" ").trim();
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer
+                    && preparedSql != null) {
+                rememberParameter((Integer) args[0], name, args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters = new Object[0];
+                parameterTypes = new String[0];
+            } else if (name.equals("getResultSet")) {
+                ResultSet resultSet = (ResultSet) invokeTarget(target, method, args);
+                return resultSet == null || lastStats == null ? resultSet : countRows(resultSet, lastStats);
+            } else if (name.equals("equals")) {
+                return proxy == args[0];
+            } else if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            return invokeTarget(target, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            if (sql == null) {
+                // executeBatch of a plain statement: the batch was built from several SQL strings
+                return invokeTarget(target, method, args);
+            }
+            String shape = sql == preparedSql ? preparedShape : shapeOf(sql);
+            long start = System.nanoTime();
+            Object result = invokeTarget(target, method, args);
+            long elapsed = System.nanoTime() - start;
+
+            StatementStats statementStats = statsFor(shape);
+            lastStats = statementStats;
+            statementStats.times.record(elapsed);
+            if (result instanceof Number) {
+                statementStats.rows.add(Math.max(0, ((Number) result).longValue()));
+            } else if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    statementStats.rows.add(Math.max(0, count));
+                }
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result) {
+                    statementStats.rows.add(Math.max(0, count));
+                }
+            } else if (result instanceof ResultSet) {
+                result = countRows((ResultSet) result, statementStats);
+            }
+            if (elapsed >= slowThresholdNanos) {
+                Object[] values = sql == preparedSql ? parameters : new Object[0];
+                String[] types = sql == preparedSql ? parameterTypes : new String[0];
+                recordSlow(statementStats, sql, values, types, elapsed);
+            }
+            return result;
+        }
+
+        private void rememberParameter(int index, String setter, Object value) {
+            if (index > parameters.length) {
+                parameters = Arrays.copyOf(parameters, index);
+                parameterTypes = Arrays.copyOf(parameterTypes, index);
+            }
+            String type = setter.substring(3).toUpperCase(Locale.ROOT);
+            if (setter.equals("setNull")) {
+                value = null;
+            } else if (setter.equals("setObject") && value != null) {
+                type = value.getClass().getSimpleName();
+            }
+            parameters[index - 1] = value;
+            parameterTypes[index - 1] = type;
+        }
+    }
+
+    /**
+     * Counts the rows a caller reads from a result set.
+     */
+    private static ResultSet countRows(ResultSet resultSet, StatementStats statementStats) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    Object result = invokeTarget(resultSet, method, args);
+                    if (Boolean.TRUE.equals(result) && method.getName().equals("next")) {
+                        statementStats.rows.increment();
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * Execution times and row counts of one SQL shape on one route.
+     */
+    public static class StatementStats {
+        private final String route;
+        private final String sql;
+        private final LatencyHistogram times = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder slowCount = new LongAdder();
+
+        private StatementStats(String route, String sql) {
+            this.route = route;
+            this.sql = sql;
+        }
+
+        public String getRoute() {
+            return route;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public LatencyHistogram getTimes() {
+            return times;
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+
+        public long getSlowCount() {
+            return slowCount.sum();
+        }
+    }
+
+    /**
+     * One entry of the slow-query log.
+     */
+    public static class SlowQuery {
+        private final String route;
+        private final String sql;
+        private final List<String> parameterTypes;
+        private final long elapsedNanos;
+        private final CompletableFuture<String> plan = new CompletableFuture<>();
+        private final long timestamp;
+
+        private SlowQuery(String route, String sql, List<String> parameterTypes, long elapsedNanos, long timestamp) {
+            this.route = route;
+            this.sql = sql;
+            this.parameterTypes = Collections.unmodifiableList(parameterTypes);
+            this.elapsedNanos = elapsedNanos;
+            this.timestamp = timestamp;
+        }
+
+        public String getRoute() {
+            return route;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public List<String> getParameterTypes() {
+            return parameterTypes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return the EXPLAIN (ANALYZE) output, or null if it is still being captured or a plan for the same SQL was
+         *         captured recently.
+         */
+        public String getPlan() {
+            return plan.getNow(null);
+        }
+
+        /**
+         * @return completes with the value of {@link #getPlan()} once the plan has been captured or skipped.
+         */
+        public CompletableFuture<String> planCaptured() {
+            return plan;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String toString() {
+            String captured = getPlan();
+            return "Slow query (" + elapsedNanos / 1_000_000 + " ms) on " + route + ": " + sql + " " + parameterTypes
+                    + (captured == null ? "" : "\n" + captured);
+        }
+    }
+
+    private static final class Key {
+        private final String route;
+        private final String sql;
+
+        Key(String route, String sql) {
+            this.route = route;
+            this.sql = sql;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return route.equals(other.route) && sql.equals(other.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return route.hashCode() * 31 + sql.hashCode();
+        }
+    }
+}
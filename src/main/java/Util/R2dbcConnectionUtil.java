@@ -0,0 +1,60 @@
+package Util;
+
+import java.time.Duration;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+
+/**
+ * The R2dbcConnectionUtil class provides the reactive connection factory used when -Ddao.engine=r2dbc. It opens the
+ * same H2 database as {@link ConnectionUtil} (db.url), through the H2 R2DBC driver and an R2DBC connection pool.
+ * The pool is created on first use, so the JDBC engine never starts it. It can be tuned with the r2dbc.pool.minSize,
+ * r2dbc.pool.maxSize and r2dbc.pool.acquireTimeoutMs system properties.
+ */
+public class R2dbcConnectionUtil {
+
+    private static final String JDBC_PREFIX = "jdbc:h2:";
+
+    /**
+     * Lazy holder, so the pool only exists once something asks for it.
+     */
+    private static class Holder {
+        private static final io.r2dbc.pool.ConnectionPool POOL = createPool();
+    }
+
+    /**
+     * @return the pooled connection factory. Closing a connection returns it to the pool.
+     */
+    public static ConnectionFactory getConnectionFactory() {
+        return Holder.POOL;
+    }
+
+    private static io.r2dbc.pool.ConnectionPool createPool() {
+        H2ConnectionConfiguration configuration = H2ConnectionConfiguration.builder()
+                .url(toR2dbcUrl(ConnectionUtil.getUrl()))
+                .username(ConnectionUtil.getUsername())
+                .password(ConnectionUtil.getPassword())
+                .build();
+        ConnectionPoolConfiguration poolConfiguration = ConnectionPoolConfiguration
+                .builder(new H2ConnectionFactory(configuration))
+                .name("r2dbc-h2")
+                .initialSize(Integer.getInteger("r2dbc.pool.minSize", 2))
+                .maxSize(Integer.getInteger("r2dbc.pool.maxSize", 10))
+                .maxAcquireTime(Duration.ofMillis(Long.getLong("r2dbc.pool.acquireTimeoutMs", 5000)))
+                .build();
+        return new io.r2dbc.pool.ConnectionPool(poolConfiguration);
+    }
+
+    /**
+     * The H2 R2DBC driver wants the part of the JDBC url after "jdbc:h2:", without trailing separators.
+     */
+    private static String toR2dbcUrl(String jdbcUrl) {
+        String url = jdbcUrl.startsWith(JDBC_PREFIX) ? jdbcUrl.substring(JDBC_PREFIX.length()) : jdbcUrl;
+        while (url.endsWith(";")) {
+            url = url.substring(0, url.length() - 1);
+        }
+        return url;
+    }
+}
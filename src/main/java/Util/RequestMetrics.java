@@ -0,0 +1,87 @@
+package Util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The RequestMetrics class keeps one {@link LatencyHistogram} per HTTP method, route and status code. Recording a
+ * request is a map lookup plus the histogram's lock-free update, so it adds well under a microsecond to a request;
+ * the histogram for a new combination is created on its first request.
+ */
+public class RequestMetrics {
+
+    private final Map<Key, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Records one handled request.
+     * @param method the HTTP method, e.g. GET.
+     * @param route the route pattern the request matched, e.g. /messages/{message_id}, so every message id shares
+     *              one histogram.
+     * @param status the response status code.
+     * @param nanos how long the request took.
+     */
+    public void record(String method, String route, int status, long nanos) {
+        Key key = new Key(method, route, status);
+        LatencyHistogram histogram = histograms.get(key);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(key, k -> new LatencyHistogram());
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * @return the histogram of the given combination, or null if no such request was recorded.
+     */
+    public LatencyHistogram getHistogram(String method, String route, int status) {
+        return histograms.get(new Key(method, route, status));
+    }
+
+    /**
+     * Writes every histogram as http_server_requests_seconds, labelled by method, route and status, sorted so the
+     * output is stable between scrapes.
+     */
+    public void writeTo(PrometheusWriter writer) {
+        List<Map.Entry<Key, LatencyHistogram>> entries = new ArrayList<>(histograms.entrySet());
+        entries.sort(Map.Entry.comparingByKey(Comparator.comparing((Key key) -> key.route)
+                .thenComparing(key -> key.method)
+                .thenComparingInt(key -> key.status)));
+        writer.header("http_server_requests_seconds", "Time to handle HTTP requests.", "histogram");
+        for (Map.Entry<Key, LatencyHistogram> entry : entries) {
+            Key key = entry.getKey();
+            writer.histogram("http_server_requests_seconds", entry.getValue(),
+                    "method", key.method, "route", key.route, "status", Integer.toString(key.status));
+        }
+    }
+
+    private static final class Key {
+        private final String method;
+        private final String route;
+        private final int status;
+
+        Key(String method, String route, int status) {
+            this.method = method;
+            this.route = route;
+            this.status = status;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return status == other.status && method.equals(other.method) && route.equals(other.route);
+        }
+
+        @Override
+        public int hashCode() {
+            return (method.hashCode() * 31 + route.hashCode()) * 31 + status;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package Util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.h2.tools.RunScript;
+
+/**
+ * The SchemaMigrator class brings the database schema up to date by applying versioned, forward-only migration
+ * scripts from src/main/resources/db/migration. Every applied version is recorded in the schema_version table, so
+ * each script runs exactly once per database and existing data is never dropped.
+ *
+ * To change the schema, add a new script with the next version number and append it to {@link #MIGRATIONS}. Never
+ * edit a script that has already been released.
+ */
+public class SchemaMigrator {
+
+    /**
+     * Every migration script, in version order. The version is the number between the leading V and the double
+     * underscore.
+     */
+    private static final String[] MIGRATIONS = {
+            "V1__baseline.sql",
+            "V2__message_posted_by_index.sql",
+            "V3__message_time_posted_index.sql",
+            "V4__drop_message_time_posted_index.sql"
+    };
+
+    private static final String MIGRATION_PATH = "/db/migration/";
+
+    /**
+     * Serializes concurrent migrations. A lock rather than synchronized, so a virtual thread waiting here or running
+     * the scripts does not pin its carrier thread.
+     */
+    private static final ReentrantLock LOCK = new ReentrantLock();
+
+    /**
+     * Applies every migration that has not been applied to the database yet.
+     * @return the number of migrations that were applied, or -1 if migrating failed.
+     */
+    public static int migrate() {
+        LOCK.lock();
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            Statement statement = connection.createStatement();
+            statement.execute("CREATE TABLE IF NOT EXISTS schema_version ("
+                    + "version INT PRIMARY KEY, "
+                    + "script VARCHAR(255) NOT NULL, "
+                    + "installed_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+
+            int currentVersion = getCurrentVersion(connection);
+            int applied = 0;
+            for (String script : MIGRATIONS) {
+                int version = versionOf(script);
+                if (version <= currentVersion) {
+                    continue;
+                }
+                apply(connection, version, script);
+                applied++;
+            }
+            return applied;
+        } catch (SQLException | IOException e) {
+            System.err.println("Schema migration failed: " + e.getMessage());
+            return -1;
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    /**
+     * @return the highest version recorded in schema_version, or 0 if no migration has been applied.
+     */
+    private static int getCurrentVersion(Connection connection) throws SQLException {
+        ResultSet rs = connection.createStatement().executeQuery("SELECT MAX(version) FROM schema_version");
+        return rs.next() ? rs.getInt(1) : 0;
+    }
+
+    private static void apply(Connection connection, int version, String script) throws SQLException, IOException {
+        InputStream in = SchemaMigrator.class.getResourceAsStream(MIGRATION_PATH + script);
+        if (in == null) {
+            throw new IOException("Migration script not found: " + script);
+        }
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            RunScript.execute(connection, reader);
+            PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO schema_version (version, script) VALUES (?, ?)");
+            ps.setInt(1, version);
+            ps.setString(2, script);
+            ps.executeUpdate();
+            connection.commit();
+        } catch (SQLException | IOException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static int versionOf(String script) {
+        return Integer.parseInt(script.substring(1, script.indexOf("__")));
+    }
+}
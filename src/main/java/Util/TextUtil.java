@@ -0,0 +1,40 @@
+package Util;
+
+/**
+ * The TextUtil class checks user-supplied text without allocating.
+ */
+public class TextUtil {
+
+    private TextUtil() {
+    }
+
+    /**
+     * Same as {@code text.trim().isEmpty()}, without creating the trimmed copy.
+     * @param text the text to check, not null.
+     * @return true if the text is empty or only has whitespace and control characters.
+     */
+    public static boolean isBlank(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Same as {@link #isBlank(CharSequence)}, for text that is still in a character buffer.
+     * @param characters the buffer.
+     * @param offset the index of the first character of the text.
+     * @param length the number of characters in the text.
+     * @return true if the text is empty or only has whitespace and control characters.
+     */
+    public static boolean isBlank(char[] characters, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (characters[i] > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
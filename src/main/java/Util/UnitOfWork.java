@@ -0,0 +1,142 @@
+package Util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The UnitOfWork class binds one pooled connection and one transaction to the current thread for the duration of a
+ * service call. While a unit of work is active, {@link ConnectionUtil#getConnection()} returns the shared connection,
+ * so every DAO method called inside it uses the same connection and sees the same transaction, without the DAOs having
+ * to know about it. Closing the shared connection inside a DAO is a no-op; the unit of work returns it to the pool when
+ * it finishes.
+ *
+ * Units of work nest: calling {@link #execute(Supplier)} while one is already active simply joins it.
+ *
+ * Only writes run in a unit of work. Every read path makes a single DAO call, so it already uses one connection,
+ * and scoping the whole request would keep that connection borrowed while the response is serialized and written.
+ */
+public class UnitOfWork {
+
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private final Connection connection;
+    private final Connection sharedHandle;
+    private boolean rollbackOnly;
+    private final List<Runnable> afterCommit = new ArrayList<>();
+
+    private UnitOfWork(Connection connection) {
+        this.connection = connection;
+        this.sharedHandle = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Runs the given work inside a transaction. The work is committed when it returns normally and rolled back if it
+     * throws or calls {@link #setRollbackOnly()}.
+     * @param work the service logic to run. Any DAO call made inside it shares the same connection.
+     * @return whatever the work returned.
+     * @throws UnitOfWorkException if the transaction could not be committed; it has been rolled back.
+     */
+    public static <T> T execute(Supplier<T> work) {
+        if (CURRENT.get() != null) {
+            return work.get();
+        }
+
+        Connection connection = ConnectionUtil.borrowConnection();
+        if (connection == null) {
+            // Pool exhausted or database unavailable, let the DAOs report their own errors.
+            return work.get();
+        }
+
+        UnitOfWork unitOfWork = new UnitOfWork(connection);
+        CURRENT.set(unitOfWork);
+        try {
+            connection.setAutoCommit(false);
+            T result = work.get();
+            if (unitOfWork.rollbackOnly) {
+                connection.rollback();
+            } else {
+                connection.commit();
+                unitOfWork.afterCommit.forEach(Runnable::run);
+            }
+            return result;
+        } catch (SQLException e) {
+            System.err.println("SQL Exception while completing unit of work: " + e.getMessage());
+            unitOfWork.rollbackQuietly();
+            throw new UnitOfWorkException("Unit of work could not be committed", e);
+        } catch (RuntimeException | Error e) {
+            unitOfWork.rollbackQuietly();
+            throw e;
+        } finally {
+            CURRENT.remove();
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                System.err.println("SQL Exception while releasing unit of work connection: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Marks the active unit of work so that it is rolled back instead of committed. Does nothing when called outside
+     * a unit of work.
+     */
+    public static void setRollbackOnly() {
+        UnitOfWork current = CURRENT.get();
+        if (current != null) {
+            current.rollbackOnly = true;
+        }
+    }
+
+    /**
+     * Runs the given action once the active unit of work has committed, or right away when called outside a unit of
+     * work (the statement has then already been auto-committed). Nothing runs if the unit of work is rolled back, so
+     * in-memory state updated this way never reflects a write that did not happen.
+     * @param action the action to run after the commit.
+     */
+    public static void afterCommit(Runnable action) {
+        UnitOfWork current = CURRENT.get();
+        if (current == null) {
+            action.run();
+        } else {
+            current.afterCommit.add(action);
+        }
+    }
+
+    /**
+     * @return true if the calling thread is currently inside a unit of work.
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * @return the shared connection of the active unit of work, or null if there is none.
+     */
+    static Connection currentConnection() {
+        UnitOfWork current = CURRENT.get();
+        return current == null ? null : current.sharedHandle;
+    }
+
+    private void rollbackQuietly() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            System.err.println("SQL Exception during unit of work rollback: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package Util;
+
+/**
+ * Thrown by {@link UnitOfWork#execute} when the transaction could not be committed, so a failed write is not
+ * mistaken for a lookup that found nothing. The controller leaves it to Javalin, which answers 500 Internal Server
+ * Error.
+ */
+public class UnitOfWorkException extends RuntimeException {
+
+    public UnitOfWorkException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,3 +1,6 @@
+-- Test fixture only: drops and recreates the schema, then seeds it. Production schemas are managed by
+-- Util.SchemaMigrator with the scripts in db/migration.
+drop table if exists schema_version;
 drop table if exists message;
 drop table if exists account;
 create table account (
@@ -0,0 +1,2 @@
+-- Per-account timelines: equality on posted_by, then ordered and ranged by message_id (keyset pagination).
+create index if not exists idx_message_posted_by_id on message (posted_by, message_id);
@@ -0,0 +1,2 @@
+-- Time-range queries over time_posted_epoch.
+create index if not exists idx_message_time_posted on message (time_posted_epoch);
@@ -0,0 +1,2 @@
+-- No query reads message by time_posted_epoch, so the index from V3 only added cost to every insert.
+drop index if exists idx_message_time_posted;
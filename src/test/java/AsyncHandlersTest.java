@@ -0,0 +1,127 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Controller.SocialMediaController;
+import Model.Message;
+import Util.ConnectionUtil;
+import Util.JdbcExecutor;
+import io.javalin.Javalin;
+
+/**
+ * Runs the endpoints with -Dserver.asyncHandlers=true, so every handler runs on the JDBC executor through ctx.future.
+ */
+public class AsyncHandlersTest {
+    SocialMediaController socialMediaController;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+    Javalin app;
+
+    /**
+     * Before every test, enable async handlers, reset the database, restart the Javalin app, and create a new
+     * webClient and ObjectMapper for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @Before
+    public void setUp() throws InterruptedException {
+        System.setProperty("server.asyncHandlers", "true");
+        ConnectionUtil.resetTestDatabase();
+        socialMediaController = new SocialMediaController();
+        app = socialMediaController.startAPI();
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        app.start(8080);
+        Thread.sleep(1000);
+    }
+
+    @After
+    public void tearDown() {
+        app.stop();
+        System.clearProperty("server.asyncHandlers");
+    }
+
+    /**
+     * Sending http requests to POST localhost:8080/messages, GET localhost:8080/messages/2, a missing message and
+     * the streamed timeline of user 1
+     *
+     * Expected Response:
+     *  The same statuses and bodies as in synchronous mode, with every request queued through the JDBC executor
+     */
+    @Test
+    public void handlersRunOnJdbcExecutor() throws IOException, InterruptedException {
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString("{"+
+                        "\"posted_by\":1, " +
+                        "\"message_text\": \"hello message\", " +
+                        "\"time_posted_epoch\": 1669947792}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> postResponse = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(200, postResponse.statusCode());
+        Message expected = new Message(2, 1, "hello message", 1669947792);
+        Assert.assertEquals(expected, objectMapper.readValue(postResponse.body(), Message.class));
+
+        HttpResponse<String> getResponse = get("http://localhost:8080/messages/2");
+        Assert.assertEquals(200, getResponse.statusCode());
+        Assert.assertEquals(expected, objectMapper.readValue(getResponse.body(), Message.class));
+
+        HttpResponse<String> missingResponse = get("http://localhost:8080/messages/100");
+        Assert.assertEquals(200, missingResponse.statusCode());
+        Assert.assertTrue(missingResponse.body().isEmpty());
+
+        HttpResponse<String> streamResponse = get("http://localhost:8080/accounts/1/messages?stream=true");
+        Assert.assertEquals(200, streamResponse.statusCode());
+        List<Message> timeline = objectMapper.readValue(streamResponse.body(), new TypeReference<List<Message>>(){});
+        Assert.assertEquals(2, timeline.size());
+
+        JdbcExecutor.Stats stats = socialMediaController.getJdbcExecutorStats();
+        Assert.assertEquals(4, stats.getWaitTimes().getCount());
+    }
+
+    /**
+     * A full executor queue must fail new tasks with RejectedExecutionException instead of blocking the caller.
+     */
+    @Test
+    public void fullQueueRejectsTasks() throws InterruptedException {
+        JdbcExecutor executor = new JdbcExecutor(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> running = executor.submit(() -> {
+            release.await();
+            return 1;
+        });
+        CompletableFuture<Integer> queued = executor.submit(() -> 2);
+        CompletableFuture<Integer> rejected = executor.submit(() -> 3);
+
+        CompletionException failure = Assert.assertThrows(CompletionException.class, rejected::join);
+        Assert.assertTrue(failure.getCause() instanceof RejectedExecutionException);
+        Assert.assertEquals(1, executor.getStats().getRejectedCount());
+
+        release.countDown();
+        Assert.assertEquals(Integer.valueOf(1), running.join());
+        Assert.assertEquals(Integer.valueOf(2), queued.join());
+        executor.shutdown();
+    }
+
+    private HttpResponse<String> get(String uri) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(uri))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
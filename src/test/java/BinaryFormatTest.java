@@ -0,0 +1,162 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Controller.MediaFormat;
+import Controller.SocialMediaController;
+import Model.Account;
+import Model.Message;
+import Util.ConnectionUtil;
+import io.javalin.Javalin;
+
+/**
+ * Checks the CBOR and Smile content negotiation of the message and account endpoints.
+ */
+public class BinaryFormatTest {
+    SocialMediaController socialMediaController;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+    Javalin app;
+
+    /**
+     * Before every test, reset the database, restart the Javalin app, and create a new webClient and ObjectMapper.
+     * @throws InterruptedException
+     */
+    @Before
+    public void setUp() throws InterruptedException {
+        ConnectionUtil.resetTestDatabase();
+        socialMediaController = new SocialMediaController();
+        app = socialMediaController.startAPI();
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        app.start(8080);
+        Thread.sleep(1000);
+    }
+
+    @After
+    public void tearDown() {
+        app.stop();
+    }
+
+    /**
+     * Sending a CBOR body to POST localhost:8080/messages with Accept: application/cbor
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the created message, in CBOR
+     */
+    @Test
+    public void createMessageInCbor() throws IOException, InterruptedException {
+        MediaFormat cbor = MediaFormat.CBOR;
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(
+                        cbor.getMapper().writeValueAsBytes(new Message(1, "binary message", 1669947792L))))
+                .header("Content-Type", cbor.getContentType())
+                .header("Accept", cbor.getContentType())
+                .build();
+
+        HttpResponse<byte[]> response = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofByteArray());
+
+        Assert.assertEquals(200, response.statusCode());
+        Assert.assertEquals(cbor.getContentType(), response.headers().firstValue("Content-Type").orElse(""));
+        Assert.assertEquals(new Message(2, 1, "binary message", 1669947792L),
+                cbor.getMapper().readValue(response.body(), Message.class));
+    }
+
+    /**
+     * Sending GET localhost:8080/messages with Accept: application/x-jackson-smile, then again with its ETag
+     *
+     * Expected Response:
+     *  Status Code: 200 with the same messages as the JSON response, then 304
+     */
+    @Test
+    public void listMessagesInSmile() throws IOException, InterruptedException {
+        MediaFormat smile = MediaFormat.SMILE;
+        HttpResponse<byte[]> json = get("http://localhost:8080/messages", null, null);
+        HttpResponse<byte[]> response = get("http://localhost:8080/messages", smile.getContentType(), null);
+
+        Assert.assertEquals(200, response.statusCode());
+        Assert.assertEquals(smile.getContentType(), response.headers().firstValue("Content-Type").orElse(""));
+        List<Message> expected = Arrays.asList(objectMapper.readValue(json.body(), Message[].class));
+        Assert.assertEquals(expected, Arrays.asList(smile.getMapper().readValue(response.body(), Message[].class)));
+        String etag = response.headers().firstValue("ETag").orElseThrow();
+        Assert.assertNotEquals(json.headers().firstValue("ETag").orElseThrow(), etag);
+
+        Assert.assertEquals(304, get("http://localhost:8080/messages", smile.getContentType(), etag).statusCode());
+        Assert.assertEquals(200, get("http://localhost:8080/messages", null, etag).statusCode());
+    }
+
+    /**
+     * Sending a Smile body to POST localhost:8080/login with Accept: application/cbor, application/json;q=0.5
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the account, in CBOR
+     */
+    @Test
+    public void loginWithSmileBodyAndCborResponse() throws IOException, InterruptedException {
+        HttpRequest loginRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/login"))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(
+                        MediaFormat.SMILE.getMapper().writeValueAsBytes(new Account("testuser1", "password"))))
+                .header("Content-Type", MediaFormat.SMILE.getContentType())
+                .header("Accept", "application/cbor, application/json;q=0.5")
+                .build();
+
+        HttpResponse<byte[]> response = webClient.send(loginRequest, HttpResponse.BodyHandlers.ofByteArray());
+
+        Assert.assertEquals(200, response.statusCode());
+        Assert.assertEquals(new Account(1, "testuser1", "password"),
+                MediaFormat.CBOR.getMapper().readValue(response.body(), Account.class));
+    }
+
+    /**
+     * Sending GET and DELETE localhost:8080/messages/100 with Accept: application/cbor for a message that does not
+     * exist
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: empty, with the CBOR content type
+     */
+    @Test
+    public void missingMessageHasNegotiatedContentType() throws IOException, InterruptedException {
+        MediaFormat cbor = MediaFormat.CBOR;
+        HttpResponse<byte[]> getResponse = get("http://localhost:8080/messages/100", cbor.getContentType(), null);
+        HttpRequest deleteRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/100"))
+                .DELETE()
+                .header("Accept", cbor.getContentType())
+                .build();
+        HttpResponse<byte[]> deleteResponse = webClient.send(deleteRequest, HttpResponse.BodyHandlers.ofByteArray());
+
+        for (HttpResponse<byte[]> response : Arrays.asList(getResponse, deleteResponse)) {
+            Assert.assertEquals(200, response.statusCode());
+            Assert.assertEquals(cbor.getContentType(), response.headers().firstValue("Content-Type").orElse(""));
+            Assert.assertEquals(0, response.body().length);
+        }
+    }
+
+    private HttpResponse<byte[]> get(String uri, String accept, String ifNoneMatch)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder().uri(URI.create(uri));
+        if (accept != null) {
+            builder.header("Accept", accept);
+        }
+        if (ifNoneMatch != null) {
+            builder.header("If-None-Match", ifNoneMatch);
+        }
+        return webClient.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
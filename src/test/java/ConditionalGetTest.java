@@ -0,0 +1,214 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import Controller.SocialMediaController;
+import Model.Message;
+import Service.MessageService;
+import Util.ConnectionUtil;
+import io.javalin.Javalin;
+
+/**
+ * Checks the ETag and If-None-Match handling of GET /messages and GET /accounts/{account_id}/messages.
+ */
+public class ConditionalGetTest {
+    SocialMediaController socialMediaController;
+    HttpClient webClient;
+    Javalin app;
+
+    /**
+     * Before every test, reset the database, restart the Javalin app, and create a new webClient.
+     * @throws InterruptedException
+     */
+    @Before
+    public void setUp() throws InterruptedException {
+        ConnectionUtil.resetTestDatabase();
+        socialMediaController = new SocialMediaController();
+        app = socialMediaController.startAPI();
+        webClient = HttpClient.newHttpClient();
+        app.start(8080);
+        Thread.sleep(1000);
+    }
+
+    @After
+    public void tearDown() {
+        app.stop();
+    }
+
+    /**
+     * Sending GET localhost:8080/messages again with the ETag of the first response
+     *
+     * Expected Response:
+     *  Status Code: 304
+     *  Response Body: empty
+     */
+    @Test
+    public void unchangedListReturnsNotModified() throws IOException, InterruptedException {
+        HttpResponse<String> first = get("http://localhost:8080/messages", null);
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+        Assert.assertEquals(200, first.statusCode());
+        Assert.assertTrue(etag.startsWith("\""));
+
+        HttpResponse<String> second = get("http://localhost:8080/messages", etag);
+
+        Assert.assertEquals(304, second.statusCode());
+        Assert.assertEquals("", second.body());
+        Assert.assertEquals(etag, second.headers().firstValue("ETag").orElseThrow());
+    }
+
+    /**
+     * After POST localhost:8080/messages, the old ETag no longer matches and the full list is sent again.
+     */
+    @Test
+    public void writeChangesTheETag() throws IOException, InterruptedException {
+        String etag = get("http://localhost:8080/messages", null).headers().firstValue("ETag").orElseThrow();
+
+        Assert.assertEquals(200, post("http://localhost:8080/messages",
+                "{\"posted_by\":1,\"message_text\":\"new message\",\"time_posted_epoch\":1669947792}").statusCode());
+        HttpResponse<String> response = get("http://localhost:8080/messages", etag);
+
+        Assert.assertEquals(200, response.statusCode());
+        Assert.assertTrue(response.body().contains("new message"));
+        Assert.assertNotEquals(etag, response.headers().firstValue("ETag").orElseThrow());
+    }
+
+    /**
+     * A message posted by one account changes that account's ETag but not the ETag of another account.
+     */
+    @Test
+    public void accountETagOnlyChangesForItsOwnMessages() throws IOException, InterruptedException {
+        Assert.assertEquals(200, post("http://localhost:8080/register",
+                "{\"username\":\"testuser2\",\"password\":\"password\"}").statusCode());
+        String author = get("http://localhost:8080/accounts/1/messages", null)
+                .headers().firstValue("ETag").orElseThrow();
+        String other = get("http://localhost:8080/accounts/2/messages", null)
+                .headers().firstValue("ETag").orElseThrow();
+
+        post("http://localhost:8080/messages",
+                "{\"posted_by\":1,\"message_text\":\"new message\",\"time_posted_epoch\":1669947792}");
+
+        Assert.assertEquals(200, get("http://localhost:8080/accounts/1/messages", author).statusCode());
+        Assert.assertEquals(304, get("http://localhost:8080/accounts/2/messages", other).statusCode());
+        Assert.assertEquals(304, get("http://localhost:8080/accounts/2/messages", "W/" + other + ", \"x\"")
+                .statusCode());
+    }
+
+    /**
+     * Pages and id lookups are other representations than the full list, so they neither carry its ETag nor answer
+     * 304 Not Modified to it.
+     */
+    @Test
+    public void onlyTheFullListHasAnETag() throws IOException, InterruptedException {
+        String etag = get("http://localhost:8080/messages", null).headers().firstValue("ETag").orElseThrow();
+        String accountETag = get("http://localhost:8080/accounts/1/messages", null)
+                .headers().firstValue("ETag").orElseThrow();
+
+        for (String uri : List.of("http://localhost:8080/messages?limit=1", "http://localhost:8080/messages?ids=1")) {
+            HttpResponse<String> response = get(uri, etag);
+            Assert.assertEquals(uri, 200, response.statusCode());
+            Assert.assertTrue(uri, response.headers().firstValue("ETag").isEmpty());
+        }
+        HttpResponse<String> page = get("http://localhost:8080/accounts/1/messages?limit=1", accountETag);
+        Assert.assertEquals(200, page.statusCode());
+        Assert.assertTrue(page.headers().firstValue("ETag").isEmpty());
+    }
+
+    /**
+     * While messages are being posted, an account's ETag must never count more writes than the list read after it
+     * shows: the version is bumped only once the timeline cache has the new message.
+     */
+    @Test
+    public void accountETagNeverRunsAheadOfItsList() throws InterruptedException {
+        MessageService messageService = new MessageService();
+        messageService.getMessagesByAccountId(1); // Cache the timeline, so writes update it in place
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 200; i++) {
+                messageService.createMessage(new Message(1, "concurrent message " + i, 1669947792L));
+            }
+            done.set(true);
+        });
+        writer.start();
+        try {
+            while (!done.get()) {
+                String etag = messageService.getMessagesByAccountIdETag(1);
+                int size = messageService.getMessagesByAccountId(1).size();
+                // One seeded message plus one per counted write
+                Assert.assertTrue(etag + " with " + size + " messages", size >= 1 + version(etag));
+            }
+        } finally {
+            writer.join();
+        }
+        Assert.assertEquals(201, messageService.getMessagesByAccountId(1).size());
+    }
+
+    /**
+     * While messages are being posted, every GET localhost:8080/accounts/1/messages that returns the same ETag must
+     * also return the same body, including bodies served from the response cache.
+     */
+    @Test
+    public void sameETagAlwaysHasTheSameBody() throws Exception {
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 50; i++) {
+                    post("http://localhost:8080/messages",
+                            "{\"posted_by\":1,\"message_text\":\"concurrent message " + i
+                            + "\",\"time_posted_epoch\":1669947792}");
+                }
+            } catch (IOException | InterruptedException e) {
+                throw new RuntimeException(e);
+            } finally {
+                done.set(true);
+            }
+        });
+        writer.start();
+        Map<String, String> bodies = new HashMap<>();
+        try {
+            while (!done.get()) {
+                HttpResponse<String> response = get("http://localhost:8080/accounts/1/messages", null);
+                String etag = response.headers().firstValue("ETag").orElseThrow();
+                String body = bodies.putIfAbsent(etag, response.body());
+                if (body != null) {
+                    Assert.assertEquals(etag, body, response.body());
+                }
+            }
+        } finally {
+            writer.join();
+        }
+        Assert.assertTrue(get("http://localhost:8080/accounts/1/messages", null).body()
+                .contains("concurrent message 49"));
+    }
+
+    private static long version(String etag) {
+        return Long.parseLong(etag.substring(etag.lastIndexOf('-') + 1, etag.length() - 1));
+    }
+
+    private HttpResponse<String> get(String uri, String ifNoneMatch) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder().uri(URI.create(uri));
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return webClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String uri, String json) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(uri))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,117 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import org.h2.jdbc.JdbcConnection;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import Util.ConnectionPool;
+
+public class ConnectionPoolTest {
+    ConnectionPool pool;
+
+    /**
+     * Before every test, create a small pool (max 2 connections, 200ms acquire timeout) over a private in-memory
+     * database so the tests do not interfere with the application database.
+     */
+    @Before
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:pooltest;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        dataSource.setPassword("sa");
+        pool = new ConnectionPool(dataSource, 0, 2, 200, 0, false, 5000, 2);
+    }
+
+    @After
+    public void tearDown() {
+        pool.close();
+    }
+
+    /**
+     * Closing a borrowed connection should return the same physical connection to the pool for the next caller.
+     */
+    @Test
+    public void closedConnectionIsReused() throws SQLException {
+        Connection first = pool.getConnection();
+        first.close();
+        Connection second = pool.getConnection();
+        second.close();
+
+        ConnectionPool.Stats stats = pool.getStats();
+        Assert.assertEquals(1, stats.getCreatedCount());
+        Assert.assertEquals(2, stats.getAcquireCount());
+        Assert.assertEquals(0, stats.getActive());
+        Assert.assertEquals(1, stats.getIdle());
+        Assert.assertTrue(first.isClosed());
+    }
+
+    /**
+     * Statements and result sets left open by the borrower should be closed when the connection is returned.
+     */
+    @Test
+    public void returnedConnectionClosesItsStatements() throws SQLException {
+        Connection connection = pool.getConnection();
+        PreparedStatement statement = connection.prepareStatement("SELECT 1");
+        ResultSet rs = statement.executeQuery();
+        connection.close();
+
+        Assert.assertTrue(statement.isClosed());
+        Assert.assertTrue(rs.isClosed());
+    }
+
+    /**
+     * unwrap() must not hand out the physical connection, which could be closed behind the pool's back.
+     */
+    @Test
+    public void unwrapDoesNotExposeThePhysicalConnection() throws SQLException {
+        Connection connection = pool.getConnection();
+        try {
+            Assert.assertSame(connection, connection.unwrap(Connection.class));
+            Assert.assertFalse(connection.isWrapperFor(JdbcConnection.class));
+            Assert.assertThrows(SQLException.class, () -> connection.unwrap(JdbcConnection.class));
+        } finally {
+            connection.close();
+        }
+        Assert.assertEquals(1, pool.getStats().getIdle());
+    }
+
+    /**
+     * When every connection is borrowed, getConnection() should give up after the acquire timeout.
+     */
+    @Test
+    public void acquireTimesOutWhenPoolIsExhausted() throws SQLException {
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+        try {
+            pool.getConnection();
+            Assert.fail("Expected the third borrow to time out");
+        } catch (SQLTransientConnectionException expected) {
+            Assert.assertEquals(1, pool.getStats().getTimeoutCount());
+            Assert.assertEquals(2, pool.getStats().getActive());
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    /**
+     * A connection returned in the middle of a transaction should be rolled back and handed out in autocommit mode.
+     */
+    @Test
+    public void returnedConnectionIsResetToAutoCommit() throws SQLException {
+        Connection first = pool.getConnection();
+        first.setAutoCommit(false);
+        first.close();
+
+        Connection second = pool.getConnection();
+        Assert.assertTrue(second.getAutoCommit());
+        second.close();
+    }
+}
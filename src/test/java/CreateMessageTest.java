@@ -148,5 +148,38 @@ public class CreateMessageTest {
         Assert.assertEquals("", response.body().toString());
     }
 
+    /**
+     * Sending an http request to POST localhost:8080/register, then POST localhost:8080/messages as the new user
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: JSON representation of message object posted by the new account
+     */
+    @Test
+    public void createMessageByNewlyRegisteredUser() throws IOException, InterruptedException {
+        HttpRequest registerRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/register"))
+                .POST(HttpRequest.BodyPublishers.ofString("{" +
+                        "\"username\": \"newuser\", " +
+                        "\"password\": \"password\" }"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse registerResponse = webClient.send(registerRequest, HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(200, registerResponse.statusCode());
 
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString("{"+
+                        "\"posted_by\":2, " +
+                        "\"message_text\": \"hello from a new user\", " +
+                        "\"time_posted_epoch\": 1669947792}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse response = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(200, response.statusCode());
+
+        Message expectedResult = new Message(2, 2, "hello from a new user", 1669947792);
+        Message actualResult = objectMapper.readValue(response.body().toString(), Message.class);
+        Assert.assertEquals(expectedResult, actualResult);
+    }
 }
@@ -0,0 +1,92 @@
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import Util.LruCache;
+
+public class LruCacheTest {
+
+    /**
+     * A second lookup of the same key should be served from the cache without calling the loader.
+     */
+    @Test
+    public void readThroughLoadsOnce() {
+        LruCache<Integer, String> cache = new LruCache<>(10, value -> 1, 0, 0);
+        AtomicInteger loads = new AtomicInteger();
+
+        Assert.assertEquals("value 1", cache.get(1, key -> "value " + loads.incrementAndGet()));
+        Assert.assertEquals("value 1", cache.get(1, key -> "value " + loads.incrementAndGet()));
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(1, cache.getStats().getHitCount());
+        Assert.assertEquals(1, cache.getStats().getMissCount());
+    }
+
+    /**
+     * Once the cache is full, the least recently used entry should be evicted.
+     */
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        LruCache<Integer, String> cache = new LruCache<>(2, value -> 1, 0, 0);
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.get(1, key -> "reloaded"); // 1 is now more recently used than 2
+        cache.put(3, "three");
+
+        Assert.assertEquals(1, cache.getStats().getEvictionCount());
+        Assert.assertEquals("one", cache.get(1, key -> "reloaded"));
+        Assert.assertEquals("reloaded", cache.get(2, key -> "reloaded"));
+    }
+
+    /**
+     * Missing keys should be cached only while negative caching is enabled, and invalidation should remove them.
+     */
+    @Test
+    public void cachesMissingKeysUntilInvalidated() {
+        LruCache<Integer, String> cache = new LruCache<>(10, value -> 1, 0, 60_000);
+        Assert.assertNull(cache.get(1, key -> null));
+        Assert.assertNull(cache.get(1, key -> "should not load"));
+
+        cache.invalidate(1);
+        Assert.assertEquals("loaded", cache.get(1, key -> "loaded"));
+    }
+
+    /**
+     * A load that overlaps with a write must not store the value it read before the write.
+     */
+    @Test
+    public void loadOverlappingWriteIsNotStored() {
+        LruCache<Integer, String> cache = new LruCache<>(10, value -> 1, 0, 0);
+        String loaded = cache.get(1, key -> {
+            cache.invalidate(1); // A writer changes the row while the load is in flight
+            return "stale";
+        });
+
+        Assert.assertEquals("stale", loaded);
+        Assert.assertEquals("fresh", cache.get(1, key -> "fresh"));
+    }
+
+    /**
+     * Writes to other keys while a load is in flight must not keep the loaded value out of the cache.
+     */
+    @Test
+    public void loadOverlappingWriteToOtherKeyIsStored() {
+        LruCache<Integer, String> cache = new LruCache<>(10, value -> 1, 0, 0);
+        cache.get(1, key -> {
+            cache.put(2, "other"); // Steady writes to other keys
+            cache.invalidate(3);
+            return "loaded";
+        });
+        cache.getAll(List.of(4, 5), keys -> {
+            cache.invalidate(5);
+            return Map.of(4, "four", 5, "stale");
+        });
+
+        Assert.assertEquals("loaded", cache.get(1, key -> "reloaded"));
+        Assert.assertEquals("four", cache.get(4, key -> "reloaded"));
+        Assert.assertEquals("fresh", cache.get(5, key -> "fresh"));
+        Assert.assertEquals(2, cache.getStats().getHitCount());
+    }
+}
@@ -0,0 +1,17 @@
+import org.junit.runner.Description;
+import org.junit.runner.notification.RunListener;
+
+import DAO.DAOFactory;
+
+/**
+ * Empties the memory engine's shared store before every test, so it is seeded again from the database the test
+ * resets in its setUp instead of carrying over the previous test's writes. Registered with surefire by the memory
+ * profile; with the other engines there is no store and it does nothing.
+ */
+public class MemoryStoreResetListener extends RunListener {
+
+    @Override
+    public void testStarted(Description description) {
+        DAOFactory.resetMemoryStore();
+    }
+}
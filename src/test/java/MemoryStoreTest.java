@@ -0,0 +1,213 @@
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import DAO.MemoryAccountDAO;
+import DAO.MemoryMessageDAO;
+import DAO.MemoryStore;
+import Model.Account;
+import Model.Message;
+import Util.ConnectionUtil;
+import Util.IntIntHashMap;
+
+/**
+ * Exercises the memory engine directly, whatever dao.engine is set to.
+ */
+public class MemoryStoreTest {
+    MemoryMessageDAO messageDAO;
+    MemoryAccountDAO accountDAO;
+
+    /**
+     * Before every test, reset the database, which holds one account (id 1) and one message (id 1), and seed a new
+     * store from it.
+     */
+    @Before
+    public void setUp() {
+        ConnectionUtil.resetTestDatabase();
+        MemoryStore store = new MemoryStore();
+        messageDAO = new MemoryMessageDAO(store);
+        accountDAO = new MemoryAccountDAO(store);
+    }
+
+    /**
+     * The seeded rows are found, new messages continue from the largest seeded id, and unknown authors are rejected.
+     */
+    @Test
+    public void seedsAndCreates() {
+        Assert.assertEquals(new Message(1, 1, "test message 1", 1669947792), messageDAO.getMessageById(1));
+        Assert.assertEquals(new Account(1, "testuser1", "password"),
+                accountDAO.getAccountByUsernameAndPassword("testuser1", "password"));
+        Assert.assertNull(accountDAO.getAccountByUsernameAndPassword("testuser1", "wrong"));
+
+        Assert.assertEquals(2, messageDAO.createMessage(new Message(1, "second", 1669947792)).getMessage_id());
+        Assert.assertNull(messageDAO.createMessage(new Message(42, "nobody", 1669947792)));
+        Assert.assertNull(messageDAO.createMessages(new ArrayList<>(List.of(
+                new Message(1, "kept?", 1669947792),
+                new Message(42, "unknown author", 1669947792)))));
+        Assert.assertEquals(2, messageDAO.getAllMessages().size());
+
+        Account registered = accountDAO.registerAccount(new Account("newuser", "password"));
+        Assert.assertEquals(2, registered.getAccount_id());
+        Assert.assertNull(accountDAO.registerAccount(new Account("newuser", "other")));
+        Assert.assertTrue(accountDAO.accountExists(2));
+        Assert.assertEquals(3, messageDAO.createMessage(new Message(2, "from newuser", 1669947792)).getMessage_id());
+    }
+
+    /**
+     * Pages by author and overall follow message_id in both directions, skipping deleted messages, and updates and
+     * deletes only apply to messages that exist.
+     */
+    @Test
+    public void pagesSkipDeletedMessages() {
+        accountDAO.registerAccount(new Account("newuser", "password"));
+        for (int i = 0; i < 10; i++) {
+            messageDAO.createMessage(new Message(i % 2 + 1, "message " + i, 1669947792));
+        }
+        // Ids 2..11; account 1 posted the even ones and id 1, account 2 the odd ones
+        Assert.assertEquals(new Message(4, 1, "message 2", 1669947792), messageDAO.deleteMessage(4));
+        Assert.assertNull(messageDAO.deleteMessage(4));
+        Assert.assertNull(messageDAO.updateMessageText(4, "gone"));
+        Assert.assertEquals("edited", messageDAO.updateMessageText(6, "edited").getMessage_text());
+
+        Assert.assertEquals(List.of(1, 2, 6, 8, 10), ids(messageDAO.getMessagesByAccountId(1)));
+        Assert.assertEquals(List.of(6, 8), ids(messageDAO.getMessagesByAccountIdPage(1, 2, 2, true)));
+        Assert.assertEquals(List.of(2, 1), ids(messageDAO.getMessagesByAccountIdPage(1, 6, 5, false)));
+        Assert.assertEquals(List.of(11, 10, 9), ids(messageDAO.getMessagesPage(Integer.MAX_VALUE, 3, false)));
+        Assert.assertEquals(List.of(3, 5, 6), ids(messageDAO.getMessagesPage(2, 3, true)));
+        Assert.assertEquals(List.of(), ids(messageDAO.getMessagesPage(11, 3, true)));
+
+        Map<Integer, Message> found = messageDAO.getMessagesByIds(List.of(4, 6, 100));
+        Assert.assertEquals(Map.of(6, new Message(6, 1, "edited", 1669947792)), found);
+    }
+
+    /**
+     * Streams pass every live message in order and stop when the handler fails.
+     */
+    @Test
+    public void streamsStopOnFailure() throws IOException {
+        messageDAO.createMessage(new Message(1, "second", 1669947792));
+        messageDAO.createMessage(new Message(1, "third", 1669947792));
+        List<Integer> seen = new ArrayList<>();
+        Assert.assertTrue(messageDAO.streamMessagesByAccountId(1,
+                (messageId, postedBy, text, epoch) -> seen.add(messageId)));
+        Assert.assertEquals(List.of(1, 2, 3), seen);
+
+        seen.clear();
+        Assert.assertThrows(IOException.class, () -> messageDAO.streamAllMessages(
+                (messageId, postedBy, text, epoch) -> {
+                    seen.add(messageId);
+                    throw new IOException("client went away");
+                }));
+        Assert.assertEquals(List.of(1), seen);
+    }
+
+    /**
+     * Concurrent inserts by several authors get unique ids, and each author's messages stay in id order.
+     */
+    @Test
+    public void concurrentInsertsKeepPostingListsOrdered() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            accountDAO.registerAccount(new Account("writer" + i, "password"));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int author = t + 1;
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    messageDAO.createMessage(new Message(author, "message " + i, 1669947792));
+                }
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        Assert.assertEquals(8001, messageDAO.getAllMessages().size());
+        for (int author = 1; author <= 4; author++) {
+            List<Message> messages = messageDAO.getMessagesByAccountId(author);
+            Assert.assertEquals(author == 1 ? 2001 : 2000, messages.size());
+            for (int i = 1; i < messages.size(); i++) {
+                Assert.assertTrue(messages.get(i - 1).getMessage_id() < messages.get(i).getMessage_id());
+            }
+        }
+    }
+
+    /**
+     * After a reset the store forgets its writes and is seeded again from the database on its next use.
+     */
+    @Test
+    public void resetReseedsFromTheDatabase() {
+        MemoryStore store = new MemoryStore();
+        MemoryMessageDAO messages = new MemoryMessageDAO(store);
+        MemoryAccountDAO accounts = new MemoryAccountDAO(store);
+        accounts.registerAccount(new Account("newuser", "password"));
+        messages.createMessage(new Message(2, "before the reset", 1669947792));
+        messages.deleteMessage(1);
+
+        store.reset();
+
+        Assert.assertEquals(List.of(1), ids(messages.getAllMessages()));
+        Assert.assertNull(accounts.getAccountByUsername("newuser"));
+        Assert.assertEquals(2, accounts.registerAccount(new Account("newuser", "password")).getAccount_id());
+        Assert.assertEquals(2, messages.createMessage(new Message(2, "after the reset", 1669947792)).getMessage_id());
+    }
+
+    /**
+     * Once seeded, the store does not see rows changed in the database behind its back, until it is reset and seeded
+     * again. This is why the memory profile cannot run tests that edit the tables with SQL after the app started.
+     */
+    @Test
+    public void outOfBandDatabaseChangesAreSeenOnlyAfterReset() throws SQLException {
+        MemoryStore store = new MemoryStore();
+        MemoryMessageDAO messages = new MemoryMessageDAO(store);
+        Assert.assertEquals(List.of(1), ids(messages.getAllMessages()));
+
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement("delete from message where message_id = ?");
+            ps.setInt(1, 1);
+            Assert.assertEquals(1, ps.executeUpdate());
+        }
+        Assert.assertEquals(List.of(1), ids(messages.getAllMessages()));
+
+        store.reset();
+        Assert.assertEquals(List.of(), ids(messages.getAllMessages()));
+    }
+
+    /**
+     * The primitive map keeps every entry across rehashes, and absent keys read as -1.
+     */
+    @Test
+    public void intIntHashMapGrows() {
+        IntIntHashMap map = new IntIntHashMap(0);
+        for (int key = -500; key < 5000; key += 3) {
+            map.put(key, key & 0xffff);
+        }
+        for (int key = -500; key < 5000; key++) {
+            Assert.assertEquals((key + 500) % 3 == 0 ? key & 0xffff : -1, map.get(key));
+        }
+        Assert.assertEquals(1834, map.size());
+    }
+
+    private static List<Integer> ids(List<Message> messages) {
+        List<Integer> ids = new ArrayList<>();
+        for (Message message : messages) {
+            ids.add(message.getMessage_id());
+        }
+        return ids;
+    }
+}
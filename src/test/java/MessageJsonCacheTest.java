@@ -0,0 +1,66 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Model.Message;
+import Service.MessageJsonCache;
+
+public class MessageJsonCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * A spliced array should be byte for byte what Jackson writes for the list, and the second request for it should
+     * be served from the cache.
+     */
+    @Test
+    public void splicedArrayMatchesJackson() throws Exception {
+        MessageJsonCache cache = new MessageJsonCache(1024 * 1024);
+        List<Message> messages = Arrays.asList(
+                new Message(1, 1, "first \"quoted\" message", 1669947792L),
+                new Message(2, 2, "second message \u00e9\u4e2d", 1669947793L));
+
+        byte[] first = cache.toJsonArray(messages);
+        byte[] second = cache.toJsonArray(messages);
+
+        Assert.assertArrayEquals(objectMapper.writeValueAsBytes(messages), first);
+        Assert.assertArrayEquals(first, second);
+        Assert.assertEquals(2, cache.getStats().getHitCount());
+        Assert.assertEquals("[]", new String(cache.toJsonArray(Collections.emptyList())));
+    }
+
+    /**
+     * A message whose text changed must not be served the JSON cached for its old text, even without an invalidate.
+     */
+    @Test
+    public void changedMessageIsSerializedAgain() throws Exception {
+        MessageJsonCache cache = new MessageJsonCache(1024 * 1024);
+        cache.toJson(new Message(1, 1, "old text", 1669947792L));
+
+        Message updated = new Message(1, 1, "new text", 1669947792L);
+
+        Assert.assertArrayEquals(objectMapper.writeValueAsBytes(updated), cache.toJson(updated));
+        Assert.assertArrayEquals(objectMapper.writeValueAsBytes(updated), cache.toJson(updated));
+    }
+
+    /**
+     * An invalidated message should be serialized again on its next request.
+     */
+    @Test
+    public void invalidateDropsEntry() {
+        MessageJsonCache cache = new MessageJsonCache(1024 * 1024);
+        Message message = new Message(1, 1, "text", 1669947792L);
+        cache.toJson(message);
+
+        cache.invalidate(1);
+        cache.toJson(message);
+
+        Assert.assertEquals(2, cache.getStats().getMissCount());
+        Assert.assertEquals(1, cache.getStats().getSize());
+    }
+}
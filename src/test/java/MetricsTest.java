@@ -0,0 +1,106 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import Controller.SocialMediaController;
+import DAO.DAOFactory;
+import Util.ConnectionUtil;
+import Util.LatencyHistogram;
+import io.javalin.Javalin;
+
+/**
+ * Checks the per-route latency histograms and the Prometheus output of GET /metrics.
+ */
+public class MetricsTest {
+    SocialMediaController socialMediaController;
+    HttpClient webClient;
+    Javalin app;
+
+    /**
+     * Before every test, reset the database, restart the Javalin app, and create a new webClient.
+     * @throws InterruptedException
+     */
+    @Before
+    public void setUp() throws InterruptedException {
+        ConnectionUtil.resetTestDatabase();
+        socialMediaController = new SocialMediaController();
+        app = socialMediaController.startAPI();
+        webClient = HttpClient.newHttpClient();
+        app.start(8080);
+        Thread.sleep(1000);
+    }
+
+    @After
+    public void tearDown() {
+        app.stop();
+    }
+
+    /**
+     * Requests for different message ids share the route pattern, and each status code gets its own histogram.
+     */
+    @Test
+    public void requestsAreRecordedPerRouteAndStatus() throws IOException, InterruptedException {
+        Assert.assertEquals(200, send(get("http://localhost:8080/messages/1")).statusCode());
+        Assert.assertEquals(200, send(get("http://localhost:8080/messages/2")).statusCode());
+        HttpRequest badLogin = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/login"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"testuser1\",\"password\":\"wrong\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        Assert.assertEquals(401, send(badLogin).statusCode());
+        Assert.assertEquals(404, send(get("http://localhost:8080/no-such-route")).statusCode());
+
+        LatencyHistogram messageById = socialMediaController.getRequestMetrics()
+                .getHistogram("GET", "/messages/{message_id}", 200);
+        Assert.assertEquals(2, messageById.getCount());
+        Assert.assertTrue(messageById.getMax() > 0);
+        Assert.assertEquals(1, socialMediaController.getRequestMetrics().getHistogram("POST", "/login", 401).getCount());
+        Assert.assertEquals(1, socialMediaController.getRequestMetrics().getHistogram("GET", "unmatched", 404).getCount());
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/metrics
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: Prometheus text with the request histograms and the pool, statement and cache metrics
+     */
+    @Test
+    public void metricsEndpointReturnsPrometheusText() throws IOException, InterruptedException {
+        send(get("http://localhost:8080/messages/1"));
+
+        HttpResponse<String> response = send(get("http://localhost:8080/metrics"));
+
+        Assert.assertEquals(200, response.statusCode());
+        Assert.assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"));
+        String body = response.body();
+        Assert.assertTrue(body.contains("# TYPE http_server_requests_seconds histogram"));
+        Assert.assertTrue(body.contains(
+                "http_server_requests_seconds_count{method=\"GET\",route=\"/messages/{message_id}\",status=\"200\"} 1"));
+        Assert.assertTrue(body.contains(
+                "http_server_requests_seconds_bucket{method=\"GET\",route=\"/messages/{message_id}\",status=\"200\","
+                        + "le=\"+Inf\"} 1"));
+        Assert.assertTrue(body.contains("db_pool_connections_active "));
+        if (DAOFactory.getEngine().equals("jdbc") && ConnectionUtil.getQueryMonitor() != null) {
+            // Only JDBC statements are timed, and only with instrumentation on. Shared by every app in this JVM
+            Assert.assertTrue(body.contains("db_statement_seconds_count{route=\"GET /messages/{message_id}\","
+                    + "statement=\"SELECT * FROM message WHERE message_id = ?\"} "));
+        }
+        Assert.assertTrue(body.contains("cache_misses_total{cache=\"messages\"} 1"));
+    }
+
+    private HttpRequest get(String uri) {
+        return HttpRequest.newBuilder().uri(URI.create(uri)).build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,122 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import Util.QueryMonitor;
+
+public class QueryMonitorTest {
+    private static final String URL = "jdbc:h2:mem:querymonitortest;DB_CLOSE_DELAY=-1";
+
+    Connection physical;
+    QueryMonitor monitor;
+    Connection connection;
+
+    /**
+     * Before every test, create a message table in a private in-memory database and wrap a connection to it with a
+     * monitor whose slow-query threshold is 0 ms, so every statement is logged as slow. Plans are captured with
+     * connections of their own to the same database.
+     */
+    @Before
+    public void setUp() throws SQLException {
+        physical = DriverManager.getConnection(URL, "sa", "sa");
+        physical.createStatement().execute("DROP TABLE IF EXISTS message");
+        physical.createStatement().execute("CREATE TABLE message (message_id INT PRIMARY KEY AUTO_INCREMENT, "
+                + "posted_by INT, message_text VARCHAR(255))");
+        physical.createStatement().execute("INSERT INTO message (posted_by, message_text) VALUES "
+                + "(1, 'one'), (1, 'two'), (2, 'three')");
+        monitor = new QueryMonitor(0, 60_000, () -> DriverManager.getConnection(URL, "sa", "sa"));
+        connection = monitor.wrap(physical);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        QueryMonitor.clearRoute();
+        physical.close();
+    }
+
+    /**
+     * A prepared query should be timed under the current route and count the rows the caller read.
+     */
+    @Test
+    public void preparedQueryIsTimedAndRowsAreCounted() throws SQLException {
+        QueryMonitor.setRoute("GET /accounts/{account_id}/messages");
+        PreparedStatement ps = connection.prepareStatement("SELECT * FROM message WHERE posted_by = ?");
+        ps.setInt(1, 1);
+        ResultSet rs = ps.executeQuery();
+        while (rs.next()) {
+            rs.getString("message_text");
+        }
+
+        QueryMonitor.StatementStats stats = monitor.getStatementStats().get(0);
+        Assert.assertEquals("GET /accounts/{account_id}/messages", stats.getRoute());
+        Assert.assertEquals("SELECT * FROM message WHERE posted_by = ?", stats.getSql());
+        Assert.assertEquals(1, stats.getTimes().getCount());
+        Assert.assertEquals(2, stats.getRows());
+    }
+
+    /**
+     * A slow plain SELECT is logged with its parameter types and, once captured in the background, an EXPLAIN
+     * ANALYZE plan.
+     */
+    @Test
+    public void slowSelectIsLoggedWithAnalyzedPlan() throws Exception {
+        PreparedStatement ps = connection.prepareStatement("SELECT * FROM message WHERE message_id = ?");
+        ps.setInt(1, 2);
+        ps.executeQuery().close();
+
+        List<QueryMonitor.SlowQuery> slowQueries = monitor.getSlowQueries();
+        Assert.assertEquals(1, slowQueries.size());
+        QueryMonitor.SlowQuery slowQuery = slowQueries.get(0);
+        Assert.assertEquals("background", slowQuery.getRoute());
+        Assert.assertEquals(List.of("INT"), slowQuery.getParameterTypes());
+        String plan = slowQuery.planCaptured().get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(plan, plan.contains("PRIMARY_KEY"));
+        Assert.assertTrue(plan, plan.contains("scanCount"));
+    }
+
+    /**
+     * A statement that changes data is only explained, never run a second time.
+     */
+    @Test
+    public void slowDeleteIsExplainedWithoutRunningItAgain() throws Exception {
+        PreparedStatement ps = connection.prepareStatement(
+                "SELECT * FROM OLD TABLE (DELETE FROM message WHERE posted_by = ?)");
+        ps.setInt(1, 1);
+        ResultSet rs = ps.executeQuery();
+        while (rs.next()) {
+            rs.getInt("message_id");
+        }
+
+        String plan = monitor.getSlowQueries().get(0).planCaptured().get(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(plan);
+        Assert.assertFalse(plan, plan.contains("scanCount"));
+        ResultSet remaining = physical.createStatement().executeQuery("SELECT COUNT(*) FROM message");
+        remaining.next();
+        Assert.assertEquals(1, remaining.getInt(1));
+        Assert.assertEquals(2, monitor.getStatementStats().get(0).getRows());
+    }
+
+    /**
+     * Plain statements that differ only in their literals share one entry, and updates count the affected rows.
+     */
+    @Test
+    public void plainStatementsAreGroupedByShape() throws SQLException {
+        connection.createStatement().executeUpdate("UPDATE message SET message_text = 'a' WHERE posted_by = 1");
+        connection.createStatement().executeUpdate("UPDATE message SET message_text = 'b' WHERE posted_by = 2");
+
+        List<QueryMonitor.StatementStats> stats = monitor.getStatementStats();
+        Assert.assertEquals(1, stats.size());
+        Assert.assertEquals("UPDATE message SET message_text = ? WHERE posted_by = ?", stats.get(0).getSql());
+        Assert.assertEquals(2, stats.get(0).getTimes().getCount());
+        Assert.assertEquals(3, stats.get(0).getRows());
+    }
+}
@@ -0,0 +1,87 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import DAO.R2dbcMessageDAO;
+import Model.Message;
+import Util.ConnectionUtil;
+
+/**
+ * Exercises the R2DBC engine directly, whatever dao.engine is set to, including the parts the HTTP tests cannot see:
+ * the reactive methods and cancelling a stream part way through.
+ */
+public class R2dbcMessageDAOTest {
+    R2dbcMessageDAO messageDAO;
+
+    /**
+     * Before every test, reset the database, which holds one message (id 1) posted by account 1.
+     */
+    @Before
+    public void setUp() {
+        ConnectionUtil.resetTestDatabase();
+        messageDAO = new R2dbcMessageDAO();
+    }
+
+    /**
+     * Inserting a batch assigns consecutive ids in order, and the messages can be read back by id.
+     */
+    @Test
+    public void insertAllThenFindByIds() {
+        List<Message> created = messageDAO.insertAll(List.of(
+                new Message(1, "first", 1669947792),
+                new Message(1, "second", 1669947792))).block();
+        Assert.assertEquals(2, created.get(0).getMessage_id());
+        Assert.assertEquals(3, created.get(1).getMessage_id());
+
+        Map<Integer, Message> found = messageDAO.getMessagesByIds(List.of(3, 100, 2));
+        Assert.assertEquals(2, found.size());
+        Assert.assertEquals(new Message(2, 1, "first", 1669947792), found.get(2));
+    }
+
+    /**
+     * A batch with an unknown author is rolled back as a whole.
+     */
+    @Test
+    public void insertAllRollsBackOnFailure() {
+        Assert.assertNull(messageDAO.createMessages(new ArrayList<>(List.of(
+                new Message(1, "kept?", 1669947792),
+                new Message(42, "unknown author", 1669947792)))));
+        Assert.assertEquals(1, messageDAO.getAllMessages().size());
+    }
+
+    /**
+     * The guarded insert completes empty when the author does not exist.
+     */
+    @Test
+    public void insertUnknownAuthorIsEmpty() {
+        Assert.assertNull(messageDAO.insert(new Message(42, "nobody", 1669947792)).block());
+    }
+
+    /**
+     * A handler that fails part way through cancels the query and releases its connection, so later calls still
+     * work even after more failed streams than the pool has connections.
+     */
+    @Test
+    public void failedStreamReleasesConnection() {
+        for (int i = 0; i < 5; i++) {
+            messageDAO.createMessage(new Message(1, "message " + i, 1669947792));
+        }
+        for (int attempt = 0; attempt < 20; attempt++) {
+            List<Integer> seen = new ArrayList<>();
+            Assert.assertThrows(IOException.class, () -> messageDAO.streamAllMessages(
+                    (messageId, postedBy, messageText, timePostedEpoch) -> {
+                        seen.add(messageId);
+                        if (seen.size() == 2) {
+                            throw new IOException("client went away");
+                        }
+                    }));
+            Assert.assertEquals(List.of(1, 2), seen);
+        }
+        Assert.assertEquals(6, messageDAO.getMessagesByAccountId(1).size());
+    }
+}
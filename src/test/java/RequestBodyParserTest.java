@@ -0,0 +1,129 @@
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import Controller.MediaFormat;
+import Controller.RequestBodyParser;
+import Model.Account;
+import Model.Message;
+import Util.TextUtil;
+
+public class RequestBodyParserTest {
+
+    /**
+     * Valid bodies should give the same objects as the bean binding, with unknown fields skipped.
+     */
+    @Test
+    public void parsesValidBodies() {
+        Assert.assertEquals(new Account("user", "pass"),
+                account("{\"account_id\": 7, \"username\": \"user\", \"password\": \"pass\"}"));
+        Assert.assertEquals(new Message(0, 1, "hello", 1669947792L),
+                message("{\"posted_by\": 1, \"message_text\": \"hello\", \"time_posted_epoch\": 1669947792, "
+                        + "\"extra\": [1, {}]}"));
+        Assert.assertEquals("new \"text\"", messageText("{\"message_text\": \"new \\\"text\\\"\"}"));
+    }
+
+    /**
+     * Blank usernames, blank or too long texts and missing required fields should be rejected.
+     */
+    @Test
+    public void rejectsInvalidFields() {
+        Assert.assertNull(account("{\"username\": \" \\t\", \"password\": \"pass\"}"));
+        Assert.assertNull(account("{\"username\": \"user\"}"));
+        Assert.assertNull(message("{\"posted_by\": 1, \"message_text\": \"   \"}"));
+        Assert.assertNull(message("{\"message_text\": \"no author\"}"));
+        Assert.assertNull(message("{\"posted_by\": 1, \"message_text\": null}"));
+        Assert.assertNull(messageText("{\"message_text\": \"" + "a".repeat(256) + "\"}"));
+        Assert.assertNotNull(messageText("{\"message_text\": \"" + "a".repeat(255) + "\"}"));
+    }
+
+    /**
+     * Bodies that are not a single JSON object, or have values of the wrong type, should be rejected.
+     */
+    @Test
+    public void rejectsMalformedBodies() {
+        Assert.assertNull(messageText(""));
+        Assert.assertNull(messageText("[\"message_text\"]"));
+        Assert.assertNull(messageText("{\"message_text\": \"text\""));
+        Assert.assertNull(messageText("{\"message_text\": \"text\"} {}"));
+        Assert.assertNull(message("{\"posted_by\": \"1\", \"message_text\": \"text\"}"));
+        Assert.assertNull(message("{\"posted_by\": 99999999999, \"message_text\": \"text\"}")); // Out of int range
+    }
+
+    /**
+     * Batch bodies should keep invalid and null elements for the service to report, and be rejected as a whole when
+     * malformed or longer than the limit.
+     */
+    @Test
+    public void parsesMessageBatches() {
+        Assert.assertEquals(Arrays.asList(new Message(0, 1, "hello", 1669947792L), null, new Message(0, 2, " ", 0)),
+                RequestBodyParser.parseMessages(body("[{\"posted_by\": 1, \"message_text\": \"hello\", "
+                        + "\"time_posted_epoch\": 1669947792}, null, {\"posted_by\": 2, \"message_text\": \" \"}]"),
+                        MediaFormat.JSON, 3));
+        Assert.assertNull(RequestBodyParser.parseMessages(body("null"), MediaFormat.JSON, 3));
+        Assert.assertNull(RequestBodyParser.parseMessages(body("[{\"posted_by\": 1}"), MediaFormat.JSON, 3));
+        Assert.assertNull(RequestBodyParser.parseMessages(body("[1]"), MediaFormat.JSON, 3));
+        // Rejected at the fourth element, before the malformed rest is read
+        Assert.assertNull(RequestBodyParser.parseMessages(body("[{}, {}, {}, {}, {"), MediaFormat.JSON, 3));
+        Assert.assertEquals(3, RequestBodyParser.parseMessages(body("[{}, {}, {}]"), MediaFormat.JSON, 3).size());
+    }
+
+    /**
+     * Lookup bodies should give the IDs in request order, and be rejected when malformed, when an ID is not an
+     * integer, or when longer than the limit.
+     */
+    @Test
+    public void parsesMessageIds() {
+        Assert.assertEquals(List.of(3, 1, 3),
+                RequestBodyParser.parseMessageIds(body("[3, 1, 3]"), MediaFormat.JSON, 3));
+        Assert.assertNull(RequestBodyParser.parseMessageIds(body("null"), MediaFormat.JSON, 3));
+        Assert.assertNull(RequestBodyParser.parseMessageIds(body("[1, null]"), MediaFormat.JSON, 3));
+        Assert.assertNull(RequestBodyParser.parseMessageIds(body("[1, \"2\"]"), MediaFormat.JSON, 3));
+        Assert.assertNull(RequestBodyParser.parseMessageIds(body("[99999999999]"), MediaFormat.JSON, 3));
+        Assert.assertNull(RequestBodyParser.parseMessageIds(body("[1, 2, 3, 4, "), MediaFormat.JSON, 3));
+    }
+
+    /**
+     * CBOR bodies should be parsed and validated like JSON ones.
+     */
+    @Test
+    public void parsesCbor() throws Exception {
+        byte[] valid = MediaFormat.CBOR.getMapper().writeValueAsBytes(new Message(1, "hello", 1669947792L));
+        byte[] blank = MediaFormat.CBOR.getMapper().writeValueAsBytes(new Message(1, "  ", 1669947792L));
+
+        Assert.assertEquals(new Message(0, 1, "hello", 1669947792L),
+                RequestBodyParser.parseMessage(new ByteArrayInputStream(valid), MediaFormat.CBOR));
+        Assert.assertNull(RequestBodyParser.parseMessage(new ByteArrayInputStream(blank), MediaFormat.CBOR));
+    }
+
+    /**
+     * isBlank should agree with trim().isEmpty().
+     */
+    @Test
+    public void isBlankMatchesTrim() {
+        for (String text : new String[] {"", " ", "\t\n\u0000", " a ", "\u00a0", "\u2003"}) {
+            Assert.assertEquals(text, text.trim().isEmpty(), TextUtil.isBlank(text));
+        }
+    }
+
+    private Account account(String json) {
+        return RequestBodyParser.parseAccount(body(json), MediaFormat.JSON);
+    }
+
+    private Message message(String json) {
+        return RequestBodyParser.parseMessage(body(json), MediaFormat.JSON);
+    }
+
+    private String messageText(String json) {
+        return RequestBodyParser.parseMessageText(body(json), MediaFormat.JSON);
+    }
+
+    private InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
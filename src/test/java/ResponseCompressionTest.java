@@ -0,0 +1,146 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import Controller.SocialMediaController;
+import Util.ConnectionUtil;
+import io.javalin.Javalin;
+
+/**
+ * Checks the gzip negotiation of the message lists and the cache of their serialized and compressed bodies.
+ */
+public class ResponseCompressionTest {
+    SocialMediaController socialMediaController;
+    HttpClient webClient;
+    Javalin app;
+
+    /**
+     * Before every test, reset the database, restart the Javalin app, create a new webClient, and post enough
+     * messages for the list to be worth compressing.
+     * @throws InterruptedException
+     */
+    @Before
+    public void setUp() throws IOException, InterruptedException {
+        ConnectionUtil.resetTestDatabase();
+        socialMediaController = new SocialMediaController();
+        app = socialMediaController.startAPI();
+        webClient = HttpClient.newHttpClient();
+        app.start(8080);
+        Thread.sleep(1000);
+
+        StringBuilder batch = new StringBuilder("[");
+        for (int i = 0; i < 50; i++) {
+            batch.append(i == 0 ? "" : ",")
+                    .append("{\"posted_by\":1, \"message_text\": \"compressible message number ").append(i)
+                    .append("\", \"time_posted_epoch\": 1669947792}");
+        }
+        HttpRequest postBatchRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(batch.append("]").toString()))
+                .header("Content-Type", "application/json")
+                .build();
+        Assert.assertEquals(200, webClient.send(postBatchRequest, HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
+
+    @After
+    public void tearDown() {
+        app.stop();
+    }
+
+    /**
+     * Sending GET localhost:8080/messages twice with Accept-Encoding: gzip
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the gzipped list, identical to the uncompressed one; the second response comes from the cache
+     */
+    @Test
+    public void gzipListIsCompressedAndCached() throws IOException, InterruptedException {
+        HttpResponse<byte[]> plain = get("http://localhost:8080/messages", null, null);
+        HttpResponse<byte[]> first = get("http://localhost:8080/messages", "gzip, deflate", null);
+        HttpResponse<byte[]> second = get("http://localhost:8080/messages", "gzip, deflate", null);
+
+        Assert.assertEquals(200, plain.statusCode());
+        Assert.assertTrue(plain.headers().firstValue("Content-Encoding").isEmpty());
+        Assert.assertEquals(200, first.statusCode());
+        Assert.assertEquals("gzip", first.headers().firstValue("Content-Encoding").orElse(""));
+        Assert.assertTrue(first.headers().firstValue("Vary").orElse("").contains("Accept-Encoding"));
+        Assert.assertTrue(first.body().length < plain.body().length);
+        Assert.assertEquals(new String(plain.body(), StandardCharsets.UTF_8), gunzip(first.body()));
+        Assert.assertArrayEquals(first.body(), second.body());
+        Assert.assertNotEquals(plain.headers().firstValue("ETag"), first.headers().firstValue("ETag"));
+        Assert.assertEquals(1, socialMediaController.getResponseCacheStats().getHitCount());
+    }
+
+    /**
+     * Sending GET localhost:8080/messages with the ETag of the gzipped response, then again after a new message
+     *
+     * Expected Response:
+     *  Status Code: 304, then 200 with the new message
+     */
+    @Test
+    public void gzipETagRevalidates() throws IOException, InterruptedException {
+        HttpResponse<byte[]> first = get("http://localhost:8080/messages", "gzip", null);
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<byte[]> notModified = get("http://localhost:8080/messages", "gzip", etag);
+        Assert.assertEquals(304, notModified.statusCode());
+        Assert.assertEquals(etag, notModified.headers().firstValue("ETag").orElse(""));
+
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"posted_by\":1, \"message_text\": \"after the etag\", \"time_posted_epoch\": 1669947792}"))
+                .header("Content-Type", "application/json")
+                .build();
+        webClient.send(postMessageRequest, HttpResponse.BodyHandlers.discarding());
+
+        HttpResponse<byte[]> changed = get("http://localhost:8080/messages", "gzip", etag);
+        Assert.assertEquals(200, changed.statusCode());
+        Assert.assertTrue(gunzip(changed.body()).contains("after the etag"));
+    }
+
+    /**
+     * Sending GET localhost:8080/accounts/1/messages with gzip refused by a q-value of 0
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the uncompressed list
+     */
+    @Test
+    public void refusedGzipIsNotUsed() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = get("http://localhost:8080/accounts/1/messages", "gzip;q=0, identity", null);
+
+        Assert.assertEquals(200, response.statusCode());
+        Assert.assertTrue(response.headers().firstValue("Content-Encoding").isEmpty());
+        Assert.assertTrue(new String(response.body(), StandardCharsets.UTF_8).startsWith("["));
+    }
+
+    private HttpResponse<byte[]> get(String uri, String acceptEncoding, String ifNoneMatch)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder().uri(URI.create(uri));
+        if (acceptEncoding != null) {
+            builder.header("Accept-Encoding", acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            builder.header("If-None-Match", ifNoneMatch);
+        }
+        return webClient.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private String gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -86,5 +86,39 @@ public class RetrieveMessageByMessageIdTest {
         Assert.assertTrue(response.body().toString().isEmpty());
     }
 
+    /**
+     * Sending an http request to GET localhost:8080/messages/1 after the message has been read, updated and deleted
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the updated message after the PATCH, then empty after the DELETE
+     */
+    @Test
+    public void getMessageGivenMessageIdReflectsWrites() throws IOException, InterruptedException {
+        HttpRequest getRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/1"))
+                .build();
+        webClient.send(getRequest, HttpResponse.BodyHandlers.ofString());
+
+        HttpRequest patchRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/1"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"message_text\": \"updated message\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        webClient.send(patchRequest, HttpResponse.BodyHandlers.ofString());
+
+        HttpResponse response = webClient.send(getRequest, HttpResponse.BodyHandlers.ofString());
+        Message expectedResult = new Message(1, 1, "updated message", 1669947792);
+        Assert.assertEquals(expectedResult, objectMapper.readValue(response.body().toString(), Message.class));
+
+        HttpRequest deleteRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/1"))
+                .DELETE()
+                .build();
+        webClient.send(deleteRequest, HttpResponse.BodyHandlers.ofString());
 
+        response = webClient.send(getRequest, HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(200, response.statusCode());
+        Assert.assertTrue(response.body().toString().isEmpty());
+    }
 }
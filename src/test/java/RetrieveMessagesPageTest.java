@@ -0,0 +1,141 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Controller.SocialMediaController;
+import Model.Message;
+import Util.ConnectionUtil;
+import io.javalin.Javalin;
+
+public class RetrieveMessagesPageTest {
+    SocialMediaController socialMediaController;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+    Javalin app;
+
+    /**
+     * Before every test, reset the database, restart the Javalin app, create a new webClient and ObjectMapper
+     * for interacting locally on the web, and post two more messages so there are three in total.
+     * @throws InterruptedException
+     */
+    @Before
+    public void setUp() throws InterruptedException, IOException {
+        ConnectionUtil.resetTestDatabase();
+        socialMediaController = new SocialMediaController();
+        app = socialMediaController.startAPI();
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        app.start(8080);
+        Thread.sleep(1000);
+
+        for (int i = 2; i <= 3; i++) {
+            HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/messages"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{"+
+                            "\"posted_by\":1, " +
+                            "\"message_text\": \"test message " + i + "\", " +
+                            "\"time_posted_epoch\": 1669947792}"))
+                    .header("Content-Type", "application/json")
+                    .build();
+            webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        }
+    }
+
+    @After
+    public void tearDown() {
+        app.stop();
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages?limit=2, then following the returned cursor
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: messages 1 and 2 with an X-Next-Cursor header, then message 3 without one
+     */
+    @Test
+    public void getMessagesPageFollowsCursor() throws IOException, InterruptedException {
+        HttpResponse<String> firstPage = get("http://localhost:8080/messages?limit=2");
+        Assert.assertEquals(200, firstPage.statusCode());
+        Assert.assertEquals(List.of(message(1), message(2)), readMessages(firstPage));
+        Optional<String> cursor = firstPage.headers().firstValue("X-Next-Cursor");
+        Assert.assertTrue(cursor.isPresent());
+
+        HttpResponse<String> secondPage = get("http://localhost:8080/messages?limit=2&cursor=" + cursor.get());
+        Assert.assertEquals(200, secondPage.statusCode());
+        Assert.assertEquals(List.of(message(3)), readMessages(secondPage));
+        Assert.assertFalse(secondPage.headers().firstValue("X-Next-Cursor").isPresent());
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/accounts/1/messages?limit=2&order=desc, then following the cursor
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: messages 3 and 2, then message 1
+     */
+    @Test
+    public void getMessagesByAccountPageDescending() throws IOException, InterruptedException {
+        HttpResponse<String> firstPage = get("http://localhost:8080/accounts/1/messages?limit=2&order=desc");
+        Assert.assertEquals(200, firstPage.statusCode());
+        Assert.assertEquals(List.of(message(3), message(2)), readMessages(firstPage));
+        String cursor = firstPage.headers().firstValue("X-Next-Cursor").orElseThrow();
+
+        HttpResponse<String> secondPage = get("http://localhost:8080/accounts/1/messages?limit=2&cursor=" + cursor);
+        Assert.assertEquals(List.of(message(1)), readMessages(secondPage));
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages?after_id=1&limit=5
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: messages 2 and 3
+     */
+    @Test
+    public void getMessagesPageAfterId() throws IOException, InterruptedException {
+        HttpResponse<String> page = get("http://localhost:8080/messages?after_id=1&limit=5");
+        Assert.assertEquals(200, page.statusCode());
+        Assert.assertEquals(List.of(message(2), message(3)), readMessages(page));
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages with an invalid limit or cursor
+     *
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void getMessagesPageInvalidParameters() throws IOException, InterruptedException {
+        Assert.assertEquals(400, get("http://localhost:8080/messages?limit=0").statusCode());
+        Assert.assertEquals(400, get("http://localhost:8080/messages?cursor=not-a-cursor").statusCode());
+    }
+
+    private HttpResponse<String> get(String uri) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(uri))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private List<Message> readMessages(HttpResponse<String> response) throws IOException {
+        return new ArrayList<>(objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){}));
+    }
+
+    private static Message message(int id) {
+        return new Message(id, 1, "test message " + id, 1669947792);
+    }
+}
@@ -0,0 +1,99 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import DAO.JdbcMessageDAO;
+import Util.ConnectionUtil;
+import Util.SchemaMigrator;
+
+/**
+ * Checks that the migrations are recorded and applied once, and uses EXPLAIN to check that the queries run by
+ * JdbcMessageDAO are served by an index rather than a table scan. The SQL is taken from the DAO's constants, so
+ * these checks follow any change to the queries.
+ */
+public class SchemaMigrationTest {
+
+    /**
+     * Before every test, reset the database, which also applies the migrations.
+     */
+    @Before
+    public void setUp() {
+        ConnectionUtil.resetTestDatabase();
+    }
+
+    /**
+     * Running the migrator again on an up-to-date database should apply nothing.
+     */
+    @Test
+    public void migrationsAreAppliedOnlyOnce() throws SQLException {
+        Assert.assertEquals(0, SchemaMigrator.migrate());
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            ResultSet rs = connection.createStatement().executeQuery("SELECT MAX(version) FROM schema_version");
+            Assert.assertTrue(rs.next());
+            Assert.assertEquals(4, rs.getInt(1));
+        }
+    }
+
+    /**
+     * MessageDAO.getMessagesByAccountIdPage should range-scan the (posted_by, message_id) index in both directions.
+     */
+    @Test
+    public void accountPageUsesPostedByIndex() throws SQLException {
+        String ascending = explain(JdbcMessageDAO.SELECT_BY_ACCOUNT_PAGE_ASC_SQL, 1, 0, 10);
+        String descending = explain(JdbcMessageDAO.SELECT_BY_ACCOUNT_PAGE_DESC_SQL, 1, Integer.MAX_VALUE, 10);
+        Assert.assertTrue(ascending, ascending.contains("IDX_MESSAGE_POSTED_BY_ID"));
+        Assert.assertTrue(descending, descending.contains("IDX_MESSAGE_POSTED_BY_ID"));
+    }
+
+    /**
+     * MessageDAO.getMessagesByAccountId and streamMessagesByAccountId should use an index on posted_by.
+     */
+    @Test
+    public void accountTimelineDoesNotScanTable() throws SQLException {
+        String plan = explain(JdbcMessageDAO.SELECT_BY_ACCOUNT_SQL, 1);
+        Assert.assertFalse(plan, plan.contains("tableScan"));
+    }
+
+    /**
+     * MessageDAO.getMessagesPage should range-scan the primary key.
+     */
+    @Test
+    public void messagesPageUsesPrimaryKey() throws SQLException {
+        String ascending = explain(JdbcMessageDAO.SELECT_PAGE_ASC_SQL, 0, 10);
+        String descending = explain(JdbcMessageDAO.SELECT_PAGE_DESC_SQL, Integer.MAX_VALUE, 10);
+        Assert.assertTrue(ascending, ascending.contains("PRIMARY_KEY"));
+        Assert.assertFalse(ascending, ascending.contains("tableScan"));
+        Assert.assertTrue(descending, descending.contains("PRIMARY_KEY"));
+        Assert.assertFalse(descending, descending.contains("tableScan"));
+    }
+
+    /**
+     * No query reads by time_posted_epoch, so V4 drops the index V3 added on it.
+     */
+    @Test
+    public void timePostedIndexIsDropped() throws SQLException {
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            ResultSet rs = connection.createStatement().executeQuery("SELECT COUNT(*) FROM information_schema.indexes "
+                    + "WHERE index_name = 'IDX_MESSAGE_TIME_POSTED'");
+            Assert.assertTrue(rs.next());
+            Assert.assertEquals(0, rs.getInt(1));
+        }
+    }
+
+    private String explain(String sql, Object... params) throws SQLException {
+        try (Connection connection = ConnectionUtil.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement("EXPLAIN " + sql);
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            ResultSet rs = ps.executeQuery();
+            Assert.assertTrue(rs.next());
+            return rs.getString(1);
+        }
+    }
+}
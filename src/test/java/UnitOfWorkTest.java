@@ -0,0 +1,78 @@
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import DAO.DAOFactory;
+import DAO.JdbcAccountDAO;
+import DAO.JdbcMessageDAO;
+import Model.Account;
+import Model.Message;
+import Service.MessageService;
+import Util.ConnectionUtil;
+import Util.UnitOfWork;
+
+public class UnitOfWorkTest {
+
+    /**
+     * After-commit actions should run once the work has committed, and never when it is rolled back.
+     */
+    @Test
+    public void afterCommitRunsOnlyOnCommit() {
+        List<String> ran = new ArrayList<>();
+        String result = UnitOfWork.execute(() -> {
+            UnitOfWork.afterCommit(() -> ran.add("committed"));
+            Assert.assertTrue(ran.isEmpty());
+            return "done";
+        });
+        Assert.assertEquals("done", result);
+        Assert.assertEquals(List.of("committed"), ran);
+
+        UnitOfWork.execute(() -> {
+            UnitOfWork.afterCommit(() -> ran.add("rolled back"));
+            UnitOfWork.setRollbackOnly();
+            return null;
+        });
+        Assert.assertEquals(List.of("committed"), ran);
+
+        UnitOfWork.afterCommit(() -> ran.add("no unit of work"));
+        Assert.assertEquals(List.of("committed", "no unit of work"), ran);
+    }
+
+    /**
+     * A statement that fails inside a unit of work rolls back the writes made before it, even though the DAO only
+     * reports the failure by returning null.
+     */
+    @Test
+    public void failedStatementRollsBackTheUnit() {
+        ConnectionUtil.resetTestDatabase();
+        JdbcAccountDAO accountDAO = new JdbcAccountDAO();
+        JdbcMessageDAO messageDAO = new JdbcMessageDAO();
+
+        Assert.assertNull(UnitOfWork.execute(() -> {
+            Assert.assertNotNull(accountDAO.registerAccount(new Account("rolledback", "password")));
+            return messageDAO.updateMessageText(1, "x".repeat(300)); // Too long for message_text
+        }));
+
+        Assert.assertNull(accountDAO.getAccountByUsername("rolledback"));
+        Assert.assertEquals("test message 1", messageDAO.getMessageById(1).getMessage_text());
+    }
+
+    /**
+     * A write through the service borrows exactly one pooled JDBC connection on the JDBC engine, and none on the
+     * engines that do not use JDBC.
+     */
+    @Test
+    public void onlyTheJdbcEngineBorrowsAConnectionForAWrite() {
+        ConnectionUtil.resetTestDatabase();
+        MessageService messageService = new MessageService();
+        // The first write may still load the account index or the memory store
+        Assert.assertNotNull(messageService.createMessage(new Message(1, "first", 1669947792L)));
+
+        long acquired = ConnectionUtil.getPoolStats().getAcquireCount();
+        Assert.assertNotNull(messageService.createMessage(new Message(1, "second", 1669947792L)));
+        Assert.assertEquals(DAOFactory.getEngine().equals("jdbc") ? 1 : 0,
+                ConnectionUtil.getPoolStats().getAcquireCount() - acquired);
+    }
+}
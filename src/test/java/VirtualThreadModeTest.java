@@ -0,0 +1,74 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.eclipse.jetty.util.VirtualThreads;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import Controller.SocialMediaController;
+import Util.ConnectionUtil;
+import io.javalin.Javalin;
+
+/**
+ * Checks which kind of thread runs the request handlers, with and without -Dserver.virtualThreads=true. On a JVM
+ * without virtual threads the opt-in falls back to platform threads.
+ */
+public class VirtualThreadModeTest {
+    HttpClient webClient = HttpClient.newHttpClient();
+    Javalin app;
+
+    @After
+    public void tearDown() {
+        app.stop();
+        System.clearProperty("server.virtualThreads");
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/thread with virtual threads requested
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: whether the JVM supports virtual threads, and GET localhost:8080/messages still works
+     */
+    @Test
+    public void handlersRunOnVirtualThreadsWhenEnabled() throws IOException, InterruptedException {
+        System.setProperty("server.virtualThreads", "true");
+        start();
+
+        Assert.assertEquals(String.valueOf(VirtualThreads.areSupported()), get("http://localhost:8080/thread").body());
+        Assert.assertEquals(200, get("http://localhost:8080/messages").statusCode());
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/thread without the opt-in
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: false, handlers run on the platform thread pool
+     */
+    @Test
+    public void handlersRunOnPlatformThreadsByDefault() throws IOException, InterruptedException {
+        start();
+
+        Assert.assertEquals("false", get("http://localhost:8080/thread").body());
+    }
+
+    private void start() throws InterruptedException {
+        ConnectionUtil.resetTestDatabase();
+        app = new SocialMediaController().startAPI();
+        app.get("/thread", ctx -> ctx.result(String.valueOf(VirtualThreads.isVirtualThread())));
+        app.start(8080);
+        Thread.sleep(1000);
+    }
+
+    private HttpResponse<String> get(String uri) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(uri))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,176 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Controller.SocialMediaController;
+import DAO.DAOFactory;
+import DAO.JdbcMessageDAO;
+import Model.Message;
+import Service.AccountService;
+import Service.MessageService;
+import Service.ServiceOverloadedException;
+import Service.WriteBehindQueue;
+import Util.ConnectionUtil;
+import io.javalin.Javalin;
+
+/**
+ * Runs POST /messages with write-behind enabled, so messages are inserted in group-committed batches.
+ */
+public class WriteBehindTest {
+    SocialMediaController socialMediaController;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+    Javalin app;
+
+    /**
+     * Before every test, enable write-behind with a long linger time so concurrent posts share a batch, reset the
+     * database, restart the Javalin app, and create a new webClient and ObjectMapper for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @Before
+    public void setUp() throws InterruptedException {
+        System.setProperty("writeBehind.enabled", "true");
+        System.setProperty("writeBehind.lingerMs", "50");
+        ConnectionUtil.resetTestDatabase();
+        socialMediaController = new SocialMediaController();
+        app = socialMediaController.startAPI();
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        app.start(8080);
+        Thread.sleep(1000);
+    }
+
+    @After
+    public void tearDown() {
+        app.stop();
+        System.clearProperty("writeBehind.enabled");
+        System.clearProperty("writeBehind.lingerMs");
+    }
+
+    /**
+     * Sending 20 concurrent http requests to POST localhost:8080/messages
+     *
+     * Expected Response:
+     *  Status Code: 200 for every request, each with its own generated message_id
+     *  GET localhost:8080/accounts/1/messages then returns all 21 messages
+     */
+    @Test
+    public void concurrentPostsAreAllWritten() throws IOException, InterruptedException {
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/messages"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{"+
+                            "\"posted_by\":1, " +
+                            "\"message_text\": \"queued " + i + "\", " +
+                            "\"time_posted_epoch\": 1669947792}"))
+                    .header("Content-Type", "application/json")
+                    .build();
+            responses.add(webClient.sendAsync(postMessageRequest, HttpResponse.BodyHandlers.ofString()));
+        }
+
+        Set<Integer> ids = new HashSet<>();
+        for (CompletableFuture<HttpResponse<String>> future : responses) {
+            HttpResponse<String> response = future.join();
+            Assert.assertEquals(200, response.statusCode());
+            ids.add(objectMapper.readValue(response.body(), Message.class).getMessage_id());
+        }
+        Assert.assertEquals(20, ids.size());
+
+        HttpRequest getRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/1/messages"))
+                .build();
+        HttpResponse<String> getResponse = webClient.send(getRequest, HttpResponse.BodyHandlers.ofString());
+        List<Message> timeline = objectMapper.readValue(getResponse.body(), new TypeReference<List<Message>>(){});
+        Assert.assertEquals(21, timeline.size());
+    }
+
+    /**
+     * Sending an http request to POST localhost:8080/messages for a user that does not exist
+     *
+     * Expected Response:
+     *  Status Code: 400, since validation still happens before the message is queued
+     */
+    @Test
+    public void invalidMessageIsRejectedBeforeQueueing() throws IOException, InterruptedException {
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString("{"+
+                        "\"posted_by\":3, " +
+                        "\"message_text\": \"hello message\", " +
+                        "\"time_posted_epoch\": 1669947792}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(400, response.statusCode());
+    }
+
+    /**
+     * Closing the queue must write the messages still waiting for their batch, then reject new ones.
+     */
+    @Test
+    public void closeDrainsQueuedMessages() {
+        WriteBehindQueue queue = new WriteBehindQueue(DAOFactory.createMessageDAO(), 100, 10_000, 100, 0);
+        CompletableFuture<Message> first = queue.submit(new Message(1, "drained 1", 1669947792));
+        CompletableFuture<Message> second = queue.submit(new Message(1, "drained 2", 1669947792));
+        queue.close();
+
+        Assert.assertTrue(first.isDone());
+        Assert.assertTrue(second.isDone());
+        Assert.assertEquals(new Message(2, 1, "drained 1", 1669947792), first.join());
+        Assert.assertEquals(new Message(3, 1, "drained 2", 1669947792), second.join());
+        Assert.assertEquals(0, queue.getQueueDepth());
+        Assert.assertThrows(ServiceOverloadedException.class,
+                () -> queue.submit(new Message(1, "too late", 1669947792)));
+    }
+
+    /**
+     * A caller whose message is stuck behind a stalled writer gets a ServiceOverloadedException (503) after the write
+     * timeout instead of waiting forever.
+     */
+    @Test
+    public void stalledWriterTimesOut() {
+        CountDownLatch stalled = new CountDownLatch(1);
+        System.setProperty("writeBehind.writeTimeoutMs", "200");
+        MessageService messageService;
+        try {
+            messageService = new MessageService(new JdbcMessageDAO() {
+                @Override
+                public List<Message> createMessages(List<Message> messages) {
+                    try {
+                        stalled.await(); // e.g. a hung database
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return super.createMessages(messages);
+                }
+            }, new AccountService());
+        } finally {
+            System.clearProperty("writeBehind.writeTimeoutMs");
+        }
+
+        long start = System.nanoTime();
+        Assert.assertThrows(ServiceOverloadedException.class,
+                () -> messageService.createMessage(new Message(1, "stalled", 1669947792)));
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        stalled.countDown();
+        messageService.close();
+    }
+}